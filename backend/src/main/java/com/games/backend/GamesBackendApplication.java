@@ -7,11 +7,13 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.games.backend")
 @EntityScan("com.games.backend.model")
 @EnableJpaRepositories("com.games.backend.repository")
 @EnableCaching
+@EnableScheduling
 @EnableConfigurationProperties(FirebaseConfig.class)
 public class GamesBackendApplication {
     public static void main(String[] args) {
@@ -0,0 +1,48 @@
+package com.games.backend.admin;
+
+import com.games.backend.service.LeaderboardRebuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Rebuilds realtime leaderboards from the database. Rebuilds run in the background; poll the
+ * status (or the leaderboard.rebuild.* metrics) for progress. Admins only, and only for the
+ * configured {@code leaderboard.rebuild.scopes}: the database holds all-time bests per game, so
+ * loading them into any other board (a room) would fill it with global scores.
+ */
+@RestController
+@RequestMapping("/api/admin/leaderboards")
+public class LeaderboardAdminController {
+
+    private final LeaderboardRebuilder rebuilder;
+
+    public LeaderboardAdminController(LeaderboardRebuilder rebuilder) {
+        this.rebuilder = rebuilder;
+    }
+
+    @PostMapping("/{scope}/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuild(@PathVariable String scope) {
+        if (!rebuilder.scopes().contains(scope)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "scope must be one of " + rebuilder.scopes()));
+        }
+        if (!rebuilder.start(scope)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("scope", scope, "error", "rebuild already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("scope", scope, "state", LeaderboardRebuilder.State.RUNNING));
+    }
+
+    @GetMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, LeaderboardRebuilder.Progress>> status() {
+        return ResponseEntity.ok(rebuilder.status());
+    }
+}
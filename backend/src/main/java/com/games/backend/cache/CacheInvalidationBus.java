@@ -0,0 +1,62 @@
+package com.games.backend.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cross-node L1 invalidation over the {@value #CHANNEL} pub/sub channel. Messages are
+ * {@code <node>|evict|<cache>|<key>} or {@code <node>|clear|<cache>|<generation>}; a node skips
+ * its own messages because it has already applied them locally.
+ */
+class CacheInvalidationBus implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL = "cache:invalidate";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redis;
+    private final Function<String, TwoLevelCache> caches;
+
+    CacheInvalidationBus(StringRedisTemplate redis, RedisMessageListenerContainer listenerContainer,
+                         Function<String, TwoLevelCache> caches) {
+        this.redis = redis;
+        this.caches = caches;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    void publishEvict(String cache, String key) {
+        redis.convertAndSend(CHANNEL, nodeId + "|evict|" + cache + "|" + key);
+    }
+
+    void publishClear(String cache, long generation) {
+        redis.convertAndSend(CHANNEL, nodeId + "|clear|" + cache + "|" + generation);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length != 4 || nodeId.equals(parts[0])) return;
+        TwoLevelCache cache = caches.apply(parts[2]);
+        if (cache == null) return; // not used on this node yet, so nothing to drop
+        switch (parts[1]) {
+            case "evict" -> cache.evictLocal(parts[3]);
+            case "clear" -> {
+                try {
+                    cache.clearLocal(Long.parseLong(parts[3]));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring malformed cache invalidation: {}", parts[3]);
+                }
+            }
+            default -> logger.warn("Ignoring unknown cache invalidation op: {}", parts[1]);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.games.backend.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.cache.support.NullValue;
+
+import java.io.IOException;
+
+/**
+ * CBOR encoding of cached values for the shared tier. Type ids are written only where the static
+ * type is {@code Object} (the root value, collection elements and map values), so a list of
+ * entities costs one class name per element rather than one per field, and entity fields that
+ * hold ORM collection wrappers come back as plain JDK collections. Only application, JDK
+ * collection and {@code java.time} types may be named in a payload.
+ */
+final class CacheValueSerializer {
+
+    private static final byte[] NULL = new byte[0];
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    CacheValueSerializer() {
+        BasicPolymorphicTypeValidator types = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.games.backend.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType("java.lang.")
+                .build();
+        CBORMapper mapper = CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .activateDefaultTyping(types, ObjectMapper.DefaultTyping.JAVA_LANG_OBJECT)
+                .build();
+        this.writer = mapper.writerFor(Object.class);
+        this.reader = mapper.readerFor(Object.class);
+    }
+
+    /** Encodes a store value; Spring's null marker becomes an empty payload. */
+    byte[] serialize(Object storeValue) throws IOException {
+        return storeValue == NullValue.INSTANCE ? NULL : writer.writeValueAsBytes(storeValue);
+    }
+
+    Object deserialize(byte[] bytes) throws IOException {
+        return bytes.length == 0 ? NullValue.INSTANCE : reader.readValue(bytes);
+    }
+}
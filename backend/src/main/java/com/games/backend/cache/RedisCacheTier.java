@@ -0,0 +1,129 @@
+package com.games.backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * The Redis (L2) half of one {@link TwoLevelCache}. Entries live under
+ * {@code cache:<name>:<generation>:<key>} with a TTL; clearing the cache bumps the generation
+ * counter {@code cache:<name>:gen} instead of scanning for keys, and the orphaned entries expire
+ * on their own. Redis errors are counted and treated as misses, so the cache degrades to L1 only.
+ */
+class RedisCacheTier {
+    private static final Logger logger = LoggerFactory.getLogger(RedisCacheTier.class);
+
+    private final String name;
+    private final StringRedisTemplate redis;
+    private final CacheValueSerializer serializer;
+    private final CacheInvalidationBus bus;
+    private final Expiration ttl;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    // -1 until read from Redis
+    private volatile long generation = -1;
+
+    RedisCacheTier(String name, StringRedisTemplate redis, CacheValueSerializer serializer,
+                   CacheInvalidationBus bus, Duration ttl, MeterRegistry registry) {
+        this.name = name;
+        this.redis = redis;
+        this.serializer = serializer;
+        this.bus = bus;
+        this.ttl = Expiration.from(ttl);
+        this.hits = counter(registry, "hit");
+        this.misses = counter(registry, "miss");
+        this.errors = counter(registry, "error");
+    }
+
+    private Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("cache.l2.gets")
+                .description("Shared (Redis) tier lookups after an L1 miss")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /** Returns the store value for {@code key}, or null on a miss or Redis error. */
+    Object get(String key) {
+        try {
+            byte[] raw = key(key);
+            byte[] bytes = redis.execute((RedisCallback<byte[]>) c -> c.stringCommands().get(raw));
+            if (bytes == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return serializer.deserialize(bytes);
+        } catch (Exception e) {
+            errors.increment();
+            logger.debug("Cache {} L2 read failed: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    void put(String key, Object storeValue) {
+        try {
+            byte[] raw = key(key);
+            byte[] bytes = serializer.serialize(storeValue);
+            redis.execute((RedisCallback<Boolean>) c ->
+                    c.stringCommands().set(raw, bytes, ttl, RedisStringCommands.SetOption.upsert()));
+        } catch (Exception e) {
+            errors.increment();
+            logger.debug("Cache {} L2 write failed: {}", name, e.getMessage());
+        }
+    }
+
+    /** Deletes the shared entry and tells the other nodes to drop their L1 copy. */
+    void evict(String key) {
+        try {
+            byte[] raw = key(key);
+            redis.execute((RedisCallback<Long>) c -> c.keyCommands().del(raw));
+            bus.publishEvict(name, key);
+        } catch (Exception e) {
+            errors.increment();
+            logger.warn("Cache {} L2 evict failed: {}", name, e.getMessage());
+        }
+    }
+
+    /** Starts a new generation and tells the other nodes to clear their L1. */
+    void clear() {
+        try {
+            Long next = redis.opsForValue().increment(generationKey());
+            if (next != null) advanceTo(next);
+            bus.publishClear(name, generation);
+        } catch (Exception e) {
+            errors.increment();
+            logger.warn("Cache {} L2 clear failed: {}", name, e.getMessage());
+        }
+    }
+
+    /** Applies a generation announced by another node; never moves backwards. */
+    synchronized void advanceTo(long next) {
+        if (next > generation) generation = next;
+    }
+
+    private byte[] key(String key) {
+        return ("cache:" + name + ":" + generation() + ":" + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long generation() {
+        long current = generation;
+        if (current >= 0) return current;
+        String stored = redis.opsForValue().get(generationKey());
+        advanceTo(stored == null ? 0 : Long.parseLong(stored));
+        return generation;
+    }
+
+    private String generationKey() {
+        return "cache:" + name + ":gen";
+    }
+}
@@ -0,0 +1,134 @@
+package com.games.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A Spring cache backed by a per-node Caffeine cache (L1), optionally in front of a Redis tier
+ * (L2) shared by every replica. Reads go L1, then L2 (copying a hit into L1), then the caller's
+ * loader, whose result is written to both tiers. Evictions and clears apply to both tiers and are
+ * broadcast so the other nodes drop their L1 copies. Keys are compared by their string form.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}) run once per key
+ * per node while concurrent readers wait. The loader is only ever called inside that read: Spring's
+ * Callable proceeds the intercepted method invocation, which cannot be replayed once the call has
+ * returned, so entries simply expire ({@code expireAfterWrite}) and the next read loads them.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final RedisCacheTier shared;
+
+    /**
+     * @param l1     Caffeine builder for this cache's L1
+     * @param shared the Redis tier, or null for a node-local cache
+     */
+    TwoLevelCache(String name, Caffeine<Object, Object> l1, RedisCacheTier shared, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.shared = shared;
+        this.local = l1.build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String k = String.valueOf(key);
+        Object value = local.getIfPresent(k);
+        if (value != null || shared == null) return value;
+        value = shared.get(k);
+        if (value != null) local.put(k, value);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(local.get(String.valueOf(key), k -> load((String) k, valueLoader)));
+    }
+
+    private Object load(String key, Callable<?> loader) {
+        if (shared != null) {
+            Object hit = shared.get(key);
+            if (hit != null) return hit;
+        }
+        Object value;
+        try {
+            value = toStoreValue(loader.call());
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, loader, e);
+        }
+        if (shared != null) shared.put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String k = String.valueOf(key);
+        Object storeValue = toStoreValue(value);
+        local.put(k, storeValue);
+        if (shared != null) shared.put(k, storeValue);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String k = String.valueOf(key);
+        Object storeValue = toStoreValue(value);
+        Object existing = local.asMap().putIfAbsent(k, storeValue);
+        if (existing != null) return toValueWrapper(existing);
+        if (shared != null) shared.put(k, storeValue);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String k = String.valueOf(key);
+        local.invalidate(k);
+        if (shared != null) shared.evict(k);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String k = String.valueOf(key);
+        boolean present = local.asMap().remove(k) != null;
+        if (shared != null) shared.evict(k);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (shared != null) shared.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = !local.asMap().isEmpty();
+        clear();
+        return notEmpty;
+    }
+
+    /** Another node evicted {@code key}. */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    /** Another node cleared the cache and started {@code generation}. */
+    void clearLocal(long generation) {
+        if (shared != null) shared.advanceTo(generation);
+        local.invalidateAll();
+    }
+}
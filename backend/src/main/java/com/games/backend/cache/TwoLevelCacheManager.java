@@ -0,0 +1,80 @@
+package com.games.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Creates caches on first use, each with its own L1 builder (so expiry and size are set
+ * per cache name). Names in {@code sharedCaches} also get the Redis tier and pub/sub invalidation
+ * when a Redis template is given; every other cache is node-local. Each L1 is bound to Micrometer
+ * as {@code cache.gets}/{@code cache.loads}/{@code cache.evictions}/... tagged with the cache
+ * name; the shared tier adds {@code cache.l2.gets}.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final Function<String, Caffeine<Object, Object>> l1Builders;
+    private final MeterRegistry registry;
+    private final Set<String> sharedCaches;
+    private final StringRedisTemplate redis;
+    private final Duration sharedTtl;
+    private final CacheValueSerializer serializer = new CacheValueSerializer();
+    private final CacheInvalidationBus bus;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final Map<String, TwoLevelCache> sharedByName = new ConcurrentHashMap<>();
+
+    /** Node-local caches only. */
+    public TwoLevelCacheManager(Function<String, Caffeine<Object, Object>> l1Builders, MeterRegistry registry) {
+        this(l1Builders, registry, Set.of(), null, null, Duration.ZERO);
+    }
+
+    /**
+     * @param l1Builders   Caffeine builder per cache name, with stats recorded for the metrics
+     * @param sharedCaches names that also use the Redis tier
+     * @param sharedTtl    lifetime of Redis entries
+     */
+    public TwoLevelCacheManager(Function<String, Caffeine<Object, Object>> l1Builders, MeterRegistry registry,
+                                Set<String> sharedCaches, StringRedisTemplate redis,
+                                RedisMessageListenerContainer listenerContainer, Duration sharedTtl) {
+        this.l1Builders = l1Builders;
+        this.registry = registry;
+        this.sharedCaches = Set.copyOf(sharedCaches);
+        this.redis = redis;
+        this.sharedTtl = sharedTtl;
+        this.bus = redis != null && !this.sharedCaches.isEmpty()
+                ? new CacheInvalidationBus(redis, listenerContainer, sharedByName::get)
+                : null;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private Cache createCache(String name) {
+        RedisCacheTier shared = bus != null && sharedCaches.contains(name)
+                ? new RedisCacheTier(name, redis, serializer, bus, sharedTtl, registry)
+                : null;
+        TwoLevelCache cache = new TwoLevelCache(name, l1Builders.apply(name), shared, true);
+        CaffeineCacheMetrics.monitor(registry, cache.getNativeCache(), name);
+        if (shared != null) sharedByName.put(name, cache);
+        return cache;
+    }
+}
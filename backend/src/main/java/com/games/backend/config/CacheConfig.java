@@ -1,27 +1,58 @@
 package com.games.backend.config;
 
+import com.games.backend.cache.TwoLevelCacheManager;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
 
 @Configuration
 public class CacheConfig {
 
+    // Shared Redis tier behind the per-node caches; off = every node caches on its own
+    @Value("${features.cache.redis_enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${cache.redis.caches:leaderboard,userScores}")
+    private List<String> sharedCaches;
+
+    @Value("${cache.redis.ttl:60s}")
+    private Duration sharedTtl;
+
+    // Caffeine spec for caches without their own cache.specs.<name> entry
+    @Value("${cache.specs.default:maximumSize=10000,expireAfterWrite=15s}")
+    private String defaultSpec;
+
     @Bean
-    public Caffeine<Object, Object> caffeineConfig() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(15, TimeUnit.SECONDS)
-                .maximumSize(10_000);
+    public CacheManager cacheManager(Environment env, MeterRegistry meterRegistry,
+                                     ObjectProvider<StringRedisTemplate> redis,
+                                     ObjectProvider<RedisMessageListenerContainer> listenerContainer) {
+        Function<String, Caffeine<Object, Object>> cacheSpecs = name -> l1(env, name);
+        if (!redisEnabled) {
+            return new TwoLevelCacheManager(cacheSpecs, meterRegistry);
+        }
+        return new TwoLevelCacheManager(cacheSpecs, meterRegistry, new HashSet<>(sharedCaches),
+                redis.getObject(), listenerContainer.getObject(), sharedTtl);
     }
 
-    @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(caffeine);
-        return cacheManager;
+    /**
+     * L1 builder for one cache from {@code cache.specs.<name>}. Specs expire entries
+     * ({@code expireAfterWrite}); {@code refreshAfterWrite} is rejected when the cache is built,
+     * since Spring's per-call loaders cannot be replayed later.
+     */
+    private Caffeine<Object, Object> l1(Environment env, String name) {
+        return Caffeine.from(env.getProperty("cache.specs." + name, defaultSpec))
+                .recordStats();
     }
 }
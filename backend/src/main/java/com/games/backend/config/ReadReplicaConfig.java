@@ -0,0 +1,86 @@
+package com.games.backend.config;
+
+import com.games.backend.db.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single {@code spring.datasource} pool with a primary plus read replicas when
+ * {@code features.db.replicas_enabled} is on; see {@link ReplicaRoutingDataSource} for what is
+ * routed where. Off, Boot's auto-configured DataSource is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "features.db.replicas_enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Value("${datasource.replicas.urls:}")
+    private List<String> urls;
+
+    // Replica credentials default to the primary's
+    @Value("${datasource.replicas.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${datasource.replicas.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${datasource.replicas.max-lag:2s}")
+    private Duration maxLag;
+
+    @Value("${datasource.replicas.pool-size:10}")
+    private int poolSize;
+
+    @Value("${datasource.replicas.connection-timeout-ms:1000}")
+    private long connectionTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment env,
+                                                             MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) continue;
+            String name = "replica-" + replicas.size();
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            // Short, so a dead replica costs a read little before it falls back to the primary
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replica.setReadOnly(true);
+            // Start even if the replica is down; getConnection then fails and the read uses the primary
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(name, replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, maxLag, meterRegistry);
+        routing.checkReplicas();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -1,14 +1,23 @@
 package com.games.backend.config;
 
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisPassword;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
@@ -24,8 +33,25 @@ public class RedisConfig {
     @Value("${spring.redis.password:}")
     private String password;
 
+    @Value("${spring.redis.timeout-ms:2000}")
+    private long commandTimeoutMs;
+
+    /**
+     * Records per-command latency as {@code lettuce.command.completion} / {@code lettuce.command.firstresponse}
+     * timers tagged by command type, with percentile histograms.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MeterRegistry meterRegistry) {
+        MicrometerOptions options = MicrometerOptions.builder()
+                .histogram(true)
+                .build();
+        return DefaultClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(meterRegistry, options))
+                .build();
+    }
+
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
+    public LettuceConnectionFactory redisConnectionFactory(ClientResources clientResources) {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
         config.setHostName(host);
         config.setPort(port);
@@ -33,7 +59,15 @@ public class RedisConfig {
         if (StringUtils.hasText(password)) {
             config.setPassword(RedisPassword.of(password));
         }
-        return new LettuceConnectionFactory(config);
+        // One shared, multiplexed native connection serves every caller (platform or virtual
+        // thread), so no pool is needed; the timeout bounds how long a blocked caller waits.
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofMillis(commandTimeoutMs))
+                .clientResources(clientResources)
+                .build();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config, clientConfig);
+        factory.setShareNativeConnection(true);
+        return factory;
     }
 
     @Bean
@@ -42,4 +76,12 @@ public class RedisConfig {
         template.setConnectionFactory(connectionFactory);
         return template;
     }
+
+    /** Shared pub/sub subscriber; listeners register their own topics. */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
@@ -1,10 +1,22 @@
 package com.games.backend.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.backend.realtime.RoomRegistry;
 import com.games.backend.security.CustomUserDetailsService;
 import com.games.backend.security.JwtTokenProvider;
+import com.games.backend.websocket.BinaryPayloadNegotiator;
+import com.games.backend.websocket.BroadcastMetrics;
+import com.games.backend.websocket.ChannelTaskMetrics;
+import com.games.backend.websocket.HandlerMetrics;
+import com.games.backend.websocket.RoomSubscriptionGuard;
+import com.games.backend.websocket.SlowConsumerPolicy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
@@ -16,6 +28,7 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,9 +38,13 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -35,10 +52,50 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final RoomRegistry roomRegistry;
 
-    public WebSocketConfig(JwtTokenProvider tokenProvider, CustomUserDetailsService userDetailsService) {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Channel executors (platform-thread mode); 0 core threads = 2 x CPUs
+    @Value("${websocket.inbound.core-pool-size:0}")
+    private int inboundCorePoolSize;
+    @Value("${websocket.inbound.max-pool-size:64}")
+    private int inboundMaxPoolSize;
+    @Value("${websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+    @Value("${websocket.outbound.core-pool-size:0}")
+    private int outboundCorePoolSize;
+    @Value("${websocket.outbound.max-pool-size:64}")
+    private int outboundMaxPoolSize;
+    @Value("${websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // Per-session transport limits; exceeding them terminates the session
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+    @Value("${websocket.transport.send-buffer-size-kb:512}")
+    private int sendBufferSizeKb;
+    @Value("${websocket.transport.message-size-limit-kb:64}")
+    private int messageSizeLimitKb;
+
+    @Value("${websocket.slow-consumer.shed-after-ms:1000}")
+    private long shedAfterMs;
+    @Value("${websocket.slow-consumer.sheddable-destinations:/topic/*/presence/**}")
+    private List<String> sheddableDestinations;
+
+    @Value("${websocket.binary.destinations:/topic/*/presence/**,/topic/*/leaderboard/**,/topic/*/match/**}")
+    private List<String> binaryDestinations;
+
+    public WebSocketConfig(JwtTokenProvider tokenProvider, CustomUserDetailsService userDetailsService,
+                           MeterRegistry meterRegistry, ObjectMapper objectMapper, RoomRegistry roomRegistry) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.roomRegistry = roomRegistry;
     }
 
     @Override
@@ -46,16 +103,39 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+        config.configureBrokerChannel().interceptors(broadcastMetrics());
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Plain WebSocket: no SockJS framing or HTTP fallbacks, and the only endpoint that can
+        // negotiate binary (CBOR) payloads. Skips the HttpSession the SockJS endpoint creates.
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(nativeTransportHandshakeInterceptor());
+        // SockJS fallback for clients that cannot open a WebSocket
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS()
                 .setInterceptors(httpSessionHandshakeInterceptor());
     }
 
+    private HandshakeInterceptor nativeTransportHandshakeInterceptor() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(BinaryPayloadNegotiator.NATIVE_TRANSPORT_ATTR, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
     @Bean
     public HandshakeInterceptor httpSessionHandshakeInterceptor() {
         return new HandshakeInterceptor() {
@@ -78,7 +158,86 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(channelInterceptor());
+        // Authenticate on CONNECT before room subscriptions are authorized
+        registration.interceptors(channelInterceptor(), roomSubscriptionGuard(), binaryPayloadNegotiator().inbound(),
+                handlerMetrics());
+        registration.executor(channelExecutor("inbound",
+                inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Shed first so dropped frames are never re-encoded
+        registration.interceptors(slowConsumerPolicy(), binaryPayloadNegotiator().outbound());
+        registration.executor(channelExecutor("outbound",
+                outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeKb * 1024)
+                .setMessageSizeLimit(messageSizeLimitKb * 1024)
+                .addDecoratorFactory(slowConsumerPolicy());
+    }
+
+    @Bean
+    public SlowConsumerPolicy slowConsumerPolicy() {
+        return new SlowConsumerPolicy(meterRegistry, shedAfterMs, sheddableDestinations);
+    }
+
+    @Bean
+    public RoomSubscriptionGuard roomSubscriptionGuard() {
+        return new RoomSubscriptionGuard(roomRegistry);
+    }
+
+    @Bean
+    public HandlerMetrics handlerMetrics() {
+        return new HandlerMetrics(meterRegistry);
+    }
+
+    @Bean
+    public BroadcastMetrics broadcastMetrics() {
+        return new BroadcastMetrics(roomRegistry, meterRegistry);
+    }
+
+    @Bean
+    public BinaryPayloadNegotiator binaryPayloadNegotiator() {
+        return new BinaryPayloadNegotiator(objectMapper, meterRegistry, binaryDestinations);
+    }
+
+    /**
+     * Builds the executor for one client channel; Spring registers it as the channel's executor
+     * bean and manages its lifecycle. Queue wait and run time are timed per task.
+     */
+    Executor channelExecutor(String channel, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ChannelTaskMetrics metrics = new ChannelTaskMetrics(meterRegistry, channel);
+        if (virtualThreads) {
+            // Handlers block on Redis/JPA; a thread per message avoids the CPU-sized pool
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-" + channel + "-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(metrics);
+            return executor;
+        }
+        int core = corePoolSize > 0 ? corePoolSize : Runtime.getRuntime().availableProcessors() * 2;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(Math.max(core, maxPoolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        // A full queue pushes back on the submitting thread instead of dropping frames
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(metrics);
+        Gauge.builder("realtime.channel.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Tasks waiting in a STOMP channel executor queue")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("realtime.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Threads busy in a STOMP channel executor")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        return executor;
     }
 
     @Bean
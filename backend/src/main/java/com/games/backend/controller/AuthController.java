@@ -6,21 +6,26 @@ import com.games.backend.model.User;
 import com.games.backend.repository.UserRepository;
 import com.games.backend.security.JwtTokenProvider;
 import com.games.backend.security.CustomUserDetailsService;
+import com.games.backend.security.PasswordHashingService;
+import com.games.backend.security.PasswordHashingUnavailableException;
 import com.games.backend.service.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -28,10 +33,10 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final RefreshTokenService refreshTokenService;
     private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingService passwordHashingService;
 
     @Value("${app.jwtExpirationInMs:3600000}")
     private int jwtExpirationInMs;
@@ -39,75 +44,81 @@ public class AuthController {
     public AuthController(
             AuthenticationManager authenticationManager,
             UserRepository userRepository,
-            PasswordEncoder passwordEncoder,
             JwtTokenProvider tokenProvider,
             RefreshTokenService refreshTokenService,
-            CustomUserDetailsService userDetailsService
+            CustomUserDetailsService userDetailsService,
+            PasswordHashingService passwordHashingService
     ) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
         this.tokenProvider = tokenProvider;
         this.refreshTokenService = refreshTokenService;
         this.userDetailsService = userDetailsService;
+        this.passwordHashingService = passwordHashingService;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()
-                )
-        );
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String accessToken = tokenProvider.generateToken(authentication);
-
-        // Issue refresh token
-        Optional<User> userOpt = userRepository.findByEmail(loginRequest.getEmail());
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
-        }
-        RefreshToken rt = refreshTokenService.issue(userOpt.get());
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("accessToken", accessToken);
-        response.put("refreshToken", rt.getToken());
-        response.put("tokenType", "Bearer");
-        response.put("expiresIn", jwtExpirationInMs);
-
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@RequestBody LoginRequest loginRequest) {
+        // BCrypt matching happens inside authenticate(); keep it off the request thread
+        return passwordHashingService.submit(() -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                loginRequest.getEmail(),
+                                loginRequest.getPassword()
+                        )
+                ))
+                .<ResponseEntity<?>>thenApply(authentication -> {
+                    String accessToken = tokenProvider.generateToken(authentication);
+
+                    // Issue refresh token
+                    Optional<User> userOpt = userRepository.findByEmail(loginRequest.getEmail());
+                    if (userOpt.isEmpty()) {
+                        return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+                    }
+                    RefreshToken rt = refreshTokenService.issue(userOpt.get());
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("accessToken", accessToken);
+                    response.put("refreshToken", rt.getToken());
+                    response.put("tokenType", "Bearer");
+                    response.put("expiresIn", jwtExpirationInMs);
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::hashingFailure);
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@RequestBody SignUpRequest signUpRequest) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody SignUpRequest signUpRequest) {
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity.badRequest().body("Email is already taken!");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Email is already taken!"));
         }
 
-        User user = new User();
-        user.setUsername(signUpRequest.getUsername());
-        user.setEmail(signUpRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(signUpRequest.getPassword()));
-        user.getRoles().add("ROLE_USER");
-
-        userRepository.save(user);
-
-        // Auto login: issue tokens using a proper principal
-        UserDetails ud = userDetailsService.loadUserByUsername(user.getEmail());
-        Authentication authentication = new UsernamePasswordAuthenticationToken(ud, null, ud.getAuthorities());
-        String accessToken = tokenProvider.generateToken(authentication);
-        RefreshToken rt = refreshTokenService.issue(user);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "User registered successfully");
-        response.put("accessToken", accessToken);
-        response.put("refreshToken", rt.getToken());
-        response.put("tokenType", "Bearer");
-        response.put("expiresIn", jwtExpirationInMs);
-
-        return ResponseEntity.ok(response);
+        return passwordHashingService.encode(signUpRequest.getPassword())
+                .<ResponseEntity<?>>thenApply(encoded -> {
+                    User user = new User();
+                    user.setUsername(signUpRequest.getUsername());
+                    user.setEmail(signUpRequest.getEmail());
+                    user.setPassword(encoded);
+                    user.getRoles().add("ROLE_USER");
+
+                    userRepository.save(user);
+
+                    // Auto login: issue tokens using a proper principal
+                    UserDetails ud = userDetailsService.loadUserByUsername(user.getEmail());
+                    Authentication authentication = new UsernamePasswordAuthenticationToken(ud, null, ud.getAuthorities());
+                    String accessToken = tokenProvider.generateToken(authentication);
+                    RefreshToken rt = refreshTokenService.issue(user);
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("message", "User registered successfully");
+                    response.put("accessToken", accessToken);
+                    response.put("refreshToken", rt.getToken());
+                    response.put("tokenType", "Bearer");
+                    response.put("expiresIn", jwtExpirationInMs);
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::hashingFailure);
     }
 
     @PostMapping("/refresh")
@@ -151,6 +162,22 @@ public class AuthController {
         body.put("roles", u.getRoles());
         return ResponseEntity.ok(body);
     }
+
+    private ResponseEntity<?> hashingFailure(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof PasswordHashingUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Authentication is temporarily overloaded, please retry"));
+        }
+        if (cause instanceof AuthenticationException) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+        }
+        if (cause instanceof RuntimeException re) {
+            throw re;
+        }
+        throw new CompletionException(cause);
+    }
 }
 
 class LoginRequest {
@@ -0,0 +1,43 @@
+package com.games.backend.controller;
+
+import com.games.backend.service.RunIdService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/games")
+public class GameRunController {
+
+    // Games whose realtime leaderboard submits are checked against a run id (anti_cheat_enabled)
+    private static final Set<String> GAMES = Set.of("snake", "chess", "checkers");
+
+    private final RunIdService runIdService;
+
+    public GameRunController(RunIdService runIdService) {
+        this.runIdService = runIdService;
+    }
+
+    /**
+     * Start an anti-cheat run by issuing a short-lived runId. Run ids are only accepted by the
+     * game they were started for.
+     */
+    @PostMapping("/{game}/run/start")
+    public ResponseEntity<Map<String, Object>> startRun(@PathVariable String game,
+                                                        @AuthenticationPrincipal UserDetails principal) {
+        if (!GAMES.contains(game)) return ResponseEntity.notFound().build();
+        String userOrGuest = principal != null ? principal.getUsername() : "guest";
+        String runId = runIdService.start(userOrGuest, game);
+        Map<String, Object> body = new HashMap<>();
+        body.put("runId", runId);
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,72 @@
+package com.games.backend.controller;
+
+import com.games.backend.websocket.GameSessionManager;
+import com.games.backend.websocket.GameSessionManager.GameSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Private two-player match sessions. Each session owns the realtime room {@code <game>:<sessionId>},
+ * which only its current players may subscribe or send to.
+ */
+@RestController
+@RequestMapping("/api/sessions")
+public class GameSessionController {
+
+    private static final Set<String> GAMES = Set.of("chess", "checkers");
+
+    private final GameSessionManager sessions;
+
+    public GameSessionController(GameSessionManager sessions) {
+        this.sessions = sessions;
+    }
+
+    @PostMapping("/{game}")
+    public ResponseEntity<Map<String, Object>> create(@PathVariable String game,
+                                                      @AuthenticationPrincipal UserDetails principal) {
+        if (!GAMES.contains(game)) return ResponseEntity.notFound().build();
+        GameSession session = sessions.createSession(game, principal.getUsername());
+        return ResponseEntity.status(HttpStatus.CREATED).body(body(session));
+    }
+
+    @PostMapping("/{sessionId}/join")
+    public ResponseEntity<Map<String, Object>> join(@PathVariable String sessionId,
+                                                    @AuthenticationPrincipal UserDetails principal) {
+        GameSession session = sessions.getSession(sessionId);
+        if (session == null) return ResponseEntity.notFound().build();
+        if (!sessions.joinSession(sessionId, principal.getUsername())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(body(session));
+    }
+
+    @PostMapping("/{sessionId}/leave")
+    public ResponseEntity<Void> leave(@PathVariable String sessionId,
+                                      @AuthenticationPrincipal UserDetails principal) {
+        GameSession session = sessions.getSession(sessionId);
+        if (session == null || !session.getPlayers().contains(principal.getUsername())) {
+            return ResponseEntity.notFound().build();
+        }
+        sessions.leaveSession(sessionId, principal.getUsername());
+        return ResponseEntity.noContent().build();
+    }
+
+    private static Map<String, Object> body(GameSession session) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("sessionId", session.getId());
+        body.put("roomId", session.getGameType() + ":" + session.getId());
+        body.put("players", List.copyOf(session.getPlayers()));
+        return body;
+    }
+}
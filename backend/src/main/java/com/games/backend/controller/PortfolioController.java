@@ -18,7 +18,7 @@ import java.util.Map;
 public class PortfolioController {
 
     @GetMapping("/featured")
-    @Cacheable("featuredGames")
+    @Cacheable(value = "featuredGames", sync = true)
     public List<Map<String, Object>> getFeaturedGames() {
         // Simulate heavier computation by including a timestamp; cached responses will keep same timestamp
         return List.of(
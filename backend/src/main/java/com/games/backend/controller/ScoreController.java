@@ -3,14 +3,16 @@ package com.games.backend.controller;
 
 import com.games.backend.model.GameScore;
 import com.games.backend.model.User;
+import com.games.backend.repository.ScoreView;
 import com.games.backend.repository.UserRepository;
 import com.games.backend.service.GameService;
+import com.games.backend.service.LeaderboardVersions;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -20,18 +22,20 @@ import java.util.Map;
 @RequestMapping("/api/scores")
 public class ScoreController {
 
+  private static final String UNUSABLE_PASSWORD = "!";
+
     private final GameService gameService;
   private final UserRepository userRepository;
-  private final PasswordEncoder passwordEncoder;
+  private final VersionedResponseCache responses;
 
-  public ScoreController(GameService gameService, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+  public ScoreController(GameService gameService, UserRepository userRepository, VersionedResponseCache responses) {
         this.gameService = gameService;
     this.userRepository = userRepository;
-    this.passwordEncoder = passwordEncoder;
+    this.responses = responses;
     }
 
     @PostMapping
-    public ResponseEntity<GameScore> saveScore(
+    public ResponseEntity<ScoreView> saveScore(
       Authentication authentication,
       @RequestBody ScoreRequest request
     ) {
@@ -55,24 +59,25 @@ public class ScoreController {
         User u = new User();
         u.setUsername(uname);
         u.setEmail(uname + "@local.test");
-        u.setPassword(passwordEncoder.encode("test"));
+        // Not a valid BCrypt hash, so password login can never match it; skips hashing entirely
+        u.setPassword(UNUSABLE_PASSWORD);
         u.getRoles().add("ROLE_USER");
         return userRepository.save(u);
       });
 
       GameScore savedScore = gameService.saveScore(user, request.gameType(), request.score());
-      return ResponseEntity.status(HttpStatus.CREATED).body(savedScore);
+      return ResponseEntity.status(HttpStatus.CREATED).body(ScoreView.of(savedScore));
     }
 
+    // Polled by the leaderboard page: ETag is the scores version, so unchanged polls get a 304
     @GetMapping("/leaderboard")
-    public ResponseEntity<Map<String, List<GameScore>>> getLeaderboard() {
-        Map<String, List<GameScore>> leaderboard = gameService.getLeaderboard();
-        return ResponseEntity.ok(leaderboard);
+    public ResponseEntity<byte[]> getLeaderboard(HttpServletRequest request) {
+        return responses.respond(request, LeaderboardVersions.SCORES_SCOPE, "all", gameService::getLeaderboard);
     }
 
     @GetMapping("/user")
-    public ResponseEntity<Map<String, List<GameScore>>> getUserScores(@AuthenticationPrincipal User user) {
-        Map<String, List<GameScore>> userScores = gameService.getUserScores(user.getId());
+    public ResponseEntity<Map<String, List<ScoreView>>> getUserScores(@AuthenticationPrincipal User user) {
+        Map<String, List<ScoreView>> userScores = gameService.getUserScores(user.getId());
         return ResponseEntity.ok(userScores);
     }
 }
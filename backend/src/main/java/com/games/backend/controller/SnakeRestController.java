@@ -1,17 +1,19 @@
 package com.games.backend.controller;
 
+import com.games.backend.realtime.LeaderboardStream;
 import com.games.backend.realtime.dto.RealtimeDtos.Entry;
 import com.games.backend.service.LeaderboardService;
-import com.games.backend.service.RunIdService;
-import org.springframework.cache.annotation.Cacheable;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -23,37 +25,50 @@ public class SnakeRestController {
 
     private static final String SCOPE = "snake:global";
 
-    private final RunIdService runIdService;
     private final LeaderboardService leaderboardService;
+    private final VersionedResponseCache responses;
+    private final LeaderboardStream stream;
 
-    public SnakeRestController(RunIdService runIdService, LeaderboardService leaderboardService) {
-        this.runIdService = runIdService;
+    public SnakeRestController(LeaderboardService leaderboardService, VersionedResponseCache responses,
+                               LeaderboardStream stream) {
         this.leaderboardService = leaderboardService;
+        this.responses = responses;
+        this.stream = stream;
     }
 
     /**
-     * Start an anti-cheat run by issuing a short-lived runId.
+     * Get a snapshot of the leaderboard. The ETag is the scope's version: unchanged polls get a
+     * 304, and each version is read from Redis and serialized once per node.
      */
-    @PostMapping("/run/start")
-    public ResponseEntity<Map<String, Object>> startRun(@AuthenticationPrincipal UserDetails principal) {
-        String userOrGuest = principal != null ? principal.getUsername() : "guest";
-        String runId = runIdService.start(userOrGuest);
-        Map<String, Object> body = new HashMap<>();
-        body.put("runId", runId);
-        return ResponseEntity.ok(body);
+    @GetMapping("/leaderboard")
+    public ResponseEntity<byte[]> leaderboard(@RequestParam(defaultValue = "10") int limit, HttpServletRequest request) {
+        int safeLimit = Math.max(1, Math.min(50, limit));
+        return responses.respond(request, SCOPE, Integer.toString(safeLimit), () -> {
+            List<Entry> top = leaderboardService.topN(SCOPE, safeLimit);
+            Map<String, Object> body = new HashMap<>();
+            body.put("scope", SCOPE);
+            body.put("top", top);
+            return body;
+        });
     }
 
     /**
-     * Get a snapshot of the leaderboard. Cached for a few seconds via Caffeine.
+     * Stream leaderboard snapshots as Server-Sent Events for spectators that only watch the board.
+     * Each {@code leaderboard} event carries the version as its id; a reconnect with
+     * {@code Last-Event-ID} (or {@code ?lastEventId=} for clients that cannot set headers) skips
+     * the snapshot it already has.
      */
-    @GetMapping("/leaderboard")
-    @Cacheable(value = "lb_snake_global", key = "#limit")
-    public ResponseEntity<Map<String, Object>> leaderboard(@RequestParam(defaultValue = "10") int limit) {
-        int safeLimit = Math.max(1, Math.min(50, limit));
-        List<Entry> top = leaderboardService.topN(SCOPE, safeLimit);
-        Map<String, Object> body = new HashMap<>();
-        body.put("scope", SCOPE);
-        body.put("top", top);
-        return ResponseEntity.ok(body);
+    @GetMapping(path = "/leaderboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> leaderboardStream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        SseEmitter emitter = stream.subscribe(SCOPE, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no") // keep reverse proxies from buffering the stream
+                .body(emitter);
     }
 }
@@ -0,0 +1,117 @@
+package com.games.backend.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.backend.service.LeaderboardVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Conditional GET for polled leaderboard endpoints. The ETag is the scope's
+ * {@link LeaderboardVersions version}; a matching {@code If-None-Match} is answered 304 from
+ * memory. Otherwise the serialized body is built at most once per version and node, kept next
+ * to its gzip form, and sent compressed to clients that accept it.
+ */
+@Component
+public class VersionedResponseCache {
+
+    private record Body(long version, byte[] json, byte[] gzip) {}
+
+    private final LeaderboardVersions versions;
+    private final ObjectMapper objectMapper;
+    // "<scope>|<variant>" -> body of the newest version built so far
+    private final Map<String, Body> bodies = new ConcurrentHashMap<>();
+
+    public VersionedResponseCache(LeaderboardVersions versions, ObjectMapper objectMapper) {
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param scope   leaderboard scope whose version tags the response
+     * @param variant distinguishes bodies of one scope (e.g. the requested limit)
+     * @param loader  produces the response object; only called when this version is not cached
+     */
+    public ResponseEntity<byte[]> respond(HttpServletRequest request, String scope, String variant,
+                                          Supplier<?> loader) {
+        long version = versions.current(scope);
+        if (version < 0) {
+            // Version unknown: no ETag, and nothing cached under it
+            return ok(request, null, serialize(loader.get()));
+        }
+        String etag = "W/\"" + version + "\"";
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        String key = scope + "|" + variant;
+        Body body = bodies.get(key);
+        if (body == null || body.version() < version) {
+            Body built = serialize(version, loader.get());
+            body = bodies.merge(key, built, (old, fresh) -> fresh.version() >= old.version() ? fresh : old);
+        }
+        return ok(request, etag, body);
+    }
+
+    private ResponseEntity<byte[]> ok(HttpServletRequest request, String etag, Body body) {
+        boolean gzip = acceptsGzip(request);
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (etag != null) res.eTag(etag);
+        if (gzip) res.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return res.body(gzip ? body.gzip() : body.json());
+    }
+
+    private Body serialize(Object value) {
+        return serialize(-1, value);
+    }
+
+    private Body serialize(long version, Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 32);
+            try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                gz.write(json);
+            }
+            return new Body(version, json, out.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize leaderboard", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String opaque = etag.substring(2); // weak comparison: ignore W/
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return accept != null && accept.toLowerCase().contains("gzip");
+    }
+}
@@ -0,0 +1,164 @@
+package com.games.backend.db;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to a healthy streaming replica and everything else
+ * to the primary.
+ * <p>
+ * A replica is used only while its last health check succeeded and its replay lag was within
+ * {@code maxLag}; replicas are taken round-robin, and a replica that refuses a connection is
+ * marked down until the next check. With no usable replica, reads go to the primary.
+ * <p>
+ * Only transactions the application declares read-only are routed. Spring Data also wraps every
+ * standalone repository read in a read-only transaction of its own; those stay on the primary, so
+ * code that writes and then looks the row up again (login after registration, provisioning a
+ * user before saving a score) still reads its own write.
+ * <p>
+ * The routing decision is made when a connection is requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction
+ * manager opens its connection before the read-only flag is published for the transaction.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Name prefix of the implicit transactions Spring Data puts around repository methods
+    private static final String REPOSITORY_DEFAULT_TX = "org.springframework.data.jpa.repository.support.SimpleJpaRepository.";
+
+    // Lag is 0 while everything received has been replayed (an idle primary writes nothing, so
+    // the replay timestamp alone would make a caught-up replica look ever more stale)
+    private static final String LAG_QUERY = """
+            SELECT pg_is_in_recovery(),
+                   CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS bigint), 0)
+                   END""";
+
+    static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy;
+        volatile long lagMs = -1;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMs;
+    private final MeterRegistry registry;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> connections = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                    MeterRegistry registry) {
+        this.primary = primary;
+        this.maxLagMs = maxLag.toMillis();
+        this.registry = registry;
+        replicas.forEach((name, ds) -> {
+            Replica replica = new Replica(name, ds);
+            this.replicas.add(replica);
+            Gauge.builder("db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", name)
+                    .register(registry);
+            Gauge.builder("db.replica.lag", replica, r -> r.lagMs)
+                    .tag("replica", name)
+                    .baseUnit("milliseconds")
+                    .description("Replay lag at the last health check; -1 when unreachable")
+                    .register(registry);
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routesToReplica()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) continue;
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    count(replica.name);
+                    return connection;
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    logger.warn("Replica {} refused a connection, reading from the next one: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+        count("primary");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    private boolean routesToReplica() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return false;
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name == null || !name.startsWith(REPOSITORY_DEFAULT_TX);
+    }
+
+    /** Re-checks every replica's reachability, recovery state and replay lag. */
+    @Scheduled(fixedDelayString = "${datasource.replicas.check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    boolean standby = rs.getBoolean(1);
+                    replica.lagMs = rs.getLong(2);
+                    // A promoted replica no longer follows the primary, so its data may diverge
+                    replica.healthy = standby && replica.lagMs <= maxLagMs;
+                }
+            } catch (SQLException e) {
+                replica.healthy = false;
+                replica.lagMs = -1;
+            }
+            if (wasHealthy != replica.healthy) {
+                logger.info("Replica {} is now {} (lag {} ms)", replica.name,
+                        replica.healthy ? "in use" : "out of rotation", replica.lagMs);
+            }
+        }
+    }
+
+    private void count(String target) {
+        connections.computeIfAbsent(target, t -> Counter.builder("db.routing.connections")
+                .tag("target", t)
+                .register(registry)).increment();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) closeable.close();
+        }
+        if (primary instanceof AutoCloseable closeable) closeable.close();
+    }
+}
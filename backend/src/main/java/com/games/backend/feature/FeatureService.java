@@ -1,6 +1,10 @@
 package com.games.backend.feature;
 
+import com.games.backend.features.FlagStore;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
@@ -9,23 +13,69 @@ import java.util.Map;
 
 /**
  * Central place to evaluate feature flags by merging application.yml values
- * with an in-memory overlay that can be changed at runtime (e.g., from admin UI).
+ * with an overlay that can be changed at runtime (e.g., from admin UI).
  * <p>
- * Note: This keeps state in-memory only. For persistence across restarts, back it
- * with a database table (e.g., key/value) and load it on startup.
+ * The merged values are resolved once into an immutable snapshot and replaced on each change,
+ * so {@link #isEnabled} is a single map lookup with no locking or property conversion.
+ * <p>
+ * The overlay is the shared {@link FlagStore}: upserts persist across restarts and reach every
+ * replica, and are also seen by {@link com.games.backend.features.FeatureFlagsService} for the flags it knows.
  */
 @Service
 public class FeatureService {
 
+  private static final String PREFIX = "features.";
+
   private final Environment env;
-  private final Map<String, Object> overlay = Collections.synchronizedMap(new HashMap<>());
+  private final FlagStore store;
+  private volatile Snapshot snapshot;
 
-  public FeatureService(Environment env) {
+  public FeatureService(Environment env, FlagStore store) {
     this.env = env;
+    this.store = store;
+    this.snapshot = new Snapshot(1, resolve());
+    store.onChange(this::refresh);
+  }
+
+  /** Immutable flag values; {@code version} increases with every change. */
+  public record Snapshot(long version, Map<String, Object> values) {
   }
 
   public Map<String, Object> listAll() {
+    return snapshot.values();
+  }
+
+  public Snapshot snapshot() {
+    return snapshot;
+  }
+
+  public Map<String, Object> upsert(String key, Object value) {
+    store.put(key, String.valueOf(value));
+    return snapshot.values();
+  }
+
+  private synchronized void refresh() {
+    snapshot = new Snapshot(snapshot.version() + 1, resolve());
+  }
+
+  public boolean isEnabled(String key, boolean def) {
+    Object v = snapshot.values().get(key.startsWith(PREFIX) ? key.substring(PREFIX.length()) : key);
+    return v instanceof Boolean b ? b : def;
+  }
+
+  private Map<String, Object> resolve() {
     Map<String, Object> res = new HashMap<>();
+    // Any other features.* keys from the property sources, so isEnabled never has to go back to them
+    if (env instanceof ConfigurableEnvironment configurable) {
+      for (PropertySource<?> source : configurable.getPropertySources()) {
+        if (!(source instanceof EnumerablePropertySource<?> enumerable)) continue;
+        for (String name : enumerable.getPropertyNames()) {
+          if (name.startsWith(PREFIX)) {
+            res.putIfAbsent(name.substring(PREFIX.length()), typed(env.getProperty(name)));
+          }
+        }
+      }
+    }
     // Base values from application.yml (with defaults)
     put(res, "realtime_enabled", getBool("features.realtime_enabled", true));
     put(res, "chess_enabled", getBool("features.chess_enabled", true));
@@ -37,38 +87,14 @@ public class FeatureService {
     put(res, "mail.provider", env.getProperty("features.mail.provider", "smtp"));
 
     // Apply overlay (runtime changes win)
-    synchronized (overlay) {
-      for (Map.Entry<String, Object> e : overlay.entrySet()) {
-        res.put(e.getKey(), e.getValue());
-      }
-    }
-    return res;
-  }
-
-  public Map<String, Object> upsert(String key, Object value) {
-    overlay.put(key, value);
-    return listAll();
+    store.overrides().forEach((key, value) -> res.put(key, typed(value)));
+    return Collections.unmodifiableMap(res);
   }
 
-  public boolean isEnabled(String key, boolean def) {
-    // Check overlay first
-    Object v;
-    synchronized (overlay) {
-      v = overlay.get(key);
-    }
-    if (v instanceof Boolean b) {
-      return b;
-    }
-    // Fall back to env/yaml
-    return getBool(mapKeyToYaml(key), def);
-  }
-
-  private String mapKeyToYaml(String key) {
-    // Keys like "payments.stripe_enabled" map to "features.payments.stripe_enabled"
-    if (key.startsWith("features.")) {
-      return key;
-    }
-    return "features." + key;
+  private static Object typed(String value) {
+    if ("true".equalsIgnoreCase(value)) return Boolean.TRUE;
+    if ("false".equalsIgnoreCase(value)) return Boolean.FALSE;
+    return value;
   }
 
   private void put(Map<String, Object> map, String key, Object value) {
@@ -1,23 +1,26 @@
 package com.games.backend.features;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Lightweight feature flags service.
  * Defaults come from environment; values can be toggled at runtime (dev only) via admin endpoint.
  * This is an interim step; can be swapped to OpenFeature provider later without changing call sites.
+ * <p>
+ * Reads go through an immutable {@link FlagSnapshot} that is replaced on every toggle, so the
+ * per-message checks in the realtime controllers never lock. Toggles are stored in the shared
+ * {@link FlagStore}, so they persist and apply to every replica.
  */
 @Service
 public class FeatureFlagsService {
 
-    private final ConcurrentHashMap<String, Boolean> overrides = new ConcurrentHashMap<>();
-
     @Value("${features.realtimeEnabled:true}")
     private boolean realtimeDefault;
     @Value("${features.chatEnabled:true}")
@@ -30,48 +33,69 @@ public class FeatureFlagsService {
     private boolean snake3dDefault;
     @Value("${features.breakoutMultiplayerBeta:false}")
     private boolean breakoutBetaDefault;
+    @Value("${features.snakeReplayVerification:false}")
+    private boolean snakeReplayDefault;
+    @Value("${features.chess_enabled:true}")
+    private boolean chessDefault;
+    @Value("${features.checkers_enabled:true}")
+    private boolean checkersDefault;
+
+    private final FlagStore store;
+    private Map<String, Boolean> defaults;
+    private volatile FlagSnapshot snapshot;
+
+    public FeatureFlagsService(FlagStore store) {
+        this.store = store;
+    }
+
+    @PostConstruct
+    void init() {
+        Map<String, Boolean> defaults = new LinkedHashMap<>();
+        defaults.put("realtime_enabled", realtimeDefault);
+        defaults.put("chat_enabled", chatDefault);
+        defaults.put("snake_leaderboard_enabled", snakeLeaderboardDefault);
+        defaults.put("anti_cheat_enabled", antiCheatDefault);
+        defaults.put("snake_3d_mode", snake3dDefault);
+        defaults.put("breakout_multiplayer_beta", breakoutBetaDefault);
+        defaults.put("snake_replay_verification", snakeReplayDefault);
+        defaults.put("chess_enabled", chessDefault);
+        defaults.put("checkers_enabled", checkersDefault);
+        this.defaults = Map.copyOf(defaults);
+        snapshot = FlagSnapshot.of(defaults);
+        applyOverrides();
+        store.onChange(this::applyOverrides);
+    }
 
     public boolean isEnabled(String flag) {
-        Boolean o = overrides.get(flag);
-        if (o != null) return o;
-        return defaultFor(flag);
+        return snapshot.isEnabled(flag);
+    }
+
+    /** Current flag values; hold on to it to check several flags consistently. */
+    public FlagSnapshot snapshot() {
+        return snapshot;
     }
 
     public Map<String, Boolean> evaluateAll() {
-        return Map.of(
-                "realtime_enabled", isEnabled("realtime_enabled"),
-                "chat_enabled", isEnabled("chat_enabled"),
-                "snake_leaderboard_enabled", isEnabled("snake_leaderboard_enabled"),
-                "anti_cheat_enabled", isEnabled("anti_cheat_enabled"),
-                "snake_3d_mode", isEnabled("snake_3d_mode"),
-                "breakout_multiplayer_beta", isEnabled("breakout_multiplayer_beta")
-        );
+        return snapshot.asMap();
     }
 
     public void toggle(String flag, boolean enable) {
-        overrides.put(flag, enable);
+        if (!snapshot.isKnown(flag)) throw new IllegalArgumentException("unknown flag: " + flag);
+        store.put(flag, Boolean.toString(enable));
     }
 
-    private boolean defaultFor(String flag) {
-        return switch (flag) {
-            case "realtime_enabled" -> realtimeDefault;
-            case "chat_enabled" -> chatDefault;
-            case "snake_leaderboard_enabled" -> snakeLeaderboardDefault;
-            case "anti_cheat_enabled" -> antiCheatDefault;
-            case "snake_3d_mode" -> snake3dDefault;
-            case "breakout_multiplayer_beta" -> breakoutBetaDefault;
-            default -> false;
-        };
+    public Set<String> knownFlags() {
+        return snapshot.flags();
     }
 
-    public Set<String> knownFlags() {
-        return Set.of(
-                "realtime_enabled",
-                "chat_enabled",
-                "snake_leaderboard_enabled",
-                "anti_cheat_enabled",
-                "snake_3d_mode",
-                "breakout_multiplayer_beta"
-        );
+    // Defaults, with any boolean override from the store on top
+    private synchronized void applyOverrides() {
+        Map<String, Boolean> target = new HashMap<>(defaults);
+        store.overrides().forEach((flag, value) -> {
+            if (target.containsKey(flag) && ("true".equals(value) || "false".equals(value))) {
+                target.put(flag, Boolean.parseBoolean(value));
+            }
+        });
+        snapshot = snapshot.withAll(target);
     }
 }
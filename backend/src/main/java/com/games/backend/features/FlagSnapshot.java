@@ -0,0 +1,91 @@
+package com.games.backend.features;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, versioned view of every boolean feature flag. A change builds a new snapshot and the
+ * owner swaps it in with a single volatile write, so a read is a hash lookup on the (cached) flag
+ * name plus an array access, with no locking. Callers that check several flags for one message
+ * can hold on to one snapshot and see a consistent set of values.
+ */
+public final class FlagSnapshot {
+
+    private final long version;
+    private final Map<String, Integer> index;
+    private final String[] names;
+    private final boolean[] values;
+
+    private FlagSnapshot(long version, Map<String, Integer> index, String[] names, boolean[] values) {
+        this.version = version;
+        this.index = index;
+        this.names = names;
+        this.values = values;
+    }
+
+    /** Builds version 1 from the given flags, keeping their iteration order. */
+    public static FlagSnapshot of(Map<String, Boolean> flags) {
+        Map<String, Integer> index = new HashMap<>();
+        String[] names = new String[flags.size()];
+        boolean[] values = new boolean[flags.size()];
+        int i = 0;
+        for (Map.Entry<String, Boolean> e : flags.entrySet()) {
+            index.put(e.getKey(), i);
+            names[i] = e.getKey();
+            values[i++] = Boolean.TRUE.equals(e.getValue());
+        }
+        return new FlagSnapshot(1, Collections.unmodifiableMap(index), names, values);
+    }
+
+    /** Unknown flags are off. */
+    public boolean isEnabled(String flag) {
+        Integer i = index.get(flag);
+        return i != null && values[i];
+    }
+
+    public boolean isKnown(String flag) {
+        return index.containsKey(flag);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Set<String> flags() {
+        return index.keySet();
+    }
+
+    public Map<String, Boolean> asMap() {
+        Map<String, Boolean> res = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            res.put(names[i], values[i]);
+        }
+        return res;
+    }
+
+    /** Returns the next version with {@code flag} set, or this snapshot if nothing changes. */
+    public FlagSnapshot with(String flag, boolean enabled) {
+        Integer i = index.get(flag);
+        if (i == null) throw new IllegalArgumentException("unknown flag: " + flag);
+        if (values[i] == enabled) return this;
+        boolean[] next = Arrays.copyOf(values, values.length);
+        next[i] = enabled;
+        return new FlagSnapshot(version + 1, index, names, next);
+    }
+
+    /** Returns the next version with every known flag in {@code target} set; unknown keys are ignored. */
+    public FlagSnapshot withAll(Map<String, Boolean> target) {
+        boolean[] next = null;
+        for (Map.Entry<String, Boolean> e : target.entrySet()) {
+            Integer i = index.get(e.getKey());
+            if (i == null || values[i] == e.getValue()) continue;
+            if (next == null) next = Arrays.copyOf(values, values.length);
+            next[i] = e.getValue();
+        }
+        return next == null ? this : new FlagSnapshot(version + 1, index, names, next);
+    }
+}
@@ -0,0 +1,104 @@
+package com.games.backend.features;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runtime flag overrides shared by every replica.
+ * <p>
+ * Overrides live in the Redis hash {@value #KEY}. A write updates the hash and publishes the flag
+ * name on {@value #CHANNEL}; every node (including the writer) re-reads the hash when the message
+ * arrives and notifies its listeners, which rebuild their flag snapshots. Overrides therefore
+ * survive restarts and reach all replicas within one pub/sub round trip, without polling.
+ * <p>
+ * With {@code features.store.redis-enabled=false} overrides stay in this process only.
+ */
+@Component
+public class FlagStore implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(FlagStore.class);
+
+    static final String KEY = "features:overrides";
+    static final String CHANNEL = "features:changed";
+
+    private final StringRedisTemplate redis;
+    private final boolean redisEnabled;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<String, String> overrides = Map.of();
+
+    public FlagStore(StringRedisTemplate redis,
+                     RedisMessageListenerContainer listenerContainer,
+                     @Value("${features.store.redis-enabled:true}") boolean redisEnabled) {
+        this.redis = redis;
+        this.redisEnabled = redisEnabled;
+        if (redisEnabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+            reload();
+        }
+    }
+
+    /** Current overrides (flag -> raw value); immutable. */
+    public Map<String, String> overrides() {
+        return overrides;
+    }
+
+    /** Registers a callback run after every change, on the thread that observed it. */
+    public void onChange(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Sets an override. It is applied locally at once, so the caller reads its own write; the
+     * Redis write then makes it durable and visible to the other replicas. A Redis failure is
+     * rethrown, leaving the change on this node only until the next successful reload.
+     */
+    public void put(String flag, String value) {
+        synchronized (this) {
+            Map<String, String> next = new HashMap<>(overrides);
+            next.put(flag, value);
+            overrides = Map.copyOf(next);
+        }
+        notifyListeners();
+        if (!redisEnabled) return;
+        redis.opsForHash().put(KEY, flag, value);
+        redis.convertAndSend(CHANNEL, flag);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        reload();
+    }
+
+    /** Replaces the overrides with the Redis hash; keeps the current ones if Redis is unavailable. */
+    public void reload() {
+        Map<String, String> loaded = new HashMap<>();
+        try {
+            redis.<String, String>opsForHash().entries(KEY).forEach(loaded::put);
+        } catch (DataAccessException e) {
+            logger.warn("Could not load feature flag overrides: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            overrides = Map.copyOf(loaded);
+        }
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
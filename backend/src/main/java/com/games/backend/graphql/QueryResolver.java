@@ -1,12 +1,9 @@
 package com.games.backend.graphql;
 
-import com.games.backend.model.GameScore;
-import com.games.backend.repository.GameScoreRepository;
+import com.games.backend.repository.ScoreView;
 import com.games.backend.repository.UserRepository;
+import com.games.backend.service.GameService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
@@ -16,16 +13,14 @@ import java.util.List;
 @Controller
 @RequiredArgsConstructor
 public class QueryResolver {
-    private final GameScoreRepository gameScoreRepository;
+    private final GameService gameService;
     private final UserRepository userRepository;
 
+  // Same merge of raw rows and daily rollups as the REST leaderboard, so old bests do not vanish here
   @QueryMapping
-  public List<GameScore> gameScores(
+  public List<ScoreView> gameScores(
     @Argument String gameType,
     @Argument Integer limit) {
-        Pageable pageable = limit != null ?
-                PageRequest.of(0, limit, Sort.by("score").descending()) :
-                Pageable.unpaged();
-    return gameScoreRepository.findTopScoresByGameType(gameType, pageable);
+    return gameService.topScores(gameType, limit);
     }
 }
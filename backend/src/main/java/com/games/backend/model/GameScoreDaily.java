@@ -0,0 +1,63 @@
+package com.games.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user, per-game, per-day summary of {@link GameScore} rows whose monthly partition has passed
+ * the retention window. Written only by the partition rollup; the day's best score keeps the id
+ * and timestamp of the row it came from, so leaderboards list it exactly as before.
+ */
+@Entity
+@Table(name = "game_score_daily", indexes = {
+        @Index(name = "idx_game_score_daily_type_best", columnList = "game_type, best_score DESC, best_at")
+})
+@IdClass(GameScoreDaily.Key.class)
+@Data
+public class GameScoreDaily {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "game_type", length = 50)
+    private String gameType;
+
+    @Id
+    @Column(name = "score_date")
+    private LocalDate scoreDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private int games;
+
+    @Column(nullable = false)
+    private long totalScore;
+
+    @Column(nullable = false)
+    private int bestScore;
+
+    @Column(nullable = false)
+    private Long bestScoreId;
+
+    @Column(nullable = false)
+    private LocalDateTime bestAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private String gameType;
+        private LocalDate scoreDate;
+    }
+}
@@ -0,0 +1,41 @@
+package com.games.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A saved score waiting to be applied to its realtime leaderboard. Written in the same transaction
+ * as the {@link GameScore} it mirrors, and marked processed by the outbox relay once Redis has it.
+ */
+@Entity
+@Table(name = "score_outbox", indexes = {
+        @Index(name = "idx_score_outbox_pending", columnList = "processed_at, id")
+})
+@Data
+public class ScoreOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 128)
+    private String scope; // realtime leaderboard scope, e.g. "snake:global"
+
+    @Column(nullable = false)
+    private String nickname;
+
+    @Column(nullable = false)
+    private int score;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -1,15 +1,20 @@
 package com.games.backend.realtime;
 
 import com.games.backend.features.FeatureFlagsService;
+import com.games.backend.features.FlagSnapshot;
 import com.games.backend.realtime.dto.RealtimeDtos.*;
+import com.games.backend.service.ChatHistoryService;
 import com.games.backend.service.LeaderboardService;
 import com.games.backend.service.PresenceService;
 import com.games.backend.service.ProfanityFilter;
 import com.games.backend.service.RunIdService;
 import jakarta.validation.Valid;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 
@@ -27,106 +32,141 @@ public class ChessRealtimeController {
   private final LeaderboardService leaderboardService;
   private final RunIdService runIdService;
   private final FeatureFlagsService flags;
+  private final ChatHistoryService chatHistory;
+  private final RealtimeMetrics metrics;
+  private final RoomRegistry rooms;
 
   public ChessRealtimeController(SimpMessagingTemplate broker,
                                  ProfanityFilter profanityFilter,
                                  PresenceService presenceService,
                                  LeaderboardService leaderboardService,
                                  RunIdService runIdService,
-                                 FeatureFlagsService flags) {
+                                 FeatureFlagsService flags,
+                                 ChatHistoryService chatHistory,
+                                 RealtimeMetrics metrics,
+                                 RoomRegistry rooms) {
     this.broker = broker;
     this.profanityFilter = profanityFilter;
     this.presenceService = presenceService;
     this.leaderboardService = leaderboardService;
     this.runIdService = runIdService;
     this.flags = flags;
+    this.chatHistory = chatHistory;
+    this.metrics = metrics;
+    this.rooms = rooms;
   }
 
-  private boolean enabled() {
-    return flags.isEnabled("realtime_enabled") && flags.isEnabled("chess_enabled");
+  private boolean enabled(FlagSnapshot features, String handler) {
+    if (features.isEnabled("realtime_enabled") && features.isEnabled("chess_enabled")) return true;
+    metrics.rejected("chess", handler, "flag_off");
+    return false;
+  }
+
+  private boolean chatEnabled(FlagSnapshot features) {
+    if (features.isEnabled("chat_enabled")) return true;
+    metrics.rejected("chess", "chat", "flag_off");
+    return false;
   }
 
   @MessageMapping("/chess/presence")
-  public void presence(@Valid @Payload Envelope<@Valid PresenceIn> env, Principal principal) {
-    if (!enabled() || env == null) return;
+  public void presence(@Valid @Payload Envelope<@Valid PresenceIn> env, Principal principal,
+                       @Header(name = SimpMessageHeaderAccessor.SESSION_ID_HEADER, required = false) String sessionId) {
+    FlagSnapshot features = flags.snapshot();
+    if (!enabled(features, "presence") || env == null) return;
     String nickname = (env.user != null && env.user.nickname != null) ? env.user.nickname : "guest";
-    String principalId = (principal != null && principal.getName() != null) ? principal.getName() : UUID.randomUUID().toString();
-    String memberId = nickname + "|" + principalId;
-    String roomId = (env.room != null && env.room.id != null) ? env.room.id : "chess:global";
+    String memberId = nickname + "|" + RealtimeSupport.memberKey(principal, sessionId);
+    String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "chess", "presence", env.room, principal);
+    if (roomId == null) return;
 
     String status = env.payload != null ? env.payload.status : "heartbeat";
-    switch (status == null ? "heartbeat" : status) {
+    PresenceService.Update update = switch (status == null ? "heartbeat" : status) {
       case "join" -> presenceService.join(roomId, memberId);
       case "leave" -> presenceService.leave(roomId, memberId);
       default -> presenceService.heartbeat(roomId, memberId);
+    };
+    if ("join".equals(status) && features.isEnabled("chat_enabled")) {
+      RealtimeSupport.sendChatHistory(broker, chatHistory, "chess", roomId, env.room, principal, sessionId);
     }
+    // Heartbeats from known members change nothing: no broadcast
+    if (update == null || !update.changed()) return;
+
+    PresenceDelta delta = new PresenceDelta();
+    delta.version = update.version();
+    delta.count = update.count();
+    delta.joined = update.joined() ? List.of(PublicUser.fromMemberId(memberId)) : List.of();
+    delta.left = update.left();
+
+    Envelope<PresenceDelta> res = new Envelope<>();
+    res.type = "presence_delta";
+    res.room = env.room;
+    res.user = env.user;
+    res.payload = delta;
+    broker.convertAndSend(RoomRegistry.topic("chess", "presence", roomId), res);
+  }
+
+  /**
+   * Full member list for a client that joined late or saw a gap in delta versions.
+   */
+  @MessageMapping("/chess/presence/snapshot")
+  @SendToUser(destinations = "/queue/chess/presence", broadcast = false)
+  public Envelope<PresenceOut> presenceSnapshot(@Payload Envelope<PresenceIn> env, Principal principal) {
+    FlagSnapshot features = flags.snapshot();
+    if (!enabled(features, "presence/snapshot") || env == null) return null;
+    String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "chess", "presence/snapshot", env.room, principal);
+    if (roomId == null) return null;
+    PresenceService.Snapshot snapshot = presenceService.snapshot(roomId, RealtimeSupport.PRESENCE_SNAPSHOT_LIMIT);
 
     PresenceOut out = new PresenceOut();
-    out.count = presenceService.count(roomId);
-    out.users = presenceService.sample(roomId, 20).stream().map(k -> {
-      PublicUser pu = new PublicUser();
-      pu.id = k;
-      pu.nickname = k.split("\\|")[0];
-      return pu;
-    }).collect(Collectors.toList());
-
-    if (out.users == null) {
-      out.users = new ArrayList<>();
-    }
-    boolean containsSelf = out.users.stream().anyMatch(u -> Objects.equals(u.nickname, nickname));
-    if (!containsSelf) {
-      PublicUser self = new PublicUser();
-      self.id = memberId;
-      self.nickname = nickname;
-      out.users.add(self);
-    }
-    out.count = Math.max(out.count, out.users.size());
+    out.version = snapshot.version();
+    out.count = snapshot.count();
+    out.users = snapshot.members().stream().map(PublicUser::fromMemberId).collect(Collectors.toList());
 
     Envelope<PresenceOut> res = new Envelope<>();
     res.type = "presence";
     res.room = env.room;
     res.user = env.user;
     res.payload = out;
-    broker.convertAndSend("/topic/chess/presence", res);
+    return res;
   }
 
   @MessageMapping("/chess/leaderboard")
-  public void leaderboard(@Valid @Payload Envelope<@Valid ScoreIn> env) {
-    if (!enabled() || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+  public void leaderboard(@Valid @Payload Envelope<@Valid ScoreIn> env, Principal principal) {
+    FlagSnapshot features = flags.snapshot();
+    if (!enabled(features, "leaderboard") || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+    String scope = RealtimeSupport.authorizedRoom(rooms, metrics, "chess", "leaderboard", env.room, principal);
+    if (scope == null) return;
     int value = Math.max(0, env.payload.value);
-    if (value > 1_000_000) return;
-    if (flags.isEnabled("anti_cheat_enabled")) {
+    if (value > 1_000_000) {
+      metrics.rejected("chess", "leaderboard", "clamp");
+      return;
+    }
+    if (features.isEnabled("anti_cheat_enabled")) {
       String runId = env.payload.runId;
-      if (!runIdService.validateAndConsume(runId)) {
+      if (!runIdService.validateAndConsume(runId, principal != null ? principal.getName() : null, "chess")) {
+        metrics.rejected("chess", "leaderboard", "anti_cheat");
         return;
       }
     }
-    String scope = (env.room != null && env.room.id != null) ? env.room.id : "chess:global";
-    leaderboardService.submit(scope, env.user.nickname, value);
-
-    LeaderboardOut out = new LeaderboardOut();
-    List<Entry> serviceTop = leaderboardService.topN(scope, 10);
-    out.top = new ArrayList<>(serviceTop == null ? Collections.emptyList() : serviceTop);
-    boolean hasUser = out.top.stream().anyMatch(e -> Objects.equals(e.nickname, env.user.nickname));
-    if (!hasUser) {
-      Entry e = new Entry();
-      e.nickname = env.user.nickname;
-      e.value = value;
-      out.top.add(0, e);
-    }
-    out.yourRank = leaderboardService.rankOf(scope, env.user.nickname);
+    String member = RealtimeSupport.leaderboardMember(principal, env.user.nickname);
+    leaderboardService.submit(scope, member, value);
+
+    LeaderboardOut out = LeaderboardOut.of(leaderboardService.topN(scope, 10), member, value,
+        leaderboardService.rankOf(scope, member));
 
     Envelope<LeaderboardOut> res = new Envelope<>();
     res.type = "leaderboard";
     res.room = env.room;
     res.user = env.user;
     res.payload = out;
-    broker.convertAndSend("/topic/chess/leaderboard", res);
+    broker.convertAndSend(RoomRegistry.topic("chess", "leaderboard", scope), res);
   }
 
   @MessageMapping("/chess/chat")
-  public void chat(@Valid @Payload Envelope<@Valid ChatIn> env) {
-    if (!enabled() || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+  public void chat(@Valid @Payload Envelope<@Valid ChatIn> env, Principal principal) {
+    FlagSnapshot features = flags.snapshot();
+    if (!enabled(features, "chat") || !chatEnabled(features) || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+    String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "chess", "chat", env.room, principal);
+    if (roomId == null) return;
     String text = env.payload.text == null ? "" : env.payload.text.trim();
     if (text.isBlank()) return;
     text = profanityFilter.filter(text);
@@ -136,17 +176,22 @@ public class ChessRealtimeController {
     ChatOut out = new ChatOut();
     out.nickname = env.user.nickname;
     out.text = text;
+    out.ts = System.currentTimeMillis();
+    chatHistory.append(roomId, out);
     Envelope<ChatOut> res = new Envelope<>();
     res.type = "chat";
     res.room = env.room;
     res.user = env.user;
     res.payload = out;
-    broker.convertAndSend("/topic/chess/chat", res);
+    broker.convertAndSend(RoomRegistry.topic("chess", "chat", roomId), res);
   }
 
   @MessageMapping("/chess/move")
-  public void move(@Valid @Payload Envelope<@Valid MoveIn> env) {
-    if (!enabled() || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+  public void move(@Valid @Payload Envelope<@Valid MoveIn> env, Principal principal) {
+    FlagSnapshot features = flags.snapshot();
+    if (!enabled(features, "move") || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+    String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "chess", "move", env.room, principal);
+    if (roomId == null) return;
     // For M1: accept and broadcast the move without full rules validation.
     MoveOut out = new MoveOut();
     out.from = env.payload.from;
@@ -160,6 +205,6 @@ public class ChessRealtimeController {
     res.room = env.room;
     res.user = env.user;
     res.payload = out;
-    broker.convertAndSend("/topic/chess/match", res);
+    broker.convertAndSend(RoomRegistry.topic("chess", "match", roomId), res);
   }
 }
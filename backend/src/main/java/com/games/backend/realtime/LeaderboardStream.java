@@ -0,0 +1,207 @@
+package com.games.backend.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import com.games.backend.service.LeaderboardService;
+import com.games.backend.service.LeaderboardVersions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events feed of leaderboard snapshots for read-only spectators.
+ * <p>
+ * One publisher serves every viewer of a scope: each tick it compares the scope's
+ * {@link LeaderboardVersions version} (a local read) with the last snapshot, and only when it
+ * moved reads the top entries once and serializes them once. Viewers then get the newest
+ * snapshot, at most one per tick, so bursts of score changes are coalesced. Writes run on
+ * virtual threads, one in flight per viewer; a slow viewer skips intermediate snapshots instead
+ * of holding up the others. The event id is the version, so a reconnecting client's
+ * {@code Last-Event-ID} suppresses the resend of a snapshot it already has. An idle stream gets a
+ * comment line every keep-alive interval so proxies keep it open and dead clients are noticed.
+ */
+@Component
+public class LeaderboardStream {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardStream.class);
+
+    private record Snapshot(long version, String json) {}
+
+    private final class Scope {
+        final String id;
+        final Set<Viewer> viewers = ConcurrentHashMap.newKeySet();
+        volatile Snapshot latest;
+
+        Scope(String id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Viewer {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        volatile long sentVersion;
+        volatile long lastWriteAt = System.currentTimeMillis();
+
+        Viewer(SseEmitter emitter, long sentVersion) {
+            this.emitter = emitter;
+            this.sentVersion = sentVersion;
+        }
+    }
+
+    private final LeaderboardService leaderboardService;
+    private final LeaderboardVersions versions;
+    private final ObjectMapper objectMapper;
+    private final Executor senders;
+    private final Map<String, Scope> scopes = new ConcurrentHashMap<>();
+    private final AtomicInteger viewerCount = new AtomicInteger();
+
+    @Value("${leaderboard.stream.limit:10}")
+    private int limit = 10;
+    @Value("${leaderboard.stream.keep-alive-ms:15000}")
+    private long keepAliveMs = 15_000;
+    @Value("${leaderboard.stream.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+    @Value("${leaderboard.stream.max-viewers:10000}")
+    private int maxViewers = 10_000;
+
+    @Autowired
+    public LeaderboardStream(LeaderboardService leaderboardService, LeaderboardVersions versions,
+                             ObjectMapper objectMapper, MeterRegistry registry) {
+        this(leaderboardService, versions, objectMapper, registry,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-", 0).factory()));
+    }
+
+    LeaderboardStream(LeaderboardService leaderboardService, LeaderboardVersions versions,
+                      ObjectMapper objectMapper, MeterRegistry registry, Executor senders) {
+        this.leaderboardService = leaderboardService;
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.senders = senders;
+        Gauge.builder("realtime.sse.viewers", viewerCount, AtomicInteger::get)
+                .description("Open leaderboard SSE streams on this node")
+                .register(registry);
+    }
+
+    /**
+     * Opens a stream for {@code scope}; the current snapshot is sent at once unless
+     * {@code lastEventId} shows the client already has it. Returns null when the node is at its
+     * viewer limit.
+     */
+    public SseEmitter subscribe(String scope, String lastEventId) {
+        if (viewerCount.incrementAndGet() > maxViewers) {
+            viewerCount.decrementAndGet();
+            return null;
+        }
+        Scope s = scopes.computeIfAbsent(scope, Scope::new);
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Viewer viewer = new Viewer(emitter, parseVersion(lastEventId));
+        Runnable remove = () -> {
+            if (s.viewers.remove(viewer)) viewerCount.decrementAndGet();
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(() -> {
+            remove.run();
+            emitter.complete();
+        });
+        emitter.onError(e -> remove.run());
+        s.viewers.add(viewer);
+        refresh(s);
+        deliver(s, viewer);
+        return emitter;
+    }
+
+    SseEmitter newEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.stream.interval-ms:1000}")
+    public void publish() {
+        long now = System.currentTimeMillis();
+        for (Scope s : scopes.values()) {
+            if (s.viewers.isEmpty()) continue;
+            Snapshot snapshot = refresh(s);
+            for (Viewer v : s.viewers) {
+                boolean behind = snapshot != null && v.sentVersion != snapshot.version();
+                if (behind || now - v.lastWriteAt >= keepAliveMs) deliver(s, v);
+            }
+        }
+    }
+
+    /** Reads and serializes the scope once per version; returns the newest snapshot. */
+    private Snapshot refresh(Scope s) {
+        long version = versions.current(s.id);
+        Snapshot current = s.latest;
+        // An unknown version (-1) reuses whatever was loaded last rather than reloading every tick
+        if (current != null && (version < 0 || current.version() >= version)) return current;
+        try {
+            List<Entry> top = leaderboardService.topN(s.id, limit).stream().map(Entry::forDisplay).toList();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("scope", s.id);
+            body.put("version", version);
+            body.put("top", top);
+            Snapshot next = new Snapshot(version, objectMapper.writeValueAsString(body));
+            s.latest = next;
+            return next;
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Could not load leaderboard snapshot for {}: {}", s.id, e.getMessage());
+            return current;
+        }
+    }
+
+    // One write in flight per viewer; the writer keeps going until the viewer has the newest snapshot
+    private void deliver(Scope s, Viewer v) {
+        if (!v.sending.compareAndSet(false, true)) return;
+        senders.execute(() -> {
+            try {
+                Snapshot snapshot = s.latest;
+                if (snapshot == null || snapshot.version() == v.sentVersion) {
+                    v.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    while (snapshot != null && snapshot.version() != v.sentVersion) {
+                        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                                .name("leaderboard")
+                                .data(snapshot.json(), MediaType.APPLICATION_JSON);
+                        if (snapshot.version() >= 0) event.id(Long.toString(snapshot.version()));
+                        v.emitter.send(event);
+                        v.sentVersion = snapshot.version();
+                        snapshot = s.latest;
+                    }
+                }
+                v.lastWriteAt = System.currentTimeMillis();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter's completion callback removes it
+                v.emitter.completeWithError(e);
+            } finally {
+                v.sending.set(false);
+            }
+        });
+    }
+
+    private static long parseVersion(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return Long.MIN_VALUE;
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
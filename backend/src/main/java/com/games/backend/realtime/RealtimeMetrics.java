@@ -0,0 +1,33 @@
+package com.games.backend.realtime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts realtime messages a handler dropped on purpose, by reason: {@code flag_off} (feature
+ * disabled), {@code anti_cheat} (run id not accepted), {@code replay_mismatch} (proof did not
+ * reproduce the score) and {@code clamp} (score outside the accepted range).
+ */
+@Component
+public class RealtimeMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public RealtimeMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void rejected(String game, String handler, String reason) {
+        rejected.computeIfAbsent(game + '|' + handler + '|' + reason, k -> Counter.builder("realtime.rejected")
+                .description("Realtime messages dropped by a handler")
+                .tag("game", game)
+                .tag("handler", handler)
+                .tag("reason", reason)
+                .register(registry)).increment();
+    }
+}
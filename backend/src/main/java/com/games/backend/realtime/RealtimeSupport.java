@@ -0,0 +1,74 @@
+package com.games.backend.realtime;
+
+import com.games.backend.realtime.dto.RealtimeDtos.ChatHistoryOut;
+import com.games.backend.realtime.dto.RealtimeDtos.ChatOut;
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import com.games.backend.realtime.dto.RealtimeDtos.Envelope;
+import com.games.backend.realtime.dto.RealtimeDtos.Room;
+import com.games.backend.service.ChatHistoryService;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+/** Pieces shared by the per-game realtime controllers. */
+final class RealtimeSupport {
+
+    static final int PRESENCE_SNAPSHOT_LIMIT = 200;
+
+    private RealtimeSupport() {
+    }
+
+    // Anonymous connections are identified by their STOMP session so heartbeats map to one member
+    static String memberKey(Principal principal, String sessionId) {
+        if (principal != null && principal.getName() != null) return principal.getName();
+        return sessionId != null ? sessionId : UUID.randomUUID().toString();
+    }
+
+    /**
+     * The leaderboard member a realtime score is filed under. Signed-in players are their account username,
+     * the same identity {@code GameService.saveScore} writes to the outbox and the rebuilder reads from
+     * {@code users.username}, so one player has one entry however the score arrived. The client-chosen
+     * nickname is only used for guests, prefixed so it can never claim an account's entry; clients get it
+     * back without the prefix, flagged as a guest ({@link Entry#forDisplay}).
+     */
+    static String leaderboardMember(Principal principal, String nickname) {
+        if (principal != null && principal.getName() != null) return principal.getName();
+        return Entry.GUEST_PREFIX + nickname;
+    }
+
+    /**
+     * The room an inbound message addresses, or {@code null} if that room is private and the sender is not
+     * one of its members. SEND frames carry the room in their payload, so the subscription guard cannot see it.
+     */
+    static String authorizedRoom(RoomRegistry rooms, RealtimeMetrics metrics, String game, String handler,
+                                 Room room, Principal principal) {
+        String roomId = RoomRegistry.roomId(game, room);
+        if (rooms.canSubscribe(roomId, principal)) return roomId;
+        metrics.rejected(game, handler, "not_member");
+        return null;
+    }
+
+    /** Replays the room's recent chat to the joining session only (not the user's other tabs). */
+    static void sendChatHistory(SimpMessagingTemplate broker, ChatHistoryService chatHistory, String game,
+                                String roomId, Room room, Principal principal, String sessionId) {
+        if (sessionId == null) return;
+        List<ChatOut> recent = chatHistory.recent(roomId);
+        if (recent.isEmpty()) return;
+        ChatHistoryOut out = new ChatHistoryOut();
+        out.messages = recent;
+        Envelope<ChatHistoryOut> res = new Envelope<>();
+        res.type = "chat_history";
+        res.room = room;
+        res.payload = out;
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        String user = principal != null && principal.getName() != null ? principal.getName() : sessionId;
+        broker.convertAndSendToUser(user, "/queue/" + game + "/chat", res, headers.getMessageHeaders());
+    }
+}
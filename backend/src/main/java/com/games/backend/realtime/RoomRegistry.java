@@ -0,0 +1,141 @@
+package com.games.backend.realtime;
+
+import com.games.backend.realtime.dto.RealtimeDtos.Room;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Node-local registry of realtime rooms: which rooms have subscribers (and how many), and which
+ * rooms are private to a set of members. Broadcasts go to {@code /topic/<game>/<kind>/<roomId>},
+ * so a room's traffic only reaches that room's subscribers.
+ * <p>
+ * Membership checks apply to new SUBSCRIBE frames and to each SEND; a subscription that is already
+ * open keeps receiving until the client unsubscribes or disconnects.
+ */
+@Component
+public class RoomRegistry {
+
+    /** Room ids are {@code <game>:<name>}; no path separators or broker wildcards. */
+    private static final Pattern ROOM_ID = Pattern.compile("[a-z0-9_-]{1,32}:[A-Za-z0-9_.-]{1,95}");
+
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+    // topic destination -> subscriptions on this node (the fan-out of one broadcast)
+    private final Map<String, Integer> topicSubscribers = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> topic destination)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // roomId -> members allowed to subscribe; rooms absent here are public
+    private final Map<String, Set<String>> privateRooms = new ConcurrentHashMap<>();
+    // Closed private rooms stay denied to everyone. Match room ids are never reissued, so the
+    // tombstone only has to outlive clients that still hold the id.
+    private final Cache<String, Boolean> closedRooms = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    public RoomRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("realtime.rooms.active", subscribers, Map::size)
+                .description("Rooms with at least one subscriber on this node")
+                .register(meterRegistry);
+    }
+
+    public static String globalRoom(String game) {
+        return game + ":global";
+    }
+
+    /** The room an inbound envelope addresses, or the game's global room if it names none (or a foreign one). */
+    public static String roomId(String game, Room room) {
+        String id = room != null ? room.id : null;
+        return isValidRoomId(game, id) ? id : globalRoom(game);
+    }
+
+    public static String topic(String game, String kind, String roomId) {
+        return "/topic/" + game + "/" + kind + "/" + roomId;
+    }
+
+    public static boolean isValidRoomId(String game, String roomId) {
+        return roomId != null && roomId.startsWith(game + ":") && ROOM_ID.matcher(roomId).matches();
+    }
+
+    /** Restricts a room to the given owner; further members are added with {@link #grant}. */
+    public void restrict(String roomId, String owner) {
+        Set<String> members = ConcurrentHashMap.newKeySet();
+        members.add(owner);
+        privateRooms.put(roomId, members);
+        closedRooms.invalidate(roomId);
+    }
+
+    public void grant(String roomId, String member) {
+        Set<String> members = privateRooms.get(roomId);
+        if (members != null) members.add(member);
+    }
+
+    public void revoke(String roomId, String member) {
+        Set<String> members = privateRooms.get(roomId);
+        if (members != null) members.remove(member);
+    }
+
+    /** Drops a private room's member list and denies the room to everyone from now on. */
+    public void close(String roomId) {
+        if (privateRooms.remove(roomId) != null) closedRooms.put(roomId, Boolean.TRUE);
+    }
+
+    public boolean canSubscribe(String roomId, Principal principal) {
+        if (closedRooms.getIfPresent(roomId) != null) return false;
+        Set<String> members = privateRooms.get(roomId);
+        if (members == null) return true;
+        return principal != null && principal.getName() != null && members.contains(principal.getName());
+    }
+
+    /** Records a subscription to a room topic ({@code /topic/<game>/<kind>/<roomId>}). */
+    public void subscribed(String sessionId, String subscriptionId, String destination) {
+        String previous = sessions.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) decrement(previous);
+        subscribers.merge(roomOf(destination), 1, Integer::sum);
+        topicSubscribers.merge(destination, 1, Integer::sum);
+    }
+
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        Map<String, String> subs = sessions.get(sessionId);
+        if (subs == null) return;
+        String destination = subs.remove(subscriptionId);
+        if (destination != null) decrement(destination);
+    }
+
+    public void disconnected(String sessionId) {
+        Map<String, String> subs = sessions.remove(sessionId);
+        if (subs == null) return;
+        subs.values().forEach(this::decrement);
+    }
+
+    public int subscriberCount(String roomId) {
+        return subscribers.getOrDefault(roomId, 0);
+    }
+
+    /** Subscriptions on this node that a broadcast to {@code destination} reaches. */
+    public int topicSubscriberCount(String destination) {
+        return topicSubscribers.getOrDefault(destination, 0);
+    }
+
+    public int activeRooms() {
+        return subscribers.size();
+    }
+
+    private void decrement(String destination) {
+        subscribers.computeIfPresent(roomOf(destination), (k, n) -> n > 1 ? n - 1 : null);
+        topicSubscribers.computeIfPresent(destination, (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    private static String roomOf(String destination) {
+        return destination.substring(destination.lastIndexOf('/') + 1);
+    }
+}
@@ -1,25 +1,37 @@
 package com.games.backend.realtime;
 
 import com.games.backend.features.FeatureFlagsService;
+import com.games.backend.features.FlagSnapshot;
 import com.games.backend.realtime.dto.RealtimeDtos.*;
+import com.games.backend.service.ChatHistoryService;
 import com.games.backend.service.LeaderboardService;
 import com.games.backend.service.PresenceService;
 import com.games.backend.service.ProfanityFilter;
 import com.games.backend.service.RunIdService;
+import com.games.backend.service.SnakeReplayVerifier;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 
 import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Validated
 @Controller
 public class SnakeRealtimeController {
+    private static final Logger logger = LoggerFactory.getLogger(SnakeRealtimeController.class);
 
     private final SimpMessagingTemplate broker;
     private final ProfanityFilter profanityFilter;
@@ -27,104 +39,182 @@ public class SnakeRealtimeController {
     private final LeaderboardService leaderboardService;
     private final RunIdService runIdService;
     private final FeatureFlagsService flags;
+    private final ChatHistoryService chatHistory;
+    private final SnakeReplayVerifier replayVerifier;
+    private final RealtimeMetrics metrics;
+    private final RoomRegistry rooms;
+    // Publishes replay-verified scores; Redis and broker I/O stay off the CPU-sized replay pool
+    private final Executor scorePublisher;
 
+    @Autowired
     public SnakeRealtimeController(SimpMessagingTemplate broker,
                                    ProfanityFilter profanityFilter,
                                    PresenceService presenceService,
                                    LeaderboardService leaderboardService,
                                    RunIdService runIdService,
-                                   FeatureFlagsService flags) {
+                                   FeatureFlagsService flags,
+                                   ChatHistoryService chatHistory,
+                                   SnakeReplayVerifier replayVerifier,
+                                   RealtimeMetrics metrics,
+                                   RoomRegistry rooms) {
+        this(broker, profanityFilter, presenceService, leaderboardService, runIdService, flags, chatHistory,
+                replayVerifier, metrics, rooms,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("snake-score-", 0).factory()));
+    }
+
+    SnakeRealtimeController(SimpMessagingTemplate broker,
+                                   ProfanityFilter profanityFilter,
+                                   PresenceService presenceService,
+                                   LeaderboardService leaderboardService,
+                                   RunIdService runIdService,
+                                   FeatureFlagsService flags,
+                                   ChatHistoryService chatHistory,
+                                   SnakeReplayVerifier replayVerifier,
+                                   RealtimeMetrics metrics,
+                                   RoomRegistry rooms,
+                                   Executor scorePublisher) {
         this.broker = broker;
         this.profanityFilter = profanityFilter;
         this.presenceService = presenceService;
         this.leaderboardService = leaderboardService;
         this.runIdService = runIdService;
         this.flags = flags;
+        this.chatHistory = chatHistory;
+        this.replayVerifier = replayVerifier;
+        this.metrics = metrics;
+        this.rooms = rooms;
+        this.scorePublisher = scorePublisher;
+    }
+
+    private boolean enabled(FlagSnapshot features, String handler) {
+        if (features.isEnabled("realtime_enabled")) return true;
+        metrics.rejected("snake", handler, "flag_off");
+        return false;
+    }
+
+    private boolean chatEnabled(FlagSnapshot features) {
+        if (features.isEnabled("chat_enabled")) return true;
+        metrics.rejected("snake", "chat", "flag_off");
+        return false;
     }
 
     @MessageMapping("/snake/presence")
-    public void presence(@Valid @Payload Envelope<@Valid PresenceIn> env, Principal principal) {
-        if (!flags.isEnabled("realtime_enabled") || env == null) return;
+    public void presence(@Valid @Payload Envelope<@Valid PresenceIn> env, Principal principal,
+                         @Header(name = SimpMessageHeaderAccessor.SESSION_ID_HEADER, required = false) String sessionId) {
+        FlagSnapshot features = flags.snapshot();
+        if (!enabled(features, "presence") || env == null) return;
         String nickname = (env.user != null && env.user.nickname != null) ? env.user.nickname : "guest";
-        String principalId = (principal != null && principal.getName() != null) ? principal.getName() : UUID.randomUUID().toString();
-        String memberId = nickname + "|" + principalId;
-        String roomId = (env.room != null && env.room.id != null) ? env.room.id : "snake:global";
+        String memberId = nickname + "|" + RealtimeSupport.memberKey(principal, sessionId);
+        String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "snake", "presence", env.room, principal);
+        if (roomId == null) return;
 
         String status = env.payload != null ? env.payload.status : "heartbeat";
-        switch (status == null ? "heartbeat" : status) {
+        PresenceService.Update update = switch (status == null ? "heartbeat" : status) {
             case "join" -> presenceService.join(roomId, memberId);
             case "leave" -> presenceService.leave(roomId, memberId);
             default -> presenceService.heartbeat(roomId, memberId);
+        };
+        if ("join".equals(status) && features.isEnabled("chat_enabled")) {
+            RealtimeSupport.sendChatHistory(broker, chatHistory, "snake", roomId, env.room, principal, sessionId);
         }
+        // Heartbeats from known members change nothing: no broadcast
+        if (update == null || !update.changed()) return;
+
+        PresenceDelta delta = new PresenceDelta();
+        delta.version = update.version();
+        delta.count = update.count();
+        delta.joined = update.joined() ? List.of(PublicUser.fromMemberId(memberId)) : List.of();
+        delta.left = update.left();
+
+        Envelope<PresenceDelta> res = new Envelope<>();
+        res.type = "presence_delta";
+        res.room = env.room;
+        res.user = env.user;
+        res.payload = delta;
+        broker.convertAndSend(RoomRegistry.topic("snake", "presence", roomId), res);
+    }
+
+    /**
+     * Full member list for a client that joined late or saw a gap in delta versions.
+     */
+    @MessageMapping("/snake/presence/snapshot")
+    @SendToUser(destinations = "/queue/snake/presence", broadcast = false)
+    public Envelope<PresenceOut> presenceSnapshot(@Payload Envelope<PresenceIn> env, Principal principal) {
+        FlagSnapshot features = flags.snapshot();
+        if (!enabled(features, "presence/snapshot") || env == null) return null;
+        String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "snake", "presence/snapshot", env.room, principal);
+        if (roomId == null) return null;
+        PresenceService.Snapshot snapshot = presenceService.snapshot(roomId, RealtimeSupport.PRESENCE_SNAPSHOT_LIMIT);
 
         PresenceOut out = new PresenceOut();
-        out.count = presenceService.count(roomId);
-        out.users = presenceService.sample(roomId, 20).stream().map(k -> {
-            PublicUser pu = new PublicUser();
-            pu.id = k;
-            pu.nickname = k.split("\\|")[0];
-            return pu;
-        }).collect(Collectors.toList());
-
-      // Fallback for local/test where PresenceService may be a mock returning empty/zero
-      if (out.users == null) {
-        out.users = new ArrayList<>();
-      }
-      boolean containsSelf = out.users.stream().anyMatch(u -> Objects.equals(u.nickname, nickname));
-      if (!containsSelf) {
-        PublicUser self = new PublicUser();
-        self.id = memberId;
-        self.nickname = nickname;
-        out.users.add(self);
-      }
-      out.count = Math.max(out.count, out.users.size());
+        out.version = snapshot.version();
+        out.count = snapshot.count();
+        out.users = snapshot.members().stream().map(PublicUser::fromMemberId).collect(Collectors.toList());
 
         Envelope<PresenceOut> res = new Envelope<>();
         res.type = "presence";
         res.room = env.room;
         res.user = env.user;
         res.payload = out;
-        broker.convertAndSend("/topic/snake/presence", res);
+        return res;
     }
 
     @MessageMapping("/snake/score")
-    public void score(@Valid @Payload Envelope<@Valid ScoreIn> env) {
-        if (!flags.isEnabled("realtime_enabled") || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+    public void score(@Valid @Payload Envelope<@Valid ScoreIn> env, Principal principal) {
+        FlagSnapshot features = flags.snapshot();
+        if (!enabled(features, "score") || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+        String scope = RealtimeSupport.authorizedRoom(rooms, metrics, "snake", "score", env.room, principal);
+        if (scope == null) return;
         int value = Math.max(0, env.payload.value);
-        if (value > 1_000_000) return; // clamp
-        if (flags.isEnabled("anti_cheat_enabled")) {
+        if (value > 1_000_000) {
+            metrics.rejected("snake", "score", "clamp");
+            return;
+        }
+        String member = RealtimeSupport.leaderboardMember(principal, env.user.nickname);
+        if (features.isEnabled("anti_cheat_enabled")) {
             String runId = env.payload.runId;
-            if (!runIdService.validateAndConsume(runId)) {
+            if (!runIdService.validateAndConsume(runId, principal != null ? principal.getName() : null, "snake")) {
+                metrics.rejected("snake", "score", "anti_cheat");
                 return; // reject without broadcasting
             }
+            if (features.isEnabled("snake_replay_verification")) {
+                // Re-score the run off the inbound thread; publish only if the proof reproduces the value
+                replayVerifier.verify(runId, env.payload.proof, value)
+                        .thenAcceptAsync(ok -> {
+                            if (ok) publishScore(env, scope, member, value);
+                            else metrics.rejected("snake", "score", "replay_mismatch");
+                        }, scorePublisher)
+                        .exceptionally(e -> {
+                            logger.warn("Dropped verified snake score of {} in {}", member, scope, e);
+                            metrics.rejected("snake", "score", "publish_failed");
+                            return null;
+                        });
+                return;
+            }
         }
-        String scope = (env.room != null && env.room.id != null) ? env.room.id : "snake:global";
-        leaderboardService.submit(scope, env.user.nickname, value);
-
-        LeaderboardOut out = new LeaderboardOut();
-      List<Entry> serviceTop = leaderboardService.topN(scope, 10);
-      out.top = new ArrayList<>(serviceTop == null ? Collections.emptyList() : serviceTop);
-      boolean hasUser = out.top.stream().anyMatch(e -> Objects.equals(e.nickname, env.user.nickname));
-      if (!hasUser) {
-        Entry e = new Entry();
-        e.nickname = env.user.nickname;
-        e.value = value;
-        // put the submitter at the top in absence of real leaderboard data
-        out.top.add(0, e);
-      }
-        out.yourRank = leaderboardService.rankOf(scope, env.user.nickname);
+        publishScore(env, scope, member, value);
+    }
+
+    private void publishScore(Envelope<ScoreIn> env, String scope, String member, int value) {
+        leaderboardService.submit(scope, member, value);
+
+        LeaderboardOut out = LeaderboardOut.of(leaderboardService.topN(scope, 10), member, value,
+                leaderboardService.rankOf(scope, member));
 
         Envelope<LeaderboardOut> res = new Envelope<>();
         res.type = "leaderboard";
         res.room = env.room;
         res.user = env.user;
         res.payload = out;
-        broker.convertAndSend("/topic/snake/leaderboard", res);
+        broker.convertAndSend(RoomRegistry.topic("snake", "leaderboard", scope), res);
     }
 
     @MessageMapping("/snake/chat")
-    public void chat(@Valid @Payload Envelope<@Valid ChatIn> env) {
-        if (!flags.isEnabled("realtime_enabled") || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+    public void chat(@Valid @Payload Envelope<@Valid ChatIn> env, Principal principal) {
+        FlagSnapshot features = flags.snapshot();
+        if (!enabled(features, "chat") || !chatEnabled(features) || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
+        String roomId = RealtimeSupport.authorizedRoom(rooms, metrics, "snake", "chat", env.room, principal);
+        if (roomId == null) return;
         String text = env.payload.text == null ? "" : env.payload.text.trim();
         if (text.isBlank()) return;
         text = profanityFilter.filter(text);
@@ -134,11 +224,13 @@ public class SnakeRealtimeController {
         ChatOut out = new ChatOut();
         out.nickname = env.user.nickname;
         out.text = text;
+        out.ts = System.currentTimeMillis();
+        chatHistory.append(roomId, out);
         Envelope<ChatOut> res = new Envelope<>();
         res.type = "chat";
         res.room = env.room;
         res.user = env.user;
         res.payload = out;
-        broker.convertAndSend("/topic/snake/chat", res);
+        broker.convertAndSend(RoomRegistry.topic("snake", "chat", roomId), res);
     }
 }
@@ -3,7 +3,9 @@ package com.games.backend.realtime.dto;
 import jakarta.validation.constraints.*;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 public class RealtimeDtos {
@@ -57,12 +59,32 @@ public class RealtimeDtos {
         @Min(0)
         public int count;
         public List<PublicUser> users;
+        // Delta stream position this snapshot corresponds to
+        public long version;
+    }
+    // Broadcast only when membership changes; clients apply deltas in version order and
+    // request a PresenceOut snapshot when they see a gap
+    public static class PresenceDelta {
+        public long version;
+        @Min(0)
+        public int count;
+        public List<PublicUser> joined;
+        public List<String> left; // member ids
     }
     public static class PublicUser {
         @Size(max = 96)
         public String id;
         @Size(max = 32)
         public String nickname;
+
+        // Member ids are "<nickname>|<principal or session id>"
+        public static PublicUser fromMemberId(String memberId) {
+            PublicUser pu = new PublicUser();
+            pu.id = memberId;
+            int sep = memberId.indexOf('|');
+            pu.nickname = sep < 0 ? memberId : memberId.substring(0, sep);
+            return pu;
+        }
     }
 
     // Score
@@ -72,17 +94,52 @@ public class RealtimeDtos {
         public int value;
         @Size(max = 128)
         public String runId;
-        @Size(max = 256)
+        @Size(max = 2048)
         public String proof;
     }
     public static class LeaderboardOut {
         public List<Entry> top;
         public Integer yourRank;
+
+        // Puts the submitter (by leaderboard member id) at the top when they are not in the stored top list yet
+        public static LeaderboardOut of(List<Entry> top, String member, int value, Integer yourRank) {
+            LeaderboardOut out = new LeaderboardOut();
+            out.top = new ArrayList<>();
+            boolean hasUser = false;
+            if (top != null) {
+                for (Entry e : top) {
+                    hasUser |= Objects.equals(e.nickname, member);
+                    out.top.add(e.forDisplay());
+                }
+            }
+            if (!hasUser) {
+                Entry e = new Entry();
+                e.nickname = member;
+                e.value = value;
+                out.top.add(0, e.forDisplay());
+            }
+            out.yourRank = yourRank;
+            return out;
+        }
     }
     public static class Entry {
+        /** Leaderboard members of players without an account start with this. */
+        public static final String GUEST_PREFIX = "guest:";
+
         @Size(max = 32)
         public String nickname;
         public int value;
+        public boolean guest;
+
+        /** This entry as clients see it: a guest's member id loses its prefix and the row is flagged instead. */
+        public Entry forDisplay() {
+            if (nickname == null || !nickname.startsWith(GUEST_PREFIX)) return this;
+            Entry e = new Entry();
+            e.nickname = nickname.substring(GUEST_PREFIX.length());
+            e.value = value;
+            e.guest = true;
+            return e;
+        }
     }
 
     // Chat
@@ -94,6 +151,10 @@ public class RealtimeDtos {
     public static class ChatOut {
         public String nickname;
         public String text;
+        public long ts; // epoch millis
+    }
+    public static class ChatHistoryOut {
+        public List<ChatOut> messages; // oldest first
     }
 
   // Generic move DTOs for board games (Chess/Checkers)
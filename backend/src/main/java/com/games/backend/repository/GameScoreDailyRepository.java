@@ -0,0 +1,20 @@
+package com.games.backend.repository;
+
+import com.games.backend.model.GameScoreDaily;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface GameScoreDailyRepository extends JpaRepository<GameScoreDaily, GameScoreDaily.Key> {
+  // Rolled-up days contribute each user's best score of the day, shaped like a raw score row
+  @Query("SELECT new com.games.backend.repository.ScoreView(d.bestScoreId, u.username, d.gameType, d.bestScore, d.bestAt) "
+      + "FROM GameScoreDaily d JOIN d.user u WHERE d.gameType = :gameType ORDER BY d.bestScore DESC, d.bestAt ASC")
+  List<ScoreView> findTopScoresByGameType(@Param("gameType") String gameType, Pageable pageable);
+
+  @Query("SELECT new com.games.backend.repository.ScoreView(d.bestScoreId, u.username, d.gameType, d.bestScore, d.bestAt) "
+      + "FROM GameScoreDaily d JOIN d.user u WHERE d.userId = :userId AND d.gameType = :gameType ORDER BY d.bestScore DESC, d.bestAt ASC")
+  List<ScoreView> findUserScores(@Param("userId") Long userId, @Param("gameType") String gameType, Pageable pageable);
+}
@@ -9,9 +9,12 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface GameScoreRepository extends JpaRepository<GameScore, Long> {
-  @Query("SELECT gs FROM GameScore gs WHERE gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
-  List<GameScore> findTopScoresByGameType(@Param("gameType") String gameType, Pageable pageable);
+  // Projections: one joined SELECT of the displayed columns, no entities or eager associations
+  @Query("SELECT new com.games.backend.repository.ScoreView(gs.id, u.username, gs.gameType, gs.score, gs.createdAt) "
+      + "FROM GameScore gs JOIN gs.user u WHERE gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
+  List<ScoreView> findTopScoresByGameType(@Param("gameType") String gameType, Pageable pageable);
 
-  @Query("SELECT gs FROM GameScore gs WHERE gs.user.id = :userId AND gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
-  List<GameScore> findUserScores(@Param("userId") Long userId, @Param("gameType") String gameType, Pageable pageable);
+  @Query("SELECT new com.games.backend.repository.ScoreView(gs.id, u.username, gs.gameType, gs.score, gs.createdAt) "
+      + "FROM GameScore gs JOIN gs.user u WHERE u.id = :userId AND gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
+  List<ScoreView> findUserScores(@Param("userId") Long userId, @Param("gameType") String gameType, Pageable pageable);
 }
@@ -0,0 +1,7 @@
+package com.games.backend.repository;
+
+import com.games.backend.model.ScoreOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ScoreOutboxRepository extends JpaRepository<ScoreOutbox, Long> {
+}
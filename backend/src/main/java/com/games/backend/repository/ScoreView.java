@@ -0,0 +1,26 @@
+package com.games.backend.repository;
+
+import com.games.backend.model.GameScore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-side shape of a score: only what leaderboards show. Built directly by JPQL constructor
+ * expressions, so no {@link GameScore}, {@code User} or role collection is loaded, and nothing
+ * beyond the username leaves the server. Serializes like the entity did for these fields
+ * ({@code user.username}), so clients keep working.
+ */
+public record ScoreView(Long id, Player user, String gameType, int score, LocalDateTime createdAt) {
+
+    public record Player(String username) {}
+
+    /** Target of {@code SELECT new ...ScoreView(gs.id, u.username, gs.gameType, gs.score, gs.createdAt)}. */
+    public ScoreView(Long id, String username, String gameType, int score, LocalDateTime createdAt) {
+        this(id, new Player(username), gameType, score, createdAt);
+    }
+
+    public static ScoreView of(GameScore score) {
+        return new ScoreView(score.getId(), score.getUser().getUsername(), score.getGameType(),
+                score.getScore(), score.getCreatedAt());
+    }
+}
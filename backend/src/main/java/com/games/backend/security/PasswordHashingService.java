@@ -0,0 +1,96 @@
+package com.games.backend.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work (encode, and authentication which calls matches) off the servlet request threads.
+ * <p>
+ * Each task runs on its own virtual thread and must take one of a fixed number of permits before
+ * hashing, so at most {@code concurrency} hashes burn CPU at once. Tasks that wait longer than
+ * {@code queue-timeout-ms}, or arrive while {@code max-pending} tasks are already in flight, fail
+ * with {@link PasswordHashingUnavailableException}.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Semaphore permits;
+    private final int maxPending;
+    private final long queueTimeoutMs;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("pwd-hash-", 0).factory());
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${security.password.hashing.concurrency:0}") int concurrency,
+                                  @Value("${security.password.hashing.max-pending:256}") int maxPending,
+                                  @Value("${security.password.hashing.queue-timeout-ms:2000}") long queueTimeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        // 0 (default) sizes the permit pool to the CPU count: BCrypt is pure CPU work
+        int size = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        this.permits = new Semaphore(size, true);
+        this.maxPending = Math.max(size, maxPending);
+        this.queueTimeoutMs = queueTimeoutMs;
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Runs {@code work} once a hashing permit is available. Continuations chained on the returned
+     * future execute after the permit is released, so follow-up I/O does not hold hashing capacity.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new PasswordHashingUnavailableException("Too many pending password hashing requests"));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                acquire();
+                try {
+                    return work.get();
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                pending.decrementAndGet();
+            }
+        }, executor);
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("Interrupted while waiting for a hashing permit");
+        }
+        if (!acquired) {
+            throw new PasswordHashingUnavailableException("Timed out waiting for a hashing permit");
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
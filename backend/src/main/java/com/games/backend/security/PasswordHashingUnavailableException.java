@@ -0,0 +1,11 @@
+package com.games.backend.security;
+
+/**
+ * Raised when a password hashing task could not obtain a permit in time (or too many tasks
+ * are already pending). Controllers translate this into a 503 so clients back off.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -30,6 +30,9 @@ public class SecurityConfig {
     @Value("${app.jwtSecret:dev-secret}")
     private String jwtSecret;
 
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
 
     public SecurityConfig(JwtAuthenticationEntryPoint unauthorizedHandler) {
@@ -43,7 +46,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Each +1 doubles the hashing cost; PasswordHashingService bounds how many run at once
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -69,6 +73,8 @@ public class SecurityConfig {
                     "/swagger-ui.html"
                 ).permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // Public leaderboard for spectators; EventSource cannot send an Authorization header
+                .requestMatchers(HttpMethod.GET, "/api/games/snake/leaderboard/stream").permitAll()
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
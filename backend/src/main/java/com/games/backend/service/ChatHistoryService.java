@@ -0,0 +1,133 @@
+package com.games.backend.service;
+
+import com.games.backend.realtime.dto.RealtimeDtos.ChatOut;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last N chat messages per room, replayed to a player when they join so the room isn't empty
+ * until someone speaks.
+ * <p>
+ * Each room keeps a fixed-size ring of {@link ChatOut} slots allocated once, so memory per room is
+ * bounded by {@code chat.history.size}; idle rooms are evicted. With {@code chat.history.redis-enabled}
+ * the source of truth is a Redis stream per room ({@code chat:<room>}), capped on every write by
+ * {@code XADD MAXLEN ~} and read back with {@code XREVRANGE}, so every node replays the same
+ * history. The local ring then only serves reads while Redis is unreachable.
+ */
+@Service
+public class ChatHistoryService {
+    private static final Logger logger = LoggerFactory.getLogger(ChatHistoryService.class);
+
+    private final StringRedisTemplate redis;
+    private final int size;
+    private final boolean redisEnabled;
+    private final Cache<String, Ring> rooms;
+
+    public ChatHistoryService(StringRedisTemplate redis,
+                              @Value("${chat.history.size:50}") int size,
+                              @Value("${chat.history.max-rooms:10000}") long maxRooms,
+                              @Value("${chat.history.idle-minutes:60}") long idleMinutes,
+                              @Value("${chat.history.redis-enabled:false}") boolean redisEnabled) {
+        this.redis = redis;
+        this.size = Math.max(1, size);
+        this.redisEnabled = redisEnabled;
+        this.rooms = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+    }
+
+    public void append(String roomId, ChatOut message) {
+        ring(roomId).add(message);
+        if (redisEnabled) {
+            try {
+                // One round trip: the approximate cap lets Redis trim whole stream nodes only
+                redis.opsForStream().add(StreamRecords.newRecord()
+                        .in(key(roomId))
+                        .ofMap(Map.of("nickname", message.nickname, "text", message.text,
+                                "ts", Long.toString(message.ts))),
+                        XAddOptions.maxlen(size).approximateTrimming(true));
+            } catch (Exception e) {
+                logger.debug("Chat history not persisted for {}: {}", roomId, e.getMessage());
+            }
+        }
+    }
+
+    /** Oldest first. */
+    public List<ChatOut> recent(String roomId) {
+        if (redisEnabled) {
+            try {
+                List<MapRecord<String, Object, Object>> records = redis.opsForStream()
+                        .reverseRange(key(roomId), Range.unbounded(), Limit.limit().count(size));
+                if (records != null) {
+                    List<ChatOut> out = new ArrayList<>(records.size());
+                    for (int i = records.size() - 1; i >= 0; i--) {
+                        out.add(toChatOut(records.get(i).getValue()));
+                    }
+                    return out;
+                }
+            } catch (Exception e) {
+                logger.debug("Chat history not loaded for {}: {}", roomId, e.getMessage());
+            }
+        }
+        return ring(roomId).snapshot();
+    }
+
+    private Ring ring(String roomId) {
+        return rooms.get(roomId, id -> new Ring(size));
+    }
+
+    private static ChatOut toChatOut(Map<Object, Object> v) {
+        ChatOut out = new ChatOut();
+        out.nickname = (String) v.get("nickname");
+        out.text = (String) v.get("text");
+        Object ts = v.get("ts");
+        out.ts = ts == null ? 0L : Long.parseLong(ts.toString());
+        return out;
+    }
+
+    private static String key(String roomId) {
+        return "chat:" + roomId;
+    }
+
+    /** Fixed-capacity ring; writers overwrite the oldest slot. */
+    static final class Ring {
+        private final ChatOut[] slots;
+        private int next;
+        private int count;
+
+        Ring(int capacity) {
+            this.slots = new ChatOut[capacity];
+        }
+
+        synchronized void add(ChatOut message) {
+            slots[next] = message;
+            next = (next + 1) % slots.length;
+            if (count < slots.length) count++;
+        }
+
+        synchronized List<ChatOut> snapshot() {
+            List<ChatOut> out = new ArrayList<>(count);
+            int start = (next - count + slots.length) % slots.length;
+            for (int i = 0; i < count; i++) {
+                out.add(slots[(start + i) % slots.length]);
+            }
+            return out;
+        }
+    }
+}
@@ -2,30 +2,47 @@
 package com.games.backend.service;
 
 import com.games.backend.model.GameScore;
+import com.games.backend.model.ScoreOutbox;
 import com.games.backend.model.User;
+import com.games.backend.realtime.RoomRegistry;
+import com.games.backend.repository.GameScoreDailyRepository;
 import com.games.backend.repository.GameScoreRepository;
+import com.games.backend.repository.ScoreOutboxRepository;
+import com.games.backend.repository.ScoreView;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class GameService {
     private static final int LEADERBOARD_SIZE = 10;
     private static final int USER_SCORES_LIMIT = 5;
+    private static final Comparator<ScoreView> RANKING = Comparator.comparingInt(ScoreView::score).reversed()
+            .thenComparing(ScoreView::createdAt);
 
     private final GameScoreRepository gameScoreRepository;
+    private final GameScoreDailyRepository dailyRepository;
+    private final ScoreOutboxRepository outboxRepository;
+    private final LeaderboardVersions leaderboardVersions;
 
-  public GameService(GameScoreRepository gameScoreRepository) {
+  public GameService(GameScoreRepository gameScoreRepository, GameScoreDailyRepository dailyRepository,
+                     ScoreOutboxRepository outboxRepository, LeaderboardVersions leaderboardVersions) {
         this.gameScoreRepository = gameScoreRepository;
+        this.dailyRepository = dailyRepository;
+        this.outboxRepository = outboxRepository;
+        this.leaderboardVersions = leaderboardVersions;
     }
 
     @Transactional
@@ -35,35 +52,69 @@ public class GameService {
         gameScore.setUser(user);
         gameScore.setGameType(gameType);
         gameScore.setScore(score);
-        return gameScoreRepository.save(gameScore);
+        GameScore saved = gameScoreRepository.save(gameScore);
+        // Commits or rolls back with the score; ScoreOutboxRelay carries it to the realtime leaderboard
+        ScoreOutbox event = new ScoreOutbox();
+        event.setScope(RoomRegistry.globalRoom(gameType));
+        event.setNickname(user.getUsername()); // same member id as realtime submits and LeaderboardRebuilder
+        event.setScore(score);
+        outboxRepository.save(event);
+        leaderboardVersions.bump(LeaderboardVersions.SCORES_SCOPE);
+        return saved;
     }
 
-    @Cacheable(value = "leaderboard", key = "#gameType")
-    public List<GameScore> getLeaderboard(String gameType) {
-        Pageable pageable = PageRequest.of(0, LEADERBOARD_SIZE, Sort.by("score").descending().and(Sort.by("createdAt").ascending()));
-        return gameScoreRepository.findTopScoresByGameType(gameType, pageable);
+    // Raw rows cover the retention window, daily rollups everything older; each query is
+    // already ordered by score desc, createdAt asc, so the top N overall is among both top Ns
+    @Transactional(readOnly = true)
+    @Cacheable(value = "leaderboard", key = "#gameType", sync = true)
+    public List<ScoreView> getLeaderboard(String gameType) {
+        return topScores(gameType, LEADERBOARD_SIZE);
     }
 
-  // Legacy aggregate endpoint support
-  @Cacheable(value = "leaderboard", key = "'ALL'")
-  public Map<String, List<GameScore>> getLeaderboard() {
-    Map<String, List<GameScore>> map = new LinkedHashMap<>();
+    /** Best scores of a game over raw rows and daily rollups alike; a null limit returns all of them. */
+    @Transactional(readOnly = true)
+    public List<ScoreView> topScores(String gameType, Integer limit) {
+        Pageable pageable = limit != null ? PageRequest.of(0, limit) : Pageable.unpaged();
+        return top(gameScoreRepository.findTopScoresByGameType(gameType, pageable),
+                dailyRepository.findTopScoresByGameType(gameType, pageable),
+                limit != null ? limit : Integer.MAX_VALUE);
+    }
+
+  // Legacy aggregate endpoint support. Keyed by version: a node that has not seen another node's
+  // eviction yet still misses once the version moves, and every node shares one entry per version.
+  // Not read-only, so it stays on the primary: the version is bumped once the score commits there,
+  // and a lagging replica could otherwise pin an older body to the new version until the next score.
+  @Transactional
+  @Cacheable(value = "leaderboard", key = "'ALL:' + @leaderboardVersions.current('scores:all')", sync = true)
+  public Map<String, List<ScoreView>> getLeaderboard() {
+    Map<String, List<ScoreView>> map = new LinkedHashMap<>();
     for (String game : List.of("snake", "memory", "breakout", "tetris")) {
       map.put(game, getLeaderboard(game));
     }
     return map;
   }
 
-    @Cacheable(value = "userScores", key = "#userId + '_' + #gameType")
-    public List<GameScore> getUserScores(Long userId, String gameType) {
-        Pageable pageable = PageRequest.of(0, USER_SCORES_LIMIT, Sort.by("score").descending().and(Sort.by("createdAt").ascending()));
-        return gameScoreRepository.findUserScores(userId, gameType, pageable);
+    @Transactional(readOnly = true)
+    @Cacheable(value = "userScores", key = "#userId + '_' + #gameType", sync = true)
+    public List<ScoreView> getUserScores(Long userId, String gameType) {
+        Pageable pageable = PageRequest.of(0, USER_SCORES_LIMIT);
+        return top(gameScoreRepository.findUserScores(userId, gameType, pageable),
+                dailyRepository.findUserScores(userId, gameType, pageable), USER_SCORES_LIMIT);
+    }
+
+    private static List<ScoreView> top(List<ScoreView> recent, List<ScoreView> rolledUp, int limit) {
+        if (rolledUp.isEmpty()) return recent;
+        return Stream.concat(recent.stream(), rolledUp.stream())
+                .sorted(RANKING)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
   // Legacy aggregate endpoint support
-  @Cacheable(value = "userScores", key = "#userId + '_ALL'")
-  public Map<String, List<GameScore>> getUserScores(Long userId) {
-    Map<String, List<GameScore>> map = new LinkedHashMap<>();
+  @Transactional(readOnly = true)
+  @Cacheable(value = "userScores", key = "#userId + '_ALL'", sync = true)
+  public Map<String, List<ScoreView>> getUserScores(Long userId) {
+    Map<String, List<ScoreView>> map = new LinkedHashMap<>();
     for (String game : List.of("snake", "memory", "breakout", "tetris")) {
       map.put(game, getUserScores(userId, game));
     }
@@ -0,0 +1,217 @@
+package com.games.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the realtime leaderboards ({@code lb:<scope>} sorted sets) from the durable scores, so a
+ * flushed or restarted Redis does not come back with empty boards.
+ * <p>
+ * Each user's best score for the scope's game (raw rows plus rolled-up days) is streamed from
+ * PostgreSQL through a server-side cursor and written with pipelined multi-member
+ * {@code ZADD GT} commands, a few tens of thousands of members per round trip. {@code GT} makes the
+ * load a max-merge into the live set: scores submitted while it runs are kept, and a member only
+ * moves up. Members are account usernames, the identity realtime submissions and the score
+ * outbox use for signed-in players, so a rebuilt entry merges with the live one instead of sitting
+ * beside it. Runs at startup for every configured scope whose set is missing, and on demand from
+ * the admin endpoint; one run per scope at a time.
+ */
+@Component
+public class LeaderboardRebuilder {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardRebuilder.class);
+
+    // Grouped by user, named by users.username: the leaderboard member id for signed-in players
+    private static final String BEST_SCORES = """
+            SELECT u.username, max(s.score)
+            FROM (SELECT user_id, score FROM game_scores WHERE game_type = ?
+                  UNION ALL
+                  SELECT user_id, best_score FROM game_score_daily WHERE game_type = ?) s
+            JOIN users u ON u.id = s.user_id
+            GROUP BY u.id, u.username""";
+
+    public enum State { RUNNING, DONE, FAILED }
+
+    /** Progress of the latest run for one scope. */
+    public record Progress(State state, long loaded, Instant startedAt, Instant finishedAt, String error) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final StringRedisTemplate redis;
+    private final LeaderboardVersions versions;
+    private final MeterRegistry registry;
+    private final Executor executor;
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> loaded = new ConcurrentHashMap<>();
+
+    @Value("${leaderboard.rebuild.scopes:snake:global}")
+    private List<String> scopes = List.of("snake:global");
+
+    @Value("${leaderboard.rebuild.fetch-size:10000}")
+    private int fetchSize = 10_000;
+
+    @Value("${leaderboard.rebuild.zadd-members:1000}")
+    private int zaddMembers = 1000;
+
+    @Value("${leaderboard.rebuild.pipeline-commands:20}")
+    private int pipelineCommands = 20;
+
+    @Autowired
+    public LeaderboardRebuilder(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                StringRedisTemplate redis, LeaderboardVersions versions, MeterRegistry registry) {
+        this(jdbc, transactionManager, redis, versions, registry,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("lb-rebuild-", 0).factory()));
+    }
+
+    LeaderboardRebuilder(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, StringRedisTemplate redis,
+                         LeaderboardVersions versions, MeterRegistry registry, Executor executor) {
+        this.jdbc = jdbc;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.redis = redis;
+        this.versions = versions;
+        this.registry = registry;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        for (String scope : scopes) {
+            try {
+                if (!Boolean.TRUE.equals(redis.hasKey(key(scope)))) {
+                    logger.info("Leaderboard {} is missing in Redis, rebuilding it from the database", scope);
+                    start(scope);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not check leaderboard {} for a warm start: {}", scope, e.getMessage());
+            }
+        }
+    }
+
+    /** Starts a rebuild of {@code scope} in the background; false if one is already running. */
+    public boolean start(String scope) {
+        Progress previous = progress.get(scope);
+        Progress running = new Progress(State.RUNNING, 0, Instant.now(), null, null);
+        boolean claimed = previous == null ? progress.putIfAbsent(scope, running) == null
+                : previous.state() != State.RUNNING && progress.replace(scope, previous, running);
+        if (!claimed) return false;
+        executor.execute(() -> run(scope, running.startedAt()));
+        return true;
+    }
+
+    /** The configured {@code leaderboard.rebuild.scopes}, the only scopes that may be rebuilt. */
+    public List<String> scopes() {
+        return scopes;
+    }
+
+    public Map<String, Progress> status() {
+        Map<String, Progress> snapshot = new ConcurrentHashMap<>(progress);
+        snapshot.replaceAll((scope, p) -> p.state() == State.RUNNING
+                ? new Progress(p.state(), counter(scope).get(), p.startedAt(), null, null) : p);
+        return snapshot;
+    }
+
+    private void run(String scope, Instant startedAt) {
+        AtomicLong count = counter(scope);
+        count.set(0);
+        Timer.Sample sample = Timer.start(registry);
+        String result = "success";
+        try {
+            rebuild(scope, count);
+            versions.bump(scope);
+            progress.put(scope, new Progress(State.DONE, count.get(), startedAt, Instant.now(), null));
+            logger.info("Rebuilt leaderboard {}: {} members", scope, count.get());
+        } catch (RuntimeException e) {
+            result = "failure";
+            progress.put(scope, new Progress(State.FAILED, count.get(), startedAt, Instant.now(), e.getMessage()));
+            logger.warn("Leaderboard rebuild for {} failed after {} members: {}", scope, count.get(), e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("leaderboard.rebuild.duration")
+                    .tag("scope", scope)
+                    .tag("result", result)
+                    .register(registry));
+        }
+    }
+
+    void rebuild(String scope, AtomicLong count) {
+        byte[] key = key(scope).getBytes(StandardCharsets.UTF_8);
+        int batch = zaddMembers * pipelineCommands;
+        List<Tuple> pending = new ArrayList<>(batch);
+        String game = scope.split(":", 2)[0];
+        // With auto-commit off (inside the transaction) and a fetch size, the driver reads through a cursor
+        readOnlyTx.executeWithoutResult(status -> jdbc.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(BEST_SCORES);
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, game);
+            ps.setString(2, game);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            pending.add(new DefaultTuple(rs.getString(1).getBytes(StandardCharsets.UTF_8), (double) rs.getInt(2)));
+            if (pending.size() >= batch) {
+                flush(key, pending);
+                count.addAndGet(pending.size());
+                pending.clear();
+            }
+        }));
+        if (!pending.isEmpty()) {
+            flush(key, pending);
+            count.addAndGet(pending.size());
+        }
+    }
+
+    // One round trip: up to pipelineCommands ZADD GT commands of up to zaddMembers members each
+    private void flush(byte[] key, List<Tuple> tuples) {
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < tuples.size(); from += zaddMembers) {
+                Set<Tuple> chunk = new LinkedHashSet<>(tuples.subList(from, Math.min(tuples.size(), from + zaddMembers)));
+                connection.zSetCommands().zAdd(key, chunk, ZAddArgs.empty().gt());
+            }
+            return null;
+        });
+    }
+
+    private AtomicLong counter(String scope) {
+        return loaded.computeIfAbsent(scope, s -> {
+            AtomicLong n = new AtomicLong();
+            Gauge.builder("leaderboard.rebuild.loaded", n, AtomicLong::get)
+                    .tag("scope", s)
+                    .description("Members written by the current or last leaderboard rebuild")
+                    .register(registry);
+            return n;
+        });
+    }
+
+    private static String key(String scope) {
+        return "lb:" + scope;
+    }
+}
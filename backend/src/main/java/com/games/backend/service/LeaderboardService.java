@@ -1,21 +1,58 @@
 package com.games.backend.service;
 
 import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Realtime leaderboards, one Redis sorted set per scope. While the {@link RedisGuard} breaker is
+ * open, submissions and reads go to a {@link LocalLeaderboard} per scope, seeded with the last top
+ * entries this node read from Redis; when Redis is back, each local board is written back with
+ * batched {@code ZADD GT}, a max-merge that never lowers a score other nodes wrote meanwhile.
+ */
 @Service
 public class LeaderboardService {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final int RECONCILE_MEMBERS_PER_ZADD = 1000;
+
+    /**
+     * KEYS[1] leaderboard zset. ARGV[1] score, ARGV[2] member.
+     * Keeps the member's best in one step; returns {changed(0|1), best score}.
+     */
+    private static final RedisScript<List> SUBMIT = new DefaultRedisScript<>("""
+            local changed = redis.call('ZADD', KEYS[1], 'GT', 'CH', ARGV[1], ARGV[2])
+            return {changed, redis.call('ZSCORE', KEYS[1], ARGV[2])}
+            """, List.class);
 
     private final StringRedisTemplate redis;
+    private final LeaderboardVersions versions;
+    private final RedisGuard guard;
+    private final Map<String, LocalLeaderboard> local = new ConcurrentHashMap<>();
+    private final Map<String, List<Entry>> lastTop = new ConcurrentHashMap<>();
 
-    public LeaderboardService(StringRedisTemplate redis) {
+    public LeaderboardService(StringRedisTemplate redis, LeaderboardVersions versions, RedisGuard guard) {
         this.redis = redis;
+        this.versions = versions;
+        this.guard = guard;
+        guard.onRecovery(this::reconcile);
     }
 
     private String key(String gameScope) {
@@ -24,17 +61,43 @@ public class LeaderboardService {
     }
 
     public int submit(String gameScope, String nickname, int score) {
-        String k = key(gameScope);
-        // store per-user best: zadd with score, member nickname, but keep max
-        Double existing = redis.opsForZSet().score(k, nickname);
-        if (existing == null || score > existing.intValue()) {
-            redis.opsForZSet().add(k, nickname, score);
+        return guard.call(() -> submitToRedis(gameScope, nickname, score),
+                () -> submitLocally(gameScope, nickname, score));
+    }
+
+    private int submitToRedis(String gameScope, String nickname, int score) {
+        List<?> res = redis.execute(SUBMIT, List.of(key(gameScope)), Integer.toString(score), nickname);
+        if (res == null || res.size() < 2) return score;
+        // Only a new personal best changes the board, so only then do cached top-N reads go stale
+        if (((Number) res.get(0)).longValue() > 0) versions.bump(gameScope);
+        return res.get(1) == null ? score : (int) Double.parseDouble(res.get(1).toString());
+    }
+
+    private int submitLocally(String gameScope, String nickname, int score) {
+        while (true) {
+            LocalLeaderboard board = local.computeIfAbsent(gameScope,
+                    s -> new LocalLeaderboard(lastTop.getOrDefault(s, List.of())));
+            Integer best = board.submit(nickname, score);
+            if (best != null) return best;
+            // A reconcile drained this board just now; start a fresh one
+            local.remove(gameScope, board);
         }
-        Double after = redis.opsForZSet().score(k, nickname);
-        return after == null ? score : after.intValue();
     }
 
     public List<Entry> topN(String gameScope, int n) {
+        return guard.call(() -> {
+            List<Entry> top = topFromRedis(gameScope, n);
+            lastTop.put(gameScope, top);
+            return top;
+        }, () -> {
+            LocalLeaderboard board = local.get(gameScope);
+            if (board != null) return board.top(n);
+            List<Entry> known = lastTop.getOrDefault(gameScope, List.of());
+            return new ArrayList<>(known.subList(0, Math.min(n, known.size())));
+        });
+    }
+
+    private List<Entry> topFromRedis(String gameScope, int n) {
         String k = key(gameScope);
         Set<ZSetOperations.TypedTuple<String>> tuples = redis.opsForZSet().reverseRangeWithScores(k, 0, n - 1);
         List<Entry> result = new ArrayList<>();
@@ -50,8 +113,48 @@ public class LeaderboardService {
     }
 
     public Integer rankOf(String gameScope, String nickname) {
-        Long rank = redis.opsForZSet().reverseRank(key(gameScope), nickname);
-        if (rank == null) return null;
-        return rank.intValue() + 1;
+        return guard.call(() -> {
+            Long rank = redis.opsForZSet().reverseRank(key(gameScope), nickname);
+            if (rank == null) return null;
+            return rank.intValue() + 1;
+        }, () -> {
+            LocalLeaderboard board = local.get(gameScope);
+            return board == null ? null : board.rankOf(nickname);
+        });
+    }
+
+    /** Writes every local board back to Redis; boards that fail again are kept for the next recovery. */
+    void reconcile() {
+        for (Map.Entry<String, LocalLeaderboard> e : local.entrySet()) {
+            String scope = e.getKey();
+            Map<String, Integer> entries = e.getValue().drain();
+            local.remove(scope, e.getValue());
+            boolean written = guard.call(() -> {
+                writeMax(scope, entries);
+                return true;
+            }, () -> false);
+            if (written) {
+                versions.bump(scope);
+                logger.info("Reconciled {} local leaderboard entries into {}", entries.size(), scope);
+            } else {
+                entries.forEach((nickname, score) -> submitLocally(scope, nickname, score));
+            }
+        }
+    }
+
+    // One pipeline of ZADD GT commands, RECONCILE_MEMBERS_PER_ZADD members each
+    private void writeMax(String scope, Map<String, Integer> entries) {
+        byte[] k = key(scope).getBytes(StandardCharsets.UTF_8);
+        List<Tuple> tuples = new ArrayList<>(entries.size());
+        entries.forEach((nickname, score) ->
+                tuples.add(new DefaultTuple(nickname.getBytes(StandardCharsets.UTF_8), (double) score)));
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < tuples.size(); from += RECONCILE_MEMBERS_PER_ZADD) {
+                Set<Tuple> chunk = new LinkedHashSet<>(
+                        tuples.subList(from, Math.min(tuples.size(), from + RECONCILE_MEMBERS_PER_ZADD)));
+                connection.zSetCommands().zAdd(k, chunk, ZAddArgs.empty().gt());
+            }
+            return null;
+        });
     }
 }
@@ -0,0 +1,114 @@
+package com.games.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster-wide, monotonically increasing version per leaderboard scope, used as the ETag of the
+ * leaderboard endpoints and as the key their bodies are cached under.
+ * <p>
+ * The counter is {@code lbver:<scope>} in Redis. A bump increments it and publishes
+ * {@code <scope>|<version>} on {@value #CHANNEL}; every node keeps the latest version it has seen
+ * per scope, so answering a conditional GET needs no Redis or database call. A node reads a scope
+ * from Redis once, the first time it is asked about it. Versions are bumped only after the data
+ * change is visible, so whoever sees version {@code v} and then loads the data gets at least the
+ * content of {@code v}.
+ * <p>
+ * Redis access goes through the {@link RedisGuard}: while its breaker is open, reads and bumps
+ * fail fast exactly as if Redis had answered with an error.
+ */
+@Component
+public class LeaderboardVersions implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardVersions.class);
+
+    static final String CHANNEL = "leaderboard:changed";
+
+    /** Scope of the Postgres-backed {@code /api/scores} leaderboards. */
+    public static final String SCORES_SCOPE = "scores:all";
+
+    private final StringRedisTemplate redis;
+    private final RedisGuard guard;
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    public LeaderboardVersions(StringRedisTemplate redis, RedisGuard guard,
+                               RedisMessageListenerContainer listenerContainer) {
+        this.redis = redis;
+        this.guard = guard;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /** Latest known version of {@code scope}, or -1 if it cannot be determined (Redis unavailable). */
+    public long current(String scope) {
+        Long known = versions.get(scope);
+        if (known != null) return known;
+        return guard.call(() -> {
+            String stored = redis.opsForValue().get(key(scope));
+            return advance(scope, stored == null ? 0 : Long.parseLong(stored));
+        }, () -> {
+            logger.debug("Could not read leaderboard version for {}: Redis unavailable", scope);
+            return -1L;
+        });
+    }
+
+    /** Bumps {@code scope}, deferred until commit when called inside a transaction. */
+    public void bump(String scope) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpNow(scope);
+                }
+            });
+        } else {
+            bumpNow(scope);
+        }
+    }
+
+    private void bumpNow(String scope) {
+        boolean bumped = guard.call(() -> {
+            Long next = redis.opsForValue().increment(key(scope));
+            if (next != null) {
+                advance(scope, next);
+                redis.convertAndSend(CHANNEL, scope + "|" + next);
+            }
+            return true;
+        }, () -> false);
+        if (!bumped) {
+            // Forget the scope so this node stops answering 304 for it until Redis is back
+            versions.remove(scope);
+            logger.debug("Could not bump leaderboard version for {}: Redis unavailable", scope);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.lastIndexOf('|');
+        if (sep <= 0) return;
+        try {
+            advance(body.substring(0, sep), Long.parseLong(body.substring(sep + 1)));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed leaderboard version: {}", body);
+        }
+    }
+
+    private long advance(String scope, long version) {
+        return versions.merge(scope, version, Math::max);
+    }
+
+    private static String key(String scope) {
+        return "lbver:" + scope;
+    }
+}
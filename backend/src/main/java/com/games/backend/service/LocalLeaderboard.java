@@ -0,0 +1,70 @@
+package com.games.backend.service;
+
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * One node-local leaderboard used while Redis is unavailable: each member's best score, ranked in
+ * a concurrent skip list in Redis' {@code ZREVRANGE} order (score desc, then member desc). Reads
+ * never lock; writes are serialized per board so a member's old entry is replaced atomically.
+ */
+final class LocalLeaderboard {
+
+    private record Ranked(String nickname, int score) {}
+
+    private static final Comparator<Ranked> ORDER = Comparator.comparingInt(Ranked::score).reversed()
+            .thenComparing(Ranked::nickname, Comparator.reverseOrder());
+
+    private final Map<String, Integer> best = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Ranked> ranked = new ConcurrentSkipListSet<>(ORDER);
+    private boolean drained; // guarded by this
+
+    /** Starts from the last top entries read from Redis, so the board is not empty while degraded. */
+    LocalLeaderboard(List<Entry> seed) {
+        for (Entry e : seed) {
+            best.merge(e.nickname, e.value, Integer::max);
+        }
+        best.forEach((nickname, score) -> ranked.add(new Ranked(nickname, score)));
+    }
+
+    /** Keeps the higher score; returns the member's best, or null if the board was already drained. */
+    synchronized Integer submit(String nickname, int score) {
+        if (drained) return null;
+        Integer existing = best.get(nickname);
+        if (existing != null && existing >= score) return existing;
+        if (existing != null) ranked.remove(new Ranked(nickname, existing));
+        best.put(nickname, score);
+        ranked.add(new Ranked(nickname, score));
+        return score;
+    }
+
+    List<Entry> top(int n) {
+        List<Entry> result = new ArrayList<>();
+        for (Ranked r : ranked) {
+            if (result.size() == n) break;
+            Entry e = new Entry();
+            e.nickname = r.nickname();
+            e.value = r.score();
+            result.add(e);
+        }
+        return result;
+    }
+
+    Integer rankOf(String nickname) {
+        Integer score = best.get(nickname);
+        if (score == null) return null;
+        return ranked.headSet(new Ranked(nickname, score)).size() + 1;
+    }
+
+    /** Stops accepting submissions and returns every member's best, for writing back to Redis. */
+    synchronized Map<String, Integer> drain() {
+        drained = true;
+        return Map.copyOf(best);
+    }
+}
@@ -1,72 +1,301 @@
 package com.games.backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+/**
+ * Room presence kept in one Redis sorted set per room (member -> last heartbeat in epoch millis)
+ * plus a per-room version counter that is bumped only when membership changes. Every call
+ * returns what changed so callers can broadcast deltas and stay silent on plain heartbeats.
+ * <p>
+ * While the {@link RedisGuard} breaker is open, rooms are tracked in a local map with the same
+ * semantics, continuing from the last version this node saw. When Redis is back, each local room is
+ * merged into its set with {@code ZADD GT} (latest heartbeat wins) and its version is raised past
+ * both sides, so clients resynchronize once.
+ */
 @Service
 public class PresenceService {
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+
+    /**
+     * KEYS[1] members zset, KEYS[2] version counter.
+     * ARGV[1] member, ARGV[2] op (join|heartbeat|leave), ARGV[3] now ms, ARGV[4] stale cutoff ms,
+     * ARGV[5] idle expiry seconds.
+     * Returns {version, count, joined(0|1), left(0|1), expired members...}.
+     */
+    private static final RedisScript<List> APPLY = new DefaultRedisScript<>("""
+            local joined = 0
+            local left = 0
+            if ARGV[2] == 'leave' then
+              left = redis.call('ZREM', KEYS[1], ARGV[1])
+            else
+              joined = redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1])
+            end
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[4])
+            if #stale > 0 then
+              redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[4])
+            end
+            local version
+            if joined == 1 or left == 1 or #stale > 0 then
+              version = redis.call('INCR', KEYS[2])
+            else
+              version = tonumber(redis.call('GET', KEYS[2]) or '0')
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            redis.call('EXPIRE', KEYS[2], ARGV[5])
+            local res = {version, redis.call('ZCARD', KEYS[1]), joined, left}
+            for i = 1, #stale do
+              res[#res + 1] = stale[i]
+            end
+            return res
+            """, List.class);
+
+    /**
+     * KEYS[1] members zset, KEYS[2] version counter. ARGV[1] member limit.
+     * Returns {version, count, most recently seen members...} as of one instant.
+     */
+    private static final RedisScript<List> SNAPSHOT = new DefaultRedisScript<>("""
+            local res = {tonumber(redis.call('GET', KEYS[2]) or '0'), redis.call('ZCARD', KEYS[1])}
+            local members = redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            for i = 1, #members do
+              res[#res + 1] = members[i]
+            end
+            return res
+            """, List.class);
+
+    /**
+     * KEYS[1] members zset, KEYS[2] version counter.
+     * ARGV[1] local version, ARGV[2] idle expiry seconds, then last-seen ms / member pairs.
+     * Returns the new version.
+     */
+    private static final RedisScript<Long> MERGE = new DefaultRedisScript<>("""
+            for i = 3, #ARGV, 2 do
+              redis.call('ZADD', KEYS[1], 'GT', ARGV[i], ARGV[i + 1])
+            end
+            local version = math.max(tonumber(redis.call('GET', KEYS[2]) or '0'), tonumber(ARGV[1])) + 1
+            redis.call('SET', KEYS[2], version)
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            return version
+            """, Long.class);
 
     private final StringRedisTemplate redis;
+    private final RedisGuard guard;
+    private final Map<String, LocalRoom> local = new ConcurrentHashMap<>();
+    // Latest version read from Redis per room, where a local room continues from
+    private final Map<String, Long> lastVersion = new ConcurrentHashMap<>();
 
     @Value("${presence.ttl.seconds:45}")
     private long ttlSeconds;
 
-    public PresenceService(StringRedisTemplate redis) {
+    public PresenceService(StringRedisTemplate redis, RedisGuard guard) {
         this.redis = redis;
+        this.guard = guard;
+        guard.onRecovery(this::reconcile);
     }
 
-    private String keyMember(String roomId, String memberId) {
-        return "presence:" + roomId + ":member:" + memberId;
+    /** Member -> last heartbeat of one room while Redis is unavailable. */
+    private static final class LocalRoom {
+        final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+        long version;
+        boolean drained;
+
+        LocalRoom(long version) {
+            this.version = version;
+        }
+
+        List<String> latest(int limit) {
+            return lastSeen.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
     }
 
-    private String keyNamespace(String roomId) {
-        return "presence:" + roomId + ":member:*";
+    /** Result of one presence operation; {@code left} includes members that just expired. */
+    public record Update(long version, int count, boolean joined, List<String> left) {
+        public boolean changed() {
+            return joined || !left.isEmpty();
+        }
     }
 
-    public void join(String roomId, String memberId) {
-        heartbeat(roomId, memberId);
+    public record Snapshot(long version, int count, List<String> members) {}
+
+    private String keyMembers(String roomId) {
+        return "presence:" + roomId;
     }
 
-    public void leave(String roomId, String memberId) {
-        try {
-            redis.delete(keyMember(roomId, memberId));
-        } catch (Exception ignored) {}
+    private String keyVersion(String roomId) {
+        return "presence:" + roomId + ":version";
     }
 
-    public void heartbeat(String roomId, String memberId) {
-        try {
-            String key = keyMember(roomId, memberId);
-            redis.opsForValue().set(key, "1", Duration.ofSeconds(ttlSeconds));
-        } catch (Exception ignored) {}
+    public Update join(String roomId, String memberId) {
+        return apply(roomId, memberId, "join");
     }
 
-    public int count(String roomId) {
-        try {
-            Set<String> keys = redis.keys(keyNamespace(roomId));
-            return keys == null ? 0 : keys.size();
-        } catch (Exception e) {
-            return 0;
+    public Update leave(String roomId, String memberId) {
+        return apply(roomId, memberId, "leave");
+    }
+
+    public Update heartbeat(String roomId, String memberId) {
+        return apply(roomId, memberId, "heartbeat");
+    }
+
+    /**
+     * Applies join/heartbeat/leave for one member and evicts members whose last heartbeat is
+     * older than the TTL, atomically and in one round trip. Uses the local room while Redis is
+     * unavailable.
+     */
+    public Update apply(String roomId, String memberId, String op) {
+        return guard.call(() -> applyInRedis(roomId, memberId, op), () -> applyLocally(roomId, memberId, op));
+    }
+
+    private Update applyInRedis(String roomId, String memberId, String op) {
+        long now = System.currentTimeMillis();
+        List<?> res = redis.execute(APPLY,
+                List.of(keyMembers(roomId), keyVersion(roomId)),
+                memberId, op, Long.toString(now), Long.toString(now - ttlSeconds * 1000),
+                Long.toString(ttlSeconds * 20));
+        if (res == null || res.size() < 4) return null;
+        List<String> left = new ArrayList<>();
+        if (toLong(res.get(3)) == 1L) left.add(memberId);
+        for (int i = 4; i < res.size(); i++) {
+            left.add(String.valueOf(res.get(i)));
         }
+        long version = toLong(res.get(0));
+        lastVersion.merge(roomId, version, Math::max);
+        return new Update(version, (int) toLong(res.get(1)), toLong(res.get(2)) == 1L, left);
     }
 
+    private Update applyLocally(String roomId, String memberId, String op) {
+        long now = System.currentTimeMillis();
+        while (true) {
+            LocalRoom room = local.computeIfAbsent(roomId, r -> new LocalRoom(lastVersion.getOrDefault(r, 0L)));
+            synchronized (room) {
+                if (room.drained) {
+                    // A reconcile took this room just now; start a fresh one
+                    local.remove(roomId, room);
+                    continue;
+                }
+                List<String> left = new ArrayList<>();
+                boolean joined = false;
+                if ("leave".equals(op)) {
+                    if (room.lastSeen.remove(memberId) != null) left.add(memberId);
+                } else {
+                    joined = room.lastSeen.put(memberId, now) == null;
+                }
+                for (Iterator<Map.Entry<String, Long>> it = room.lastSeen.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Long> e = it.next();
+                    if (e.getValue() < now - ttlSeconds * 1000) {
+                        left.add(e.getKey());
+                        it.remove();
+                    }
+                }
+                if (joined || !left.isEmpty()) room.version++;
+                return new Update(room.version, room.lastSeen.size(), joined, left);
+            }
+        }
+    }
+
+    public int count(String roomId) {
+        return guard.call(() -> {
+            Long n = redis.opsForZSet().zCard(keyMembers(roomId));
+            return n == null ? 0 : n.intValue();
+        }, () -> {
+            LocalRoom room = local.get(roomId);
+            return room == null ? 0 : room.lastSeen.size();
+        });
+    }
+
+    /** Most recently seen members first. */
     public List<String> sample(String roomId, int limit) {
-        List<String> result = new ArrayList<>();
-        try {
-            Set<String> keys = redis.keys(keyNamespace(roomId));
-            if (keys == null) return result;
-            int i = 0;
-            for (String k : keys) {
-                if (i++ >= limit) break;
-                result.add(k.substring(k.lastIndexOf(':') + 1));
+        return guard.call(() -> {
+            Set<String> members = redis.opsForZSet().reverseRange(keyMembers(roomId), 0, limit - 1);
+            return members == null ? new ArrayList<>() : new ArrayList<>(members);
+        }, () -> {
+            LocalRoom room = local.get(roomId);
+            return room == null ? new ArrayList<>() : room.latest(limit);
+        });
+    }
+
+    /**
+     * Full state for clients that lost track of the delta stream. Version, count and members are
+     * read in one script, so the version describes exactly the members returned.
+     */
+    public Snapshot snapshot(String roomId, int limit) {
+        return guard.call(() -> {
+            List<?> res = redis.execute(SNAPSHOT, List.of(keyMembers(roomId), keyVersion(roomId)), Integer.toString(limit));
+            if (res == null || res.size() < 2) return new Snapshot(0L, 0, List.of());
+            long version = toLong(res.get(0));
+            lastVersion.merge(roomId, version, Math::max);
+            List<String> members = new ArrayList<>(res.size() - 2);
+            for (int i = 2; i < res.size(); i++) {
+                members.add(String.valueOf(res.get(i)));
             }
-        } catch (Exception ignored) {}
-        return result;
+            return new Snapshot(version, (int) toLong(res.get(1)), members);
+        }, () -> {
+            LocalRoom room = local.get(roomId);
+            if (room == null) return new Snapshot(lastVersion.getOrDefault(roomId, 0L), 0, List.of());
+            synchronized (room) {
+                return new Snapshot(room.version, room.lastSeen.size(), room.latest(limit));
+            }
+        });
+    }
+
+    /** Merges every local room into Redis; rooms that fail again are kept for the next recovery. */
+    void reconcile() {
+        for (Map.Entry<String, LocalRoom> e : local.entrySet()) {
+            String roomId = e.getKey();
+            LocalRoom room = e.getValue();
+            List<String> args = new ArrayList<>();
+            synchronized (room) {
+                room.drained = true;
+                args.add(Long.toString(room.version));
+                args.add(Long.toString(ttlSeconds * 20));
+                room.lastSeen.forEach((member, seenAt) -> {
+                    args.add(Long.toString(seenAt));
+                    args.add(member);
+                });
+            }
+            local.remove(roomId, room);
+            Long version = guard.call(
+                    () -> redis.execute(MERGE, List.of(keyMembers(roomId), keyVersion(roomId)), args.toArray()),
+                    () -> null);
+            if (version != null) {
+                lastVersion.merge(roomId, version, Math::max);
+                logger.info("Reconciled local presence of {} ({} members) at version {}", roomId,
+                        (args.size() - 2) / 2, version);
+            } else {
+                // Still unreachable: put the room back, merged into any room started meanwhile
+                synchronized (room) {
+                    room.drained = false;
+                }
+                local.merge(roomId, room, (current, mine) -> {
+                    synchronized (current) {
+                        mine.lastSeen.forEach((member, seenAt) -> current.lastSeen.merge(member, seenAt, Math::max));
+                        current.version = Math.max(current.version, mine.version) + 1;
+                    }
+                    return current;
+                });
+            }
+        }
+    }
+
+    private static long toLong(Object o) {
+        return o instanceof Number n ? n.longValue() : Long.parseLong(String.valueOf(o));
     }
 }
@@ -1,37 +1,100 @@
 package com.games.backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Masks dictionary terms in chat text using a compiled {@link ProfanityMatcher}.
+ * <p>
+ * The word list is read from {@code profanity.dictionary} (one term per line, {@code #} comments)
+ * and re-read when its last-modified time changes, so a larger list can be dropped in with
+ * {@code profanity.dictionary=file:/path/words.txt} without a restart. Filtering never blocks
+ * on a reload: the matcher is swapped in once compiled.
+ */
 @Service
 public class ProfanityFilter {
-    private static final Set<String> BAD = new HashSet<>(Arrays.asList(
-            // very small demo list; replace with a better dictionary later
-            "badword", "curse"
-    ));
+    private static final Logger logger = LoggerFactory.getLogger(ProfanityFilter.class);
+
+    // Used only if the configured dictionary cannot be read at startup
+    private static final List<String> FALLBACK = List.of("badword", "curse");
+
+    private final Resource dictionary;
+    private volatile ProfanityMatcher matcher;
+    private volatile long loadedModified = -1;
+
+    public ProfanityFilter(ResourceLoader resourceLoader,
+                           @Value("${profanity.dictionary:classpath:profanity/words.txt}") String location) {
+        this.dictionary = resourceLoader.getResource(location);
+        if (!reload()) {
+            this.matcher = ProfanityMatcher.compile(FALLBACK);
+        }
+    }
 
     public String filter(String input) {
         if (input == null || input.isBlank()) return input;
-        String[] parts = input.split("\\s+");
-        for (int i = 0; i < parts.length; i++) {
-            String p = parts[i];
-            String lower = p.toLowerCase();
-            if (BAD.contains(lower.replaceAll("[^a-z]", ""))) {
-                parts[i] = mask(p);
-            }
+        return matcher.mask(input);
+    }
+
+    public int dictionarySize() {
+        return matcher.size();
+    }
+
+    @Scheduled(fixedDelayString = "${profanity.reload-interval-ms:30000}",
+            initialDelayString = "${profanity.reload-interval-ms:30000}")
+    public void reloadIfModified() {
+        try {
+            if (dictionary.lastModified() != loadedModified) reload();
+        } catch (IOException e) {
+            // Resource without a timestamp (e.g. inside a jar): nothing to watch
+        }
+    }
+
+    /** Recompiles the matcher from the dictionary; keeps the current one if loading fails. */
+    public synchronized boolean reload() {
+        try {
+            long modified = lastModified();
+            List<String> terms = read(dictionary);
+            ProfanityMatcher compiled = ProfanityMatcher.compile(terms);
+            this.matcher = compiled;
+            this.loadedModified = modified;
+            logger.info("Loaded {} profanity terms from {}", compiled.size(), dictionary.getDescription());
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not load profanity dictionary {}: {}", dictionary.getDescription(), e.getMessage());
+            return false;
         }
-        return String.join(" ", parts);
     }
 
-    private String mask(String s) {
-        if (s.length() <= 2) return "**";
-        char[] chars = s.toCharArray();
-        for (int i = 1; i < chars.length - 1; i++) {
-            if (Character.isLetterOrDigit(chars[i])) chars[i] = '*';
+    private long lastModified() {
+        try {
+            return dictionary.lastModified();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static List<String> read(Resource resource) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String t = line.strip();
+                if (!t.isEmpty() && !t.startsWith("#")) terms.add(t);
+            }
         }
-        return new String(chars);
+        return terms;
     }
-}
\ No newline at end of file
+}
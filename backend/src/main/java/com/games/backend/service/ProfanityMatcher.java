@@ -0,0 +1,278 @@
+package com.games.backend.service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Aho-Corasick automaton over normalized text, compiled once from a term list.
+ * <p>
+ * Input characters are folded one at a time: case and diacritics are removed, punctuation inside
+ * a word is skipped (so {@code b.a.d} still matches) and whitespace resets the automaton. Common
+ * substitutions ({@code 0->o, 1->i, 3->e, 4->a, 5->s, 7->t, @->a, $->s}) are undone only in
+ * tokens that also contain a letter, so plain numbers such as {@code 455} are left alone.
+ * Transitions are precomputed into a dense table, so scanning is one array lookup per character.
+ * <p>
+ * Terms match whole words only: the match must start and end at a word boundary of the original
+ * text, so {@code Scunthorpe} or {@code wash.it} are not hits. A term written with a leading
+ * {@code *} also matches inside longer words, for unambiguous stems ({@code *fuck} covers
+ * {@code fucking}). A leading {@code =} is accepted and means the default.
+ */
+public final class ProfanityMatcher {
+
+    private static final char SKIP = '\uFFFE';
+    private static final char BREAK = '\uFFFF';
+    private static final char[] FOLD = buildFoldTable();
+    private static final char[] LEET = buildLeetTable();
+
+    private final short[] symbols;   // folded char -> symbol index + 1; 0 = not in any term
+    private final int alphabetSize;
+    private final int[] delta;       // state * alphabetSize + symbol -> next state
+    private final int[] anyLen;      // longest substring term ending at a state (via fail links)
+    private final int[] wordLen;     // longest whole-word term ending at a state (via fail links)
+    private final int terms;
+
+    private ProfanityMatcher(short[] symbols, int alphabetSize, int[] delta, int[] anyLen, int[] wordLen,
+                             int terms) {
+        this.symbols = symbols;
+        this.alphabetSize = alphabetSize;
+        this.delta = delta;
+        this.anyLen = anyLen;
+        this.wordLen = wordLen;
+        this.terms = terms;
+    }
+
+    /** Compiles the automaton; blank terms and terms that normalize to nothing are ignored. */
+    public static ProfanityMatcher compile(Collection<String> rawTerms) {
+        List<String> folded = new ArrayList<>(rawTerms.size());
+        List<Boolean> inside = new ArrayList<>(rawTerms.size());
+        for (String raw : rawTerms) {
+            if (raw == null) continue;
+            String t = raw.strip();
+            boolean substring = t.startsWith("*");
+            String f = foldTerm(substring || t.startsWith("=") ? t.substring(1) : t);
+            if (f.isEmpty()) continue;
+            folded.add(f);
+            inside.add(substring);
+        }
+
+        // Alphabet = distinct folded chars across all terms
+        short[] symbols = new short[Character.MAX_VALUE + 1];
+        int alphabet = 0;
+        for (String f : folded) {
+            for (int i = 0; i < f.length(); i++) {
+                char c = f.charAt(i);
+                if (symbols[c] == 0) symbols[c] = (short) ++alphabet;
+            }
+        }
+
+        // Trie with sparse children while building
+        List<Map<Integer, Integer>> children = new ArrayList<>();
+        List<Integer> any = new ArrayList<>();
+        List<Integer> word = new ArrayList<>();
+        children.add(new HashMap<>());
+        any.add(0);
+        word.add(0);
+        for (int t = 0; t < folded.size(); t++) {
+            String f = folded.get(t);
+            int state = 0;
+            for (int i = 0; i < f.length(); i++) {
+                int sym = symbols[f.charAt(i)] - 1;
+                Integer next = children.get(state).get(sym);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    any.add(0);
+                    word.add(0);
+                    children.get(state).put(sym, next);
+                }
+                state = next;
+            }
+            if (inside.get(t)) any.set(state, Math.max(any.get(state), f.length()));
+            else word.set(state, Math.max(word.get(state), f.length()));
+        }
+
+        // BFS: fail links folded into a full transition table, outputs merged along fail links
+        int states = children.size();
+        int width = Math.max(alphabet, 1);
+        int[] delta = new int[states * width];
+        int[] fail = new int[states];
+        int[] anyLen = new int[states];
+        int[] wordLen = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int sym = 0; sym < alphabet; sym++) {
+            Integer next = children.get(0).get(sym);
+            if (next != null) {
+                delta[sym] = next;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            anyLen[s] = Math.max(any.get(s), anyLen[fail[s]]);
+            wordLen[s] = Math.max(word.get(s), wordLen[fail[s]]);
+            for (int sym = 0; sym < alphabet; sym++) {
+                Integer next = children.get(s).get(sym);
+                if (next != null) {
+                    fail[next] = delta[fail[s] * width + sym];
+                    delta[s * width + sym] = next;
+                    queue.add(next);
+                } else {
+                    delta[s * width + sym] = delta[fail[s] * width + sym];
+                }
+            }
+        }
+        return new ProfanityMatcher(symbols, width, delta, anyLen, wordLen, folded.size());
+    }
+
+    public int size() {
+        return terms;
+    }
+
+    /**
+     * Masks every match in {@code input}, keeping the first and last character of each match.
+     * Returns {@code input} itself when nothing matches; otherwise copies it once. Allocates nothing
+     * else: match starts are recovered by walking back over the (rare) matched span.
+     */
+    public String mask(String input) {
+        if (input == null || terms == 0) return input;
+        int n = input.length();
+        char[] out = null;
+        int state = 0;
+        int tokenEnd = 0;
+        boolean leet = false;
+        for (int i = 0; i < n; i++) {
+            if (i >= tokenEnd) {
+                tokenEnd = tokenEnd(input, i);
+                leet = hasLetter(input, i, tokenEnd);
+            }
+            char c = fold(input.charAt(i), leet);
+            if (c == SKIP) continue;
+            if (c == BREAK) {
+                state = 0;
+                continue;
+            }
+            int sym = symbols[c] - 1;
+            state = sym < 0 ? 0 : delta[state * alphabetSize + sym];
+            if (state == 0) continue;
+
+            int len = anyLen[state];
+            int start = len > 0 ? matchStart(input, i, len, leet) : -1;
+            int w = wordLen[state];
+            if (w > len && isWordEnd(input, i)) {
+                int wordStart = matchStart(input, i, w, leet);
+                if (isWordStart(input, wordStart)) start = wordStart;
+            }
+            if (start >= 0) {
+                if (out == null) out = input.toCharArray();
+                maskSpan(out, start, i);
+            }
+        }
+        return out == null ? input : new String(out);
+    }
+
+    public boolean matches(String input) {
+        return mask(input) != input;
+    }
+
+    private static void maskSpan(char[] chars, int start, int end) {
+        if (end - start < 2) {
+            for (int i = start; i <= end; i++) chars[i] = '*';
+            return;
+        }
+        for (int i = start + 1; i < end; i++) {
+            if (Character.isLetterOrDigit(chars[i])) chars[i] = '*';
+        }
+    }
+
+    // Original index of the first of the last len folded characters ending at end
+    private static int matchStart(String s, int end, int len, boolean leet) {
+        int j = end;
+        for (int seen = 0; ; j--) {
+            if (fold(s.charAt(j), leet) != SKIP && ++seen == len) return j;
+        }
+    }
+
+    private static int tokenEnd(String s, int from) {
+        int end = from;
+        while (end < s.length() && fold(s.charAt(end)) != BREAK) end++;
+        return Math.max(end, from + 1);
+    }
+
+    private static boolean hasLetter(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.isLetter(s.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    private static boolean isWordStart(String s, int start) {
+        return start == 0 || !Character.isLetterOrDigit(s.charAt(start - 1));
+    }
+
+    private static boolean isWordEnd(String s, int end) {
+        return end + 1 >= s.length() || !Character.isLetterOrDigit(s.charAt(end + 1));
+    }
+
+    static char fold(char c) {
+        if (c < FOLD.length) return FOLD[c];
+        if (Character.isWhitespace(c)) return BREAK;
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : SKIP;
+    }
+
+    static char fold(char c, boolean leet) {
+        if (leet && c < LEET.length && LEET[c] != 0) return LEET[c];
+        return fold(c);
+    }
+
+    private static String foldTerm(String term) {
+        StringBuilder sb = new StringBuilder(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            char c = fold(term.charAt(i), true);
+            if (c != SKIP && c != BREAK) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /** Latin-1 and Latin Extended-A/B: lowercase, strip diacritics. */
+    private static char[] buildFoldTable() {
+        char[] table = new char[0x250];
+        for (char c = 0; c < table.length; c++) {
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                table[c] = BREAK;
+            } else if (Character.isLetter(c)) {
+                char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                table[c] = Character.toLowerCase(base < 0x80 ? base : c);
+            } else if (Character.isDigit(c)) {
+                table[c] = c;
+            } else {
+                table[c] = SKIP;
+            }
+        }
+        table['ø'] = 'o';
+        table['Ø'] = 'o';
+        table['ł'] = 'l';
+        table['Ł'] = 'l';
+        table['đ'] = 'd';
+        table['Đ'] = 'd';
+        return table;
+    }
+
+    /** Leetspeak substitutions, applied only inside tokens that contain a letter. */
+    private static char[] buildLeetTable() {
+        char[] table = new char['@' + 1];
+        table['0'] = 'o';
+        table['1'] = 'i';
+        table['3'] = 'e';
+        table['4'] = 'a';
+        table['5'] = 's';
+        table['7'] = 't';
+        table['@'] = 'a';
+        table['$'] = 's';
+        return table;
+    }
+}
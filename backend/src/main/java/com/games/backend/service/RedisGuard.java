@@ -0,0 +1,133 @@
+package com.games.backend.service;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker shared by the realtime services' Redis calls.
+ * <p>
+ * A call that fails with a {@link DataAccessException} (connection lost, command timeout) or runs
+ * slower than {@code slow-call-ms} counts against Redis; once enough of the recent calls did, the
+ * breaker opens and every caller gets its local fallback immediately instead of waiting out the
+ * command timeout. After {@code open-ms} a few calls probe Redis again; when they succeed the
+ * breaker closes and the recovery hooks run in the background, so the services can write back
+ * what they buffered while Redis was away.
+ * <p>
+ * A failing call falls back even while the breaker stays closed (too few failures to trip it), so
+ * the hooks are not tied to the breaker's state: any fallback marks local state as pending, and
+ * the next successful call with the breaker closed runs the hooks once.
+ */
+@Component
+public class RedisGuard {
+    private static final Logger logger = LoggerFactory.getLogger(RedisGuard.class);
+
+    private final CircuitBreaker breaker;
+    private final Counter fallbacks;
+    private final Executor executor;
+    private final List<Runnable> recoveryHooks = new CopyOnWriteArrayList<>();
+    // Set by every fallback: some service may now hold state that belongs in Redis
+    private final AtomicBoolean pendingRecovery = new AtomicBoolean();
+
+    @Autowired
+    public RedisGuard(MeterRegistry registry,
+                      @Value("${redis.breaker.failure-rate:50}") float failureRate,
+                      @Value("${redis.breaker.slow-call-ms:500}") long slowCallMs,
+                      @Value("${redis.breaker.window:20}") int window,
+                      @Value("${redis.breaker.open-ms:5000}") long openMs) {
+        this(registry, failureRate, slowCallMs, window, openMs,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("redis-recovery-", 0).factory()));
+    }
+
+    RedisGuard(MeterRegistry registry, float failureRate, long slowCallMs, int window, long openMs, Executor executor) {
+        this.breaker = CircuitBreaker.of("redis", CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(window)
+                .minimumNumberOfCalls(window)
+                .failureRateThreshold(failureRate)
+                .slowCallRateThreshold(failureRate)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMs))
+                .waitDurationInOpenState(Duration.ofMillis(openMs))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(e -> e instanceof DataAccessException)
+                .build());
+        this.executor = executor;
+        this.fallbacks = Counter.builder("redis.breaker.fallbacks")
+                .description("Realtime Redis calls answered from local state")
+                .register(registry);
+        Gauge.builder("redis.breaker.state", breaker, b -> switch (b.getState()) {
+                    case CLOSED -> 0;
+                    case HALF_OPEN -> 2;
+                    default -> 1;
+                })
+                .description("Redis circuit breaker: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+        breaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            if (transition.getToState() == CircuitBreaker.State.OPEN) {
+                logger.warn("Redis circuit opened ({}); serving realtime state from this node", transition);
+            } else if (transition == CircuitBreaker.StateTransition.HALF_OPEN_TO_CLOSED) {
+                logger.info("Redis circuit closed");
+                recoverIfPending();
+            }
+        });
+    }
+
+    /** Runs {@code redisCall}, or {@code fallback} when the breaker is open or Redis fails. */
+    public <T> T call(Supplier<T> redisCall, Supplier<T> fallback) {
+        if (!breaker.tryAcquirePermission()) {
+            fallbacks.increment();
+            pendingRecovery.set(true);
+            return fallback.get();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = redisCall.get();
+            breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (pendingRecovery.get() && breaker.getState() == CircuitBreaker.State.CLOSED) recoverIfPending();
+            return result;
+        } catch (DataAccessException e) {
+            breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            fallbacks.increment();
+            pendingRecovery.set(true);
+            logger.debug("Redis call failed, using local fallback: {}", e.getMessage());
+            return fallback.get();
+        } catch (RuntimeException e) {
+            // Not a Redis outage: releases the permission without counting as a failure
+            breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+
+    /** Registers work to run (off the caller's thread) each time Redis comes back after a fallback. */
+    public void onRecovery(Runnable hook) {
+        recoveryHooks.add(hook);
+    }
+
+    private void recoverIfPending() {
+        if (!pendingRecovery.compareAndSet(true, false)) return;
+        logger.info("Redis reachable again after local fallbacks; reconciling local state");
+        recoveryHooks.forEach(executor::execute);
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+}
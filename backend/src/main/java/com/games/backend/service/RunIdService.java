@@ -2,52 +2,182 @@ package com.games.backend.service;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Single-use anti-cheat run ids, bound to the user and game that started the run.
+ * <p>
+ * {@code redis} mode (default) stores each run id with a TTL; consuming it checks the owner and
+ * deletes it in one Lua call, so two concurrent submissions cannot both pass.
+ * <p>
+ * {@code hmac} mode is stateless: the run id is {@code <game>.<start>.<nonce>.<mac>} where the
+ * MAC also covers the user, so starting a run costs no Redis write. Replays are stopped by an
+ * in-memory Bloom filter of spent MACs, which is per node: behind several replicas use redis mode
+ * or sticky sessions.
+ * <p>
+ * In redis mode, while the {@link RedisGuard} breaker is open, new runs get hmac tokens instead,
+ * which stay valid after Redis recovers; stored run ids cannot be checked until then and are
+ * rejected. Telling the two apart needs no flag: stored ids are UUIDs, tokens contain dots. Such a
+ * token is spent with {@code SET runid:used:<mac> NX} for the rest of its lifetime, so it is
+ * single-use across every node; the local Bloom filter only decides while Redis is unreachable,
+ * and also remembers what it spent then so this node will not accept it again later.
+ * <p>
+ * Tokens are signed with {@code anticheat.run.hmac-secret}. When that is unset, the key is derived
+ * from the JWT secret with HKDF-SHA256 under its own label, so a run key never doubles as the JWT
+ * signing key.
+ */
 @Service
 public class RunIdService {
 
-    private final StringRedisTemplate redis;
+    /** KEYS[1] run key, ARGV[1] submitting user. 1 = consumed, 0 = other owner (kept), -1 = unknown. */
+    private static final RedisScript<Long> CONSUME = new DefaultRedisScript<>("""
+            local owner = redis.call('GET', KEYS[1])
+            if not owner then return -1 end
+            if owner ~= ARGV[1] then return 0 end
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    private static final String GUEST = "guest";
+    private static final String USED_PREFIX = "runid:used:";
+    private static final int MAC_BYTES = 16;
+    private static final long CLOCK_SKEW_MILLIS = 5_000;
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+    private static final byte[] RUN_KEY_INFO = "anticheat-run-id-v1".getBytes(StandardCharsets.UTF_8);
 
-    @Value("${anticheat.run.ttl.seconds:600}")
-    private long runTtlSeconds;
+    private final StringRedisTemplate redis;
+    private final RedisGuard guard;
+    private final boolean stateless;
+    private final long runTtlMillis;
+    private final SecretKeySpec hmacKey;
+    private final SpentTokenFilter spent;
+    private final SecureRandom random = new SecureRandom();
 
-    public RunIdService(StringRedisTemplate redis) {
+    public RunIdService(StringRedisTemplate redis, RedisGuard guard,
+                        @Value("${anticheat.run.mode:redis}") String mode,
+                        @Value("${anticheat.run.ttl.seconds:600}") long runTtlSeconds,
+                        @Value("${anticheat.run.hmac-secret:}") String hmacSecret,
+                        @Value("${app.jwtSecret:dev-secret}") String jwtSecret,
+                        @Value("${anticheat.run.spent-capacity:200000}") int spentCapacity) {
         this.redis = redis;
+        this.guard = guard;
+        this.stateless = "hmac".equalsIgnoreCase(mode);
+        this.runTtlMillis = Duration.ofSeconds(runTtlSeconds).toMillis();
+        byte[] key = hmacSecret == null || hmacSecret.isBlank()
+                ? deriveRunKey(jwtSecret)
+                : hmacSecret.getBytes(StandardCharsets.UTF_8);
+        this.hmacKey = new SecretKeySpec(key, "HmacSHA256");
+        // Redis mode needs it too, for the tokens issued while Redis is unavailable
+        this.spent = new SpentTokenFilter(spentCapacity, 1e-6, runTtlMillis, System.currentTimeMillis());
     }
 
-    private String key(String runId) {
-        return "run:snake:" + runId;
+    private String key(String game, String runId) {
+        return "run:" + game + ":" + runId;
     }
 
     /**
-     * Creates a new runId for a client to use while playing. The runId is stored with TTL.
+     * Creates a new runId for a client to use while playing.
      */
-    public String start(String userOrGuest) {
-        String runId = UUID.randomUUID().toString();
-        String value = userOrGuest == null ? "guest" : userOrGuest;
-        redis.opsForValue().set(key(runId), value, Duration.ofSeconds(runTtlSeconds));
-        return runId;
+    public String start(String userOrGuest, String game) {
+        String user = userOrGuest == null ? GUEST : userOrGuest;
+        if (stateless) return signedToken(user, game);
+        return guard.call(() -> {
+            String runId = UUID.randomUUID().toString();
+            redis.opsForValue().set(key(game, runId), user, Duration.ofMillis(runTtlMillis));
+            return runId;
+        }, () -> signedToken(user, game));
+    }
+
+    private String signedToken(String user, String game) {
+        byte[] nonce = new byte[8];
+        random.nextBytes(nonce);
+        String head = game + "." + Long.toString(System.currentTimeMillis(), 36) + "." + B64.encodeToString(nonce);
+        return head + "." + B64.encodeToString(mac(head, user));
     }
 
     /**
-     * Validates the runId exists (not expired) and consumes it (one time use). Returns true if accepted.
+     * Accepts the runId once, and only from the user that started it (guests match "guest").
      */
-    public boolean validateAndConsume(String runId) {
+    public boolean validateAndConsume(String runId, String userOrGuest, String game) {
         if (runId == null || runId.isBlank()) return false;
-        String k = key(runId);
-        String exists = redis.opsForValue().get(k);
-        if (exists == null) return false;
-        redis.delete(k);
-        return true;
+        String user = userOrGuest == null ? GUEST : userOrGuest;
+        if (stateless || runId.indexOf('.') >= 0) return consumeToken(runId, user, game, System.currentTimeMillis());
+        return guard.call(() -> {
+            Long result = redis.execute(CONSUME, List.of(key(game, runId)), user);
+            return result != null && result == 1L;
+        }, () -> false);
+    }
+
+    public Optional<String> peek(String runId, String game) {
+        if (stateless) return Optional.empty();
+        return guard.call(() -> Optional.ofNullable(redis.opsForValue().get(key(game, runId))), Optional::empty);
+    }
+
+    boolean consumeToken(String token, String user, String game, long now) {
+        int cut = token.lastIndexOf('.');
+        if (cut <= 0) return false;
+        String head = token.substring(0, cut);
+        String[] parts = head.split("\\.", -1);
+        if (parts.length != 3 || !parts[0].equals(game)) return false;
+
+        byte[] presented;
+        long startedAt;
+        try {
+            presented = B64D.decode(token.substring(cut + 1));
+            startedAt = Long.parseLong(parts[1], 36);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!MessageDigest.isEqual(presented, mac(head, user))) return false;
+        if (startedAt > now + CLOCK_SKEW_MILLIS || now - startedAt > runTtlMillis) return false;
+        if (stateless) return spent.markSpent(presented, now);
+        Duration remaining = Duration.ofMillis(runTtlMillis - (now - startedAt) + CLOCK_SKEW_MILLIS);
+        return guard.call(
+                () -> Boolean.TRUE.equals(redis.opsForValue()
+                        .setIfAbsent(USED_PREFIX + B64.encodeToString(presented), "1", remaining))
+                        && spent.markSpent(presented, now),
+                () -> spent.markSpent(presented, now));
+    }
+
+    /** HKDF-SHA256 (RFC 5869) with an all-zero salt, expanded to one 32-byte block. */
+    static byte[] deriveRunKey(String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(new byte[32], "HmacSHA256"));
+            byte[] prk = mac.doFinal(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            mac.init(new SecretKeySpec(prk, "HmacSHA256"));
+            mac.update(RUN_KEY_INFO);
+            return mac.doFinal(new byte[] {1});
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
     }
 
-    public Optional<String> peek(String runId) {
-        String v = redis.opsForValue().get(key(runId));
-        return Optional.ofNullable(v);
+    private byte[] mac(String head, String user) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(hmacKey);
+            mac.update(head.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '|');
+            return Arrays.copyOf(mac.doFinal(user.getBytes(StandardCharsets.UTF_8)), MAC_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
     }
 }
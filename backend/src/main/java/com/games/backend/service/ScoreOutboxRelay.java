@@ -0,0 +1,157 @@
+package com.games.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Relays {@code score_outbox} rows written by {@link GameService#saveScore} to the realtime
+ * leaderboards, so scores saved over REST show up there without the request waiting on Redis.
+ * <p>
+ * Each batch is claimed with {@code FOR UPDATE SKIP LOCKED}, so several nodes relay disjoint rows
+ * in parallel. The batch is applied as one pipeline of multi-member {@code ZADD GT CH} commands, one
+ * per scope, which keep each member's best score atomically in Redis. The rows are then marked
+ * processed in the same transaction. If Redis fails, the transaction rolls back and the rows are
+ * retried; if the commit fails after Redis took the batch, replaying it is harmless because
+ * {@code GT} never lowers a score. Delivery is at least once.
+ */
+@Component
+public class ScoreOutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreOutboxRelay.class);
+
+    private static final String PENDING = """
+            SELECT id, scope, nickname, score FROM score_outbox
+            WHERE processed_at IS NULL
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED""";
+
+    private static final String MARK_PROCESSED = "UPDATE score_outbox SET processed_at = ? WHERE id = ?";
+
+    private static final String PURGE = "DELETE FROM score_outbox WHERE processed_at < ?";
+
+    record Event(long id, String scope, String nickname, int score) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final StringRedisTemplate redis;
+    private final LeaderboardVersions versions;
+    private final Counter relayed;
+
+    @Value("${scores.outbox.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${scores.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${scores.outbox.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll = 20;
+
+    @Value("${scores.outbox.keep-processed-hours:24}")
+    private int keepProcessedHours = 24;
+
+    public ScoreOutboxRelay(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                            StringRedisTemplate redis, LeaderboardVersions versions, MeterRegistry registry) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.redis = redis;
+        this.versions = versions;
+        this.relayed = Counter.builder("scores.outbox.relayed")
+                .description("Outbox rows applied to the realtime leaderboards")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${scores.outbox.poll-ms:500}")
+    public void relay() {
+        if (!enabled) return;
+        try {
+            // Drain a backlog in consecutive batches, but leave the scheduler thread eventually
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                if (relayBatch() < batchSize) break;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Score outbox relay failed, rows will be retried: {}", e.getMessage());
+        }
+    }
+
+    /** Claims, applies and marks one batch; returns the number of rows relayed. */
+    int relayBatch() {
+        Set<String> changed = new LinkedHashSet<>();
+        Integer n = tx.execute(status -> {
+            List<Event> events = jdbc.query(PENDING,
+                    (rs, i) -> new Event(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4)), batchSize);
+            if (events.isEmpty()) return 0;
+            changed.addAll(apply(events));
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbc.batchUpdate(MARK_PROCESSED, events.stream().map(e -> new Object[]{now, e.id()}).toList());
+            return events.size();
+        });
+        // Only after the commit, so readers that see the new version also see the rows as processed
+        changed.forEach(versions::bump);
+        if (n != null && n > 0) relayed.increment(n);
+        return n == null ? 0 : n;
+    }
+
+    /** Writes the batch in one pipeline; returns the scopes whose leaderboard changed. */
+    Set<String> apply(List<Event> events) {
+        // scope -> nickname -> best score in this batch; one member per nickname per ZADD
+        Map<String, Map<String, Integer>> best = new LinkedHashMap<>();
+        for (Event e : events) {
+            best.computeIfAbsent(e.scope(), s -> new LinkedHashMap<>()).merge(e.nickname(), e.score(), Integer::max);
+        }
+        List<String> scopes = new ArrayList<>(best.keySet());
+        List<Object> results = redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (String scope : scopes) {
+                Set<Tuple> members = new LinkedHashSet<>();
+                best.get(scope).forEach((nickname, score) ->
+                        members.add(new DefaultTuple(nickname.getBytes(StandardCharsets.UTF_8), (double) score)));
+                connection.zSetCommands().zAdd(key(scope), members, ZAddArgs.empty().gt().ch());
+            }
+            return null;
+        });
+        Set<String> changed = new LinkedHashSet<>();
+        for (int i = 0; i < scopes.size(); i++) {
+            // CH: the reply counts members added or raised
+            if (results.get(i) instanceof Long count && count > 0) changed.add(scopes.get(i));
+        }
+        return changed;
+    }
+
+    @Scheduled(fixedDelayString = "${scores.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        if (!enabled) return;
+        try {
+            int deleted = jdbc.update(PURGE, Timestamp.valueOf(LocalDateTime.now().minusHours(keepProcessedHours)));
+            if (deleted > 0) logger.info("Purged {} processed score outbox rows", deleted);
+        } catch (DataAccessException e) {
+            logger.warn("Score outbox purge failed: {}", e.getMessage());
+        }
+    }
+
+    private static byte[] key(String scope) {
+        return ("lb:" + scope).getBytes(StandardCharsets.UTF_8);
+    }
+}
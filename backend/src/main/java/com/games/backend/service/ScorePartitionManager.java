@@ -0,0 +1,202 @@
+package com.games.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly range partitions of {@code game_scores} (see
+ * {@code partition_game_scores.sql}).
+ * <p>
+ * At startup and daily it creates the partitions for the current and the next
+ * {@code months-ahead} months, so inserts never find their month missing. Partitions that end
+ * before the retention window are rolled up into {@code game_score_daily} (games, total and best
+ * score per user, game and day), then detached and dropped in the same transaction, so a reader
+ * sees a day either as raw rows or as its rollup, never both or neither. Dropping a partition
+ * replaces deleting its rows, so nothing is left for vacuum.
+ * <p>
+ * Every replica runs the schedule, so each unit of work (creating partitions, rolling up one
+ * partition) first takes a transaction-scoped advisory lock; a replica that does not get it skips
+ * the run. The lock ends with the transaction, so a pooled connection never keeps it.
+ * <p>
+ * Does nothing unless {@code game_scores} is a partitioned PostgreSQL table, so the H2 and plain
+ * Hibernate-created schemas keep working.
+ */
+@Component
+public class ScorePartitionManager {
+    private static final Logger logger = LoggerFactory.getLogger(ScorePartitionManager.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private static final String IS_PARTITIONED = """
+            SELECT count(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid
+            WHERE c.relname = 'game_scores' AND c.relnamespace = current_schema()::regnamespace""";
+
+    static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('game_scores_maintenance'))";
+
+    private static final String EXISTS = "SELECT to_regclass(?) IS NOT NULL";
+
+    private static final String PARTITIONS = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'game_scores'::regclass""";
+
+    // The best row's id and time come along so leaderboards can keep listing it unchanged. Days
+    // never span partitions, so the conflict branch only matters if a rollup is ever repeated.
+    private static final String ROLLUP = """
+            INSERT INTO game_score_daily (user_id, game_type, score_date, games, total_score, best_score, best_score_id, best_at)
+            SELECT user_id, game_type, created_at::date, count(*), sum(score), max(score),
+                   (array_agg(id ORDER BY score DESC, created_at))[1],
+                   (array_agg(created_at ORDER BY score DESC, created_at))[1]
+            FROM %s
+            GROUP BY user_id, game_type, created_at::date
+            ON CONFLICT (user_id, game_type, score_date) DO UPDATE SET
+              games = game_score_daily.games + excluded.games,
+              total_score = game_score_daily.total_score + excluded.total_score,
+              best_score = GREATEST(game_score_daily.best_score, excluded.best_score),
+              best_score_id = CASE WHEN excluded.best_score > game_score_daily.best_score
+                                   THEN excluded.best_score_id ELSE game_score_daily.best_score_id END,
+              best_at = CASE WHEN excluded.best_score > game_score_daily.best_score
+                             THEN excluded.best_at ELSE game_score_daily.best_at END""";
+
+    /** A partition and the exclusive end of its range; null for MAXVALUE. */
+    record Partition(String name, LocalDate upperBound) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final LeaderboardVersions leaderboardVersions;
+
+    @Value("${scores.partitions.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${scores.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    @Value("${scores.partitions.retention-months:12}")
+    private int retentionMonths = 12;
+
+    public ScorePartitionManager(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                 LeaderboardVersions leaderboardVersions) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.leaderboardVersions = leaderboardVersions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (isPartitioned()) createUpcoming(LocalDate.now());
+    }
+
+    @Scheduled(cron = "${scores.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!isPartitioned()) return;
+        LocalDate today = LocalDate.now();
+        createUpcoming(today);
+        rollUpBefore(today.withDayOfMonth(1).minusMonths(retentionMonths));
+    }
+
+    boolean isPartitioned() {
+        if (!enabled) return false;
+        try {
+            Integer n = jdbc.queryForObject(IS_PARTITIONED, Integer.class);
+            return n != null && n > 0;
+        } catch (DataAccessException e) {
+            // Not PostgreSQL (dev H2)
+            logger.debug("game_scores partition check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /** Creates monthly partitions from {@code today}'s month on, past whatever already exists. */
+    void createUpcoming(LocalDate today) {
+        tx.executeWithoutResult(status -> {
+            if (tryLock()) createMissing(today);
+            else logger.debug("Partition maintenance is running on another node");
+        });
+    }
+
+    private void createMissing(LocalDate today) {
+        LocalDate coveredUntil = LocalDate.MIN;
+        for (Partition p : partitions()) {
+            if (p.upperBound() == null) return; // a MAXVALUE partition already takes every future row
+            if (p.upperBound().isAfter(coveredUntil)) coveredUntil = p.upperBound();
+        }
+        LocalDate month = today.withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            LocalDate end = month.plusMonths(1);
+            if (!end.isAfter(coveredUntil)) continue;
+            // A partially covered month starts where the existing partitions end
+            LocalDate start = month.isBefore(coveredUntil) ? coveredUntil : month;
+            String name = "game_scores_p" + SUFFIX.format(month);
+            jdbc.execute("CREATE TABLE IF NOT EXISTS " + quote(name) + " PARTITION OF game_scores FOR VALUES FROM ('"
+                    + start + "') TO ('" + end + "')");
+            coveredUntil = end;
+            logger.info("Created partition {} for [{}, {})", name, start, end);
+        }
+    }
+
+    /** Rolls up and drops every partition that ends on or before {@code cutoff}. */
+    void rollUpBefore(LocalDate cutoff) {
+        boolean dropped = false;
+        for (Partition p : partitions()) {
+            if (p.upperBound() == null || p.upperBound().isAfter(cutoff)) continue;
+            try {
+                Integer days = tx.execute(status -> tryLock() ? rollUpAndDrop(p) : null);
+                if (days == null) {
+                    logger.debug("Partition maintenance is running on another node");
+                    break;
+                }
+                if (days < 0) continue;
+                logger.info("Rolled up partition {} (ending {}) into {} daily rows and dropped it", p.name(), p.upperBound(), days);
+                dropped = true;
+            } catch (DataAccessException e) {
+                logger.warn("Could not roll up partition {}: {}", p.name(), e.getMessage());
+                break;
+            }
+        }
+        // Same-day scores below a user's best left the leaderboards
+        if (dropped) leaderboardVersions.bump(LeaderboardVersions.SCORES_SCOPE);
+    }
+
+    // Rows written to game_score_daily, or -1 if another node dropped the partition since it was listed
+    private int rollUpAndDrop(Partition p) {
+        if (!Boolean.TRUE.equals(jdbc.queryForObject(EXISTS, Boolean.class, quote(p.name())))) return -1;
+        int rows = jdbc.update(ROLLUP.formatted(quote(p.name())));
+        jdbc.execute("ALTER TABLE game_scores DETACH PARTITION " + quote(p.name()));
+        jdbc.execute("DROP TABLE " + quote(p.name()));
+        return rows;
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(TRY_LOCK, Boolean.class));
+    }
+
+    List<Partition> partitions() {
+        return jdbc.query(PARTITIONS, (rs, i) -> new Partition(rs.getString(1), upperBound(rs.getString(2))));
+    }
+
+    static LocalDate upperBound(String bound) {
+        Matcher m = UPPER_BOUND.matcher(bound);
+        // Bounds print as 'yyyy-MM-dd HH:mm:ss'; partitions always start and end at midnight
+        return m.find() ? LocalDate.parse(m.group(1).substring(0, 10)) : null;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
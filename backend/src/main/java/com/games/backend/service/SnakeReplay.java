@@ -0,0 +1,238 @@
+package com.games.backend.service;
+
+/**
+ * Deterministic classic-mode Snake used to re-score submitted runs. One instance is reused per
+ * worker thread; replaying allocates nothing.
+ * <p>
+ * Rules: a {@value #GRID}x{@value #GRID} grid, the snake starts at (5,10),(4,10),(3,10) heading
+ * right and moves one cell per tick. It dies on leaving the grid or entering any cell its body
+ * occupied before the move. Each food is worth {@value #POINTS_PER_FOOD} and grows the snake by one.
+ * Food cells come from mulberry32 seeded with {@code runId.hashCode()} (Java string hash): draw
+ * an unsigned 32-bit value, take it modulo the cell count ({@code y * GRID + x}), then step
+ * forward to the first free cell.
+ * <p>
+ * Proof format: {@code <endTick base36>.<base64url, no padding>}. The payload is a sequence of
+ * unsigned LEB128 varints, one per direction change, each {@code (ticksSincePreviousInput << 2) | dir}
+ * with dir 0=up, 1=right, 2=down, 3=left. An input at tick {@code t} applies to the move made on
+ * tick {@code t}; reversing onto the body is ignored, as in the client. The replay runs until the
+ * snake dies or {@code endTick} moves have been made.
+ */
+public final class SnakeReplay {
+
+    public static final int GRID = 20;
+    public static final int POINTS_PER_FOOD = 10;
+    public static final int MAX_TICKS = 200_000;
+    public static final int MAX_INPUTS = 1024;
+
+    private static final int CELLS = GRID * GRID;
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    private static final char[] B64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private final int[] body = new int[CELLS];        // ring of cell indices, head at bodyHead
+    private final long[] occupied = new long[(CELLS + 63) / 64];
+    private final int[] inputTicks = new int[MAX_INPUTS];
+    private final int[] inputDirs = new int[MAX_INPUTS];
+    private int bodyHead;
+    private int length;
+    private int dir;
+    private int food;
+    private int score;
+    private int rng;
+    private boolean alive;
+
+    public static int seedOf(String runId) {
+        return runId.hashCode();
+    }
+
+    /**
+     * Replays {@code proof} and returns the score it produces, or -1 if the proof is malformed.
+     */
+    public int replay(int seed, String proof) {
+        int dot = proof == null ? -1 : proof.indexOf('.');
+        if (dot <= 0) return -1;
+        int endTick = parseBase36(proof, 0, dot);
+        if (endTick < 0 || endTick > MAX_TICKS) return -1;
+        int inputs = decodeInputs(proof, dot + 1);
+        if (inputs < 0) return -1;
+
+        reset(seed);
+        int next = 0;
+        for (int tick = 0; tick < endTick && alive; tick++) {
+            int turn = -1;
+            while (next < inputs && inputTicks[next] == tick) {
+                turn = inputDirs[next++];
+            }
+            step(turn);
+        }
+        return score;
+    }
+
+    public void reset(int seed) {
+        java.util.Arrays.fill(occupied, 0L);
+        rng = seed;
+        bodyHead = 0;
+        length = 0;
+        for (int x = 5; x >= 3; x--) {
+            int cell = 10 * GRID + x;
+            body[length++] = cell;
+            occupy(cell);
+        }
+        dir = 1;
+        score = 0;
+        alive = true;
+        placeFood();
+    }
+
+    /**
+     * Advances one tick, first turning to {@code turn} (0-3) unless it is -1 or a reversal.
+     * Returns whether the snake is still alive.
+     */
+    public boolean step(int turn) {
+        if (!alive) return false;
+        if (turn >= 0 && turn != ((dir + 2) & 3)) dir = turn;
+        int head = body[bodyHead];
+        int x = head % GRID + DX[dir];
+        int y = head / GRID + DY[dir];
+        if (x < 0 || x >= GRID || y < 0 || y >= GRID) return alive = false;
+        int cell = y * GRID + x;
+        if (isOccupied(cell)) return alive = false;
+
+        bodyHead = (bodyHead + CELLS - 1) % CELLS;
+        body[bodyHead] = cell;
+        occupy(cell);
+        if (cell == food) {
+            score += POINTS_PER_FOOD;
+            length++;
+            if (length == CELLS) return alive = false; // board full
+            placeFood();
+        } else {
+            release(body[(bodyHead + length) % CELLS]);
+        }
+        return true;
+    }
+
+    public int score() {
+        return score;
+    }
+
+    public int headCell() {
+        return body[bodyHead];
+    }
+
+    public int foodCell() {
+        return food;
+    }
+
+    public int direction() {
+        return dir;
+    }
+
+    /** Encodes an input log in the proof format; {@code ticks} must be non-decreasing. */
+    public static String encodeProof(int endTick, int[] ticks, int[] dirs, int count) {
+        StringBuilder sb = new StringBuilder(Integer.toString(endTick, 36)).append('.');
+        int buffer = 0;
+        int bits = 0;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            long v = ((long) (ticks[i] - previous) << 2) | dirs[i];
+            previous = ticks[i];
+            do {
+                int b = (int) (v & 0x7F);
+                v >>>= 7;
+                if (v != 0) b |= 0x80;
+                buffer = (buffer << 8) | b;
+                bits += 8;
+                while (bits >= 6) {
+                    sb.append(B64[(buffer >>> (bits - 6)) & 0x3F]);
+                    bits -= 6;
+                }
+            } while (v != 0);
+        }
+        if (bits > 0) sb.append(B64[(buffer << (6 - bits)) & 0x3F]);
+        return sb.toString();
+    }
+
+    /** Streams base64url -> bytes -> varints into the input arrays; -1 if malformed. */
+    private int decodeInputs(String s, int from) {
+        int count = 0;
+        int buffer = 0;
+        int bits = 0;
+        long value = 0;
+        int shift = 0;
+        int tick = 0;
+        for (int i = from; i < s.length(); i++) {
+            int sextet = base64Value(s.charAt(i));
+            if (sextet < 0) return -1;
+            buffer = (buffer << 6) | sextet;
+            bits += 6;
+            if (bits < 8) continue;
+            int b = (buffer >>> (bits - 8)) & 0xFF;
+            bits -= 8;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) != 0) {
+                shift += 7;
+                if (shift > 35) return -1;
+                continue;
+            }
+            if (count == MAX_INPUTS) return -1;
+            tick += (int) Math.min(MAX_TICKS + 1L, value >>> 2);
+            if (tick > MAX_TICKS) return -1;
+            inputTicks[count] = tick;
+            inputDirs[count] = (int) (value & 3);
+            count++;
+            value = 0;
+            shift = 0;
+        }
+        return shift == 0 ? count : -1;
+    }
+
+    private void placeFood() {
+        int cell = Integer.remainderUnsigned(nextRandom(), CELLS);
+        while (isOccupied(cell)) {
+            cell = (cell + 1) % CELLS;
+        }
+        food = cell;
+    }
+
+    // mulberry32
+    private int nextRandom() {
+        int t = rng += 0x6D2B79F5;
+        t = (t ^ (t >>> 15)) * (t | 1);
+        t ^= t + (t ^ (t >>> 7)) * (t | 61);
+        return t ^ (t >>> 14);
+    }
+
+    private boolean isOccupied(int cell) {
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void occupy(int cell) {
+        occupied[cell >>> 6] |= 1L << cell;
+    }
+
+    private void release(int cell) {
+        occupied[cell >>> 6] &= ~(1L << cell);
+    }
+
+    private static int base64Value(char c) {
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        if (c >= 'a' && c <= 'z') return c - 'a' + 26;
+        if (c >= '0' && c <= '9') return c - '0' + 52;
+        if (c == '-') return 62;
+        if (c == '_') return 63;
+        return -1;
+    }
+
+    private static int parseBase36(String s, int from, int to) {
+        if (to - from > 6) return -1;
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = Character.digit(s.charAt(i), 36);
+            if (d < 0) return -1;
+            v = v * 36 + d;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,78 @@
+package com.games.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-scores submitted Snake runs with {@link SnakeReplay} on a small fixed pool, so a burst of
+ * submissions cannot take over the STOMP inbound threads. A replay takes a few microseconds; when
+ * the queue is full the submission is rejected rather than waiting.
+ */
+@Service
+public class SnakeReplayVerifier {
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<SnakeReplay> simulators = ThreadLocal.withInitial(SnakeReplay::new);
+    private final Counter accepted;
+    private final Counter mismatched;
+    private final Counter overloaded;
+
+    public SnakeReplayVerifier(MeterRegistry meterRegistry,
+                               @Value("${anticheat.replay.threads:0}") int threads,
+                               @Value("${anticheat.replay.queue-capacity:1024}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "snake-replay-" + n.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.accepted = counter(meterRegistry, "accepted");
+        this.mismatched = counter(meterRegistry, "mismatch");
+        this.overloaded = counter(meterRegistry, "overloaded");
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("anticheat.replay")
+                .description("Snake score replays by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Completes with true if replaying {@code proof} for {@code runId} yields exactly {@code claimed}.
+     */
+    public CompletableFuture<Boolean> verify(String runId, String proof, int claimed) {
+        if (runId == null || proof == null || proof.isBlank()) {
+            mismatched.increment();
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                int score = simulators.get().replay(SnakeReplay.seedOf(runId), proof);
+                boolean ok = score == claimed;
+                (ok ? accepted : mismatched).increment();
+                return ok;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            overloaded.increment();
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
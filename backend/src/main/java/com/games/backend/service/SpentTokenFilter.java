@@ -0,0 +1,74 @@
+package com.games.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter of spent run tokens, keyed by the token's MAC (already uniformly distributed, so
+ * no further hashing is needed). Two generations cover one token lifetime each: a token is looked
+ * up in both and recorded in the current one, and the older generation is dropped once every
+ * token it could hold has expired. A false positive rejects a fresh token, at a rate set by
+ * {@code falsePositiveRate}; a spent token is never accepted twice on the same node.
+ */
+final class SpentTokenFilter {
+
+    private final int bits;
+    private final int hashes;
+    private final long generationMillis;
+    private long[] current;
+    private long[] previous;
+    private long currentStartedAt;
+
+    SpentTokenFilter(int expectedPerGeneration, double falsePositiveRate, long generationMillis, long now) {
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedPerGeneration * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedPerGeneration * ln2));
+        this.generationMillis = generationMillis;
+        this.current = new long[(bits + 63) >>> 6];
+        this.previous = new long[current.length];
+        this.currentStartedAt = now;
+    }
+
+    /** Records the token; returns false if it was (probably) already spent. */
+    synchronized boolean markSpent(byte[] mac, long now) {
+        rotate(now);
+        long h1 = toLong(mac, 0);
+        long h2 = toLong(mac, 8) | 1L;
+        boolean seen = true;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bits);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            if ((current[word] & mask) == 0 && (previous[word] & mask) == 0) seen = false;
+            current[word] |= mask;
+        }
+        return !seen;
+    }
+
+    int sizeInBytes() {
+        return current.length * Long.BYTES * 2;
+    }
+
+    private void rotate(long now) {
+        long elapsed = now - currentStartedAt;
+        if (elapsed < generationMillis) return;
+        long[] dropped = previous;
+        Arrays.fill(dropped, 0L);
+        if (elapsed < 2 * generationMillis) {
+            previous = current;
+            current = dropped;
+        } else {
+            // Idle for a whole lifetime: every token in the current generation has expired too
+            Arrays.fill(current, 0L);
+        }
+        currentStartedAt = now;
+    }
+
+    private static long toLong(byte[] b, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[(offset + i) % b.length] & 0xFF);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,131 @@
+package com.games.backend.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-connection payload format negotiation for the native WebSocket endpoint.
+ * <p>
+ * A client opts in by sending {@code payload-format:cbor} on its STOMP CONNECT frame. Messages
+ * to hot destinations (presence, leaderboard, moves) are then re-encoded from JSON to CBOR for
+ * that session and sent as binary frames ({@code application/octet-stream}, with a
+ * {@code payload-format:cbor} header). Each broadcast payload is converted once and shared by
+ * all CBOR subscribers. SockJS sessions cannot carry binary frames and always get JSON.
+ */
+public class BinaryPayloadNegotiator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryPayloadNegotiator.class);
+
+    public static final String FORMAT_HEADER = "payload-format";
+    public static final String CBOR = "cbor";
+    /** Handshake attribute set by the native endpoint; SockJS sessions never carry it. */
+    public static final String NATIVE_TRANSPORT_ATTR = "nativeTransport";
+
+    private final ObjectMapper json;
+    private final CBORMapper cbor = new CBORMapper();
+    private final List<String> binaryDestinations;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    // Weak keys compare by identity: the broker shares one payload array across all subscribers
+    private final Cache<byte[], byte[]> encoded = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(1024)
+            .build();
+    private final Counter reencoded;
+
+    public BinaryPayloadNegotiator(ObjectMapper json, MeterRegistry registry, List<String> binaryDestinations) {
+        this.json = json;
+        this.binaryDestinations = List.copyOf(binaryDestinations);
+        this.reencoded = Counter.builder("realtime.outbound.binary")
+                .description("Outbound frames sent as CBOR binary frames")
+                .register(registry);
+    }
+
+    /** Records the format each session asked for on CONNECT and forgets it on DISCONNECT. */
+    public ChannelInterceptor inbound() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId == null) return message;
+                if (type == SimpMessageType.CONNECT) {
+                    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                    Map<String, Object> attrs = accessor.getSessionAttributes();
+                    boolean nativeTransport = attrs != null && Boolean.TRUE.equals(attrs.get(NATIVE_TRANSPORT_ATTR));
+                    if (nativeTransport && CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(FORMAT_HEADER))) {
+                        cborSessions.add(sessionId);
+                    }
+                } else if (type == SimpMessageType.DISCONNECT) {
+                    cborSessions.remove(sessionId);
+                }
+                return message;
+            }
+        };
+    }
+
+    /** Swaps JSON payloads for CBOR on hot destinations addressed to CBOR sessions. */
+    public ChannelInterceptor outbound() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (cborSessions.isEmpty()) return message;
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId == null
+                        || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                        || !cborSessions.contains(sessionId)
+                        || !(message.getPayload() instanceof byte[] payload)
+                        || !isBinaryDestination(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                    return message;
+                }
+                byte[] cborPayload = encoded.get(payload, this::toCbor);
+                if (cborPayload == null) return message;
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+                accessor.setNativeHeader(FORMAT_HEADER, CBOR);
+                reencoded.increment();
+                return MessageBuilder.createMessage(cborPayload, accessor.getMessageHeaders());
+            }
+
+            private byte[] toCbor(byte[] jsonPayload) {
+                try {
+                    JsonNode tree = json.readTree(jsonPayload);
+                    return cbor.writeValueAsBytes(tree);
+                } catch (IOException e) {
+                    logger.debug("Leaving non-JSON payload as-is: {}", e.getMessage());
+                    return null;
+                }
+            }
+        };
+    }
+
+    private boolean isBinaryDestination(String destination) {
+        if (destination == null) return false;
+        for (String pattern : binaryDestinations) {
+            if (matcher.match(pattern, destination)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.games.backend.websocket;
+
+import com.games.backend.realtime.RoomRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the fan-out of every server broadcast to a room topic: how many subscriptions on this
+ * node one message is delivered to. Sits on the broker channel, which only carries messages the
+ * server sends, so the {@code game}/{@code kind} tags come from code, not from clients.
+ */
+public class BroadcastMetrics implements ChannelInterceptor {
+
+    private final RoomRegistry rooms;
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public BroadcastMetrics(RoomRegistry rooms, MeterRegistry registry) {
+        this.rooms = rooms;
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith("/topic/")) return message;
+        // /topic/<game>/<kind>/<roomId>
+        int game = destination.indexOf('/', "/topic/".length());
+        int kind = game < 0 ? -1 : destination.indexOf('/', game + 1);
+        if (kind < 0) return message;
+        summary(destination.substring(0, kind)).record(rooms.topicSubscriberCount(destination));
+        return message;
+    }
+
+    private DistributionSummary summary(String prefix) {
+        return summaries.computeIfAbsent(prefix, p -> {
+            String[] parts = p.substring("/topic/".length()).split("/");
+            return DistributionSummary.builder("realtime.broadcast.fanout")
+                    .description("Subscriptions a room broadcast is delivered to on this node")
+                    .baseUnit("subscriptions")
+                    .tag("game", parts[0])
+                    .tag("kind", parts[1])
+                    .publishPercentileHistogram()
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package com.games.backend.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every task handed to a STOMP channel executor: how long it waited in the queue and how
+ * long it ran. Queue wait climbing is the early signal that sessions are about to time out.
+ */
+public class ChannelTaskMetrics implements TaskDecorator {
+
+    private final Timer queueWait;
+    private final Timer execution;
+
+    public ChannelTaskMetrics(MeterRegistry registry, String channel) {
+        this.queueWait = Timer.builder("realtime.channel.queue.wait")
+                .description("Time a STOMP channel task spent queued before running")
+                .tag("channel", channel)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.execution = Timer.builder("realtime.channel.task")
+                .description("Time a STOMP channel task spent running")
+                .tag("channel", channel)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        long enqueued = System.nanoTime();
+        return () -> {
+            long started = System.nanoTime();
+            queueWait.record(started - enqueued, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } finally {
+                execution.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.games.backend.websocket;
 
+import com.games.backend.realtime.RoomRegistry;
 import com.games.backend.service.GameService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,10 +21,12 @@ public class GameSessionManager {
     private final Map<String, GameSession> activeSessions = new ConcurrentHashMap<>();
     private final SimpMessagingTemplate messagingTemplate;
     private final GameService gameService;
+    private final RoomRegistry roomRegistry;
 
-  public GameSessionManager(SimpMessagingTemplate messagingTemplate, GameService gameService) {
+  public GameSessionManager(SimpMessagingTemplate messagingTemplate, GameService gameService, RoomRegistry roomRegistry) {
     this.messagingTemplate = messagingTemplate;
     this.gameService = gameService;
+    this.roomRegistry = roomRegistry;
   }
 
     @Scheduled(fixedRate = 5000)
@@ -35,17 +38,51 @@ public class GameSessionManager {
         String sessionId = UUID.randomUUID().toString();
         GameSession session = new GameSession(sessionId, gameType, hostUserId);
         activeSessions.put(sessionId, session);
+        // Match rooms are private to their players
+        roomRegistry.restrict(roomId(session), hostUserId);
         return session;
     }
 
-    public void joinSession(String sessionId, String userId) {
+    /** Adds a player to the session's room; returns false if the session is gone or full. */
+    public boolean joinSession(String sessionId, String userId) {
         GameSession session = activeSessions.get(sessionId);
-        if (session != null && !session.isFull()) {
-            session.addPlayer(userId);
+        if (session == null) return false;
+        if (session.getPlayers().contains(userId)) return true;
+        if (session.isFull()) return false;
+        session.addPlayer(userId);
+        roomRegistry.grant(roomId(session), userId);
+        broadcastSessionUpdate(session);
+        return true;
+    }
+
+    /** Removes a player and their room access; the session ends once its last player has left. */
+    public void leaveSession(String sessionId, String userId) {
+        GameSession session = activeSessions.get(sessionId);
+        if (session == null || !session.getPlayers().contains(userId)) return;
+        roomRegistry.revoke(roomId(session), userId);
+        if (session.removePlayer(userId)) {
+            endSession(sessionId);
+        } else {
             broadcastSessionUpdate(session);
         }
     }
 
+    /** Ends a session and closes its room, so the room stays denied rather than turning public. */
+    public void endSession(String sessionId) {
+        GameSession session = activeSessions.remove(sessionId);
+        if (session == null) return;
+        roomRegistry.close(roomId(session));
+        logger.debug("Ended {} session {}", session.getGameType(), sessionId);
+    }
+
+    public GameSession getSession(String sessionId) {
+        return activeSessions.get(sessionId);
+    }
+
+    private static String roomId(GameSession session) {
+        return session.getGameType() + ":" + session.getId();
+    }
+
     private void broadcastSessionUpdate(GameSession session) {
         messagingTemplate.convertAndSend("/topic/session/" + session.getId(), session);
     }
@@ -87,5 +124,11 @@ public class GameSessionManager {
     public void addPlayer(String userId) {
       if (!isFull()) players.add(userId);
     }
+
+    /** Returns true once no players remain. */
+    public boolean removePlayer(String userId) {
+      players.remove(userId);
+      return players.isEmpty();
+    }
   }
 }
@@ -0,0 +1,79 @@
+package com.games.backend.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Times each {@code @MessageMapping} handler invocation on the inbound channel, tagged with the
+ * mapped destination (e.g. {@code /chess/chat}) and outcome. Destinations with no mapping are
+ * tagged {@code unmapped}, so clients cannot create new time series.
+ */
+public class HandlerMetrics implements ExecutorChannelInterceptor {
+
+    private static final String UNMAPPED = "unmapped";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> started = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile Set<String> mapped;
+
+    public HandlerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (handler instanceof SimpAnnotationMethodMessageHandler) {
+            started.get()[0] = System.nanoTime();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (!(handler instanceof SimpAnnotationMethodMessageHandler annotated)) return;
+        long elapsed = System.nanoTime() - started.get()[0];
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) return; // CONNECT, heartbeats and other frames without a handler
+        timer(handlerTag(annotated, destination), ex == null ? "ok" : "error")
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private String handlerTag(SimpAnnotationMethodMessageHandler handler, String destination) {
+        Set<String> known = mapped;
+        if (known == null) {
+            known = handler.getHandlerMethods().keySet().stream()
+                    .flatMap(info -> info.getDestinationConditions().getPatterns().stream())
+                    .collect(Collectors.toUnmodifiableSet());
+            mapped = known;
+        }
+        for (String prefix : handler.getDestinationPrefixes()) {
+            if (destination.startsWith(prefix)) {
+                String lookup = destination.substring(prefix.length() - (prefix.endsWith("/") ? 1 : 0));
+                return known.contains(lookup) ? lookup : UNMAPPED;
+            }
+        }
+        return UNMAPPED;
+    }
+
+    private Timer timer(String handler, String outcome) {
+        return timers.computeIfAbsent(handler + '|' + outcome, k -> Timer.builder("realtime.handler")
+                .description("Time spent in a @MessageMapping handler")
+                .tag("handler", handler)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
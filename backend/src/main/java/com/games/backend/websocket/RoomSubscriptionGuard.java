@@ -0,0 +1,69 @@
+package com.games.backend.websocket;
+
+import com.games.backend.realtime.RoomRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.security.Principal;
+
+/**
+ * Authorizes SUBSCRIBE frames for room-scoped topics ({@code /topic/<game>/<kind>/<roomId>}) and
+ * keeps {@link RoomRegistry} subscriber counts in step with SUBSCRIBE/UNSUBSCRIBE/DISCONNECT.
+ * <p>
+ * The simple broker matches subscriptions as Ant patterns, so a subscription containing
+ * wildcards would receive every room's traffic; those are rejected outright. SEND frames name their room
+ * in the payload, so the realtime controllers apply the same membership check per message.
+ */
+public class RoomSubscriptionGuard implements ChannelInterceptor {
+
+    private final RoomRegistry rooms;
+
+    public RoomSubscriptionGuard(RoomRegistry rooms) {
+        this.rooms = rooms;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == null || sessionId == null) return message;
+
+        switch (type) {
+            case SUBSCRIBE -> subscribe(message, sessionId);
+            case UNSUBSCRIBE -> {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+                if (subscriptionId != null) rooms.unsubscribed(sessionId, subscriptionId);
+            }
+            case DISCONNECT -> rooms.disconnected(sessionId);
+            default -> { }
+        }
+        return message;
+    }
+
+    private void subscribe(Message<?> message, String sessionId) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith("/topic/")) return;
+        if (destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0) {
+            throw new AccessDeniedException("Wildcard subscriptions are not allowed: " + destination);
+        }
+
+        // /topic/<game>/<kind>/<roomId>; other topics (e.g. /topic/session/<id>) are not rooms
+        String[] parts = destination.substring("/topic/".length()).split("/", -1);
+        if (parts.length != 3 || parts[2].indexOf(':') < 0) return;
+        String game = parts[0];
+        String roomId = parts[2];
+        if (!RoomRegistry.isValidRoomId(game, roomId)) {
+            throw new AccessDeniedException("Invalid room for " + game + ": " + roomId);
+        }
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (!rooms.canSubscribe(roomId, user)) {
+            throw new AccessDeniedException("Not a member of room " + roomId);
+        }
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (subscriptionId != null) rooms.subscribed(sessionId, subscriptionId, destination);
+    }
+}
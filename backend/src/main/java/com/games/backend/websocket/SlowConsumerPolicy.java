@@ -0,0 +1,129 @@
+package com.games.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds low-value frames (presence by default) for sessions whose socket write has been stuck
+ * longer than {@code shedAfterMs}, before Spring's send-time/buffer limits terminate them.
+ * <p>
+ * Installed twice: as a handler decorator, to observe each session's raw writes, and as an
+ * outbound channel interceptor, to drop sheddable messages addressed to a slow session.
+ */
+public class SlowConsumerPolicy implements WebSocketHandlerDecoratorFactory, ChannelInterceptor {
+
+    private final long shedAfterNanos;
+    private final List<String> sheddableDestinations;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Map<String, SendTracker> sessions = new ConcurrentHashMap<>();
+    private final Counter shed;
+
+    public SlowConsumerPolicy(MeterRegistry registry, long shedAfterMs, List<String> sheddableDestinations) {
+        this.shedAfterNanos = TimeUnit.MILLISECONDS.toNanos(shedAfterMs);
+        this.sheddableDestinations = List.copyOf(sheddableDestinations);
+        this.shed = Counter.builder("realtime.outbound.shed")
+                .description("Outbound frames dropped because the session is a slow consumer")
+                .register(registry);
+        Gauge.builder("realtime.sessions.slow", this, SlowConsumerPolicy::slowSessionCount)
+                .description("Sessions with a socket write in progress longer than the shed threshold")
+                .register(registry);
+        Gauge.builder("realtime.sessions.open", sessions, Map::size)
+                .description("Open WebSocket sessions")
+                .register(registry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SendTracker tracker = new SendTracker(session);
+                sessions.put(session.getId(), tracker);
+                super.afterConnectionEstablished(tracker);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (sessionId == null || destination == null || !isSheddable(destination)) {
+            return message;
+        }
+        SendTracker tracker = sessions.get(sessionId);
+        if (tracker != null && tracker.isStalled(System.nanoTime(), shedAfterNanos)) {
+            shed.increment();
+            return null;
+        }
+        return message;
+    }
+
+    private boolean isSheddable(String destination) {
+        for (String pattern : sheddableDestinations) {
+            if (matcher.match(pattern, destination)) return true;
+        }
+        return false;
+    }
+
+    private double slowSessionCount() {
+        long now = System.nanoTime();
+        int slow = 0;
+        for (SendTracker tracker : sessions.values()) {
+            if (tracker.isStalled(now, shedAfterNanos)) slow++;
+        }
+        return slow;
+    }
+
+    /**
+     * Sits beneath Spring's ConcurrentWebSocketSessionDecorator, so it sees the actual socket
+     * writes: while one is in progress the outer decorator is buffering everything else.
+     */
+    private static final class SendTracker extends WebSocketSessionDecorator {
+        private volatile long sendStartedAt;
+
+        SendTracker(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            sendStartedAt = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                sendStartedAt = 0L;
+            }
+        }
+
+        boolean isStalled(long now, long thresholdNanos) {
+            long started = sendStartedAt;
+            return started != 0L && now - started > thresholdNanos;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.games.backend.admin;
+
+import com.games.backend.service.LeaderboardRebuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaderboardAdminControllerTest {
+
+    private final LeaderboardRebuilder rebuilder = mock(LeaderboardRebuilder.class);
+    private final LeaderboardAdminController controller = new LeaderboardAdminController(rebuilder);
+
+    @Test
+    void rebuildsOnlyConfiguredScopes() {
+        when(rebuilder.scopes()).thenReturn(List.of("snake:global"));
+        when(rebuilder.start("snake:global")).thenReturn(true);
+
+        assertThat(controller.rebuild("snake:room-1").getStatusCode().value()).isEqualTo(400);
+        assertThat(controller.rebuild("chess:global").getStatusCode().value()).isEqualTo(400);
+        verify(rebuilder, never()).start(anyString());
+
+        assertThat(controller.rebuild("snake:global").getStatusCode().value()).isEqualTo(202);
+    }
+}
@@ -0,0 +1,110 @@
+package com.games.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TwoLevelCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // Node-local, expires 10s after write on a hand-driven clock
+        Caffeine<Object, Object> l1 = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(nanos::get);
+        cache = new TwoLevelCache("leaderboard", l1, null, true);
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    private void advance(Duration d) {
+        nanos.addAndGet(d.toNanos());
+    }
+
+    @Test
+    void loadsOncePerKeyUntilTheEntryExpires() {
+        assertThat(cache.get("snake", this::load)).isEqualTo("v1");
+        advance(Duration.ofSeconds(5));
+        assertThat(cache.get("snake", this::load)).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgainByTheNextReadOnly() {
+        cache.get("snake", this::load);
+        advance(Duration.ofSeconds(11));
+
+        // Nothing reloads in the background: the entry is gone until a read brings its own loader
+        assertThat(cache.get("snake")).isNull();
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get("snake", this::load)).isEqualTo("v2");
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = pool.submit(() -> cache.get("snake", () -> {
+                loading.countDown();
+                release.await();
+                return load();
+            }));
+            loading.await();
+            Future<Object> second = pool.submit(() -> cache.get("snake", this::load));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+            assertThat(loads).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void refreshAfterWriteSpecsAreRejected() {
+        Caffeine<Object, Object> refreshing = Caffeine.from("maximumSize=10,refreshAfterWrite=10s");
+
+        assertThatThrownBy(() -> new TwoLevelCache("leaderboard", refreshing, null, true))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void evictAndClearDropLocalEntries() {
+        cache.get("snake", this::load);
+        cache.get("tetris", this::load);
+
+        cache.evict("snake");
+        assertThat(cache.get("snake")).isNull();
+        assertThat(cache.get("tetris")).isNotNull();
+
+        cache.clear();
+        assertThat(cache.getNativeCache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void keysAreComparedByStringForm() {
+        cache.get(10, this::load);
+        assertThat(cache.get("10").get()).isEqualTo("v1");
+    }
+}
@@ -0,0 +1,55 @@
+package com.games.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WebSocketConfig config = new WebSocketConfig(null, null, registry, new ObjectMapper(), null);
+
+    @Test
+    void channelExecutor_fullQueue_runsOnTheSubmittingThread() throws Exception {
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) config.channelExecutor("inbound", 1, 1, 1);
+        executor.initialize();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> overflowRanOn = new AtomicReference<>();
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            executor.execute(() -> { });
+            assertThat(registry.get("realtime.channel.queue.depth").tag("channel", "inbound").gauge().value())
+                    .isEqualTo(1);
+
+            // Worker busy and queue full: back-pressure instead of a dropped frame
+            executor.execute(() -> overflowRanOn.set(Thread.currentThread()));
+            assertThat(overflowRanOn.get()).isSameAs(Thread.currentThread());
+        } finally {
+            release.countDown();
+            ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // Every task is timed, including the one the caller ran
+        assertThat(registry.get("realtime.channel.queue.wait").tag("channel", "inbound").timer().count()).isEqualTo(3);
+        assertThat(registry.get("realtime.channel.task").tag("channel", "inbound").timer().count()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,52 @@
+package com.games.backend.controller;
+
+import com.games.backend.realtime.RoomRegistry;
+import com.games.backend.service.GameService;
+import com.games.backend.websocket.GameSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class GameSessionControllerTest {
+
+    private final RoomRegistry rooms = new RoomRegistry(new SimpleMeterRegistry());
+    private final GameSessionController controller = new GameSessionController(
+            new GameSessionManager(mock(SimpMessagingTemplate.class), mock(GameService.class), rooms));
+
+    @Test
+    void createJoinLeave_drivesRoomMembership() {
+        var created = controller.create("chess", user("alice"));
+        assertThat(created.getStatusCode().value()).isEqualTo(201);
+        String sessionId = (String) created.getBody().get("sessionId");
+        String roomId = (String) created.getBody().get("roomId");
+        assertThat(roomId).isEqualTo("chess:" + sessionId);
+        assertThat(RoomRegistry.isValidRoomId("chess", roomId)).isTrue();
+
+        assertThat(controller.join(sessionId, user("bob")).getStatusCode().value()).isEqualTo(200);
+        assertThat(controller.join(sessionId, user("eve")).getStatusCode().value()).isEqualTo(409);
+        assertThat(rooms.canSubscribe(roomId, () -> "bob")).isTrue();
+        assertThat(rooms.canSubscribe(roomId, () -> "eve")).isFalse();
+
+        assertThat(controller.leave(sessionId, user("eve")).getStatusCode().value()).isEqualTo(404);
+        assertThat(controller.leave(sessionId, user("bob")).getStatusCode().value()).isEqualTo(204);
+        assertThat(rooms.canSubscribe(roomId, () -> "bob")).isFalse();
+
+        controller.leave(sessionId, user("alice"));
+        assertThat(controller.join(sessionId, user("eve")).getStatusCode().value()).isEqualTo(404);
+        assertThat(rooms.canSubscribe(roomId, () -> "eve")).isFalse();
+    }
+
+    @Test
+    void create_unknownGame_isNotFound() {
+        assertThat(controller.create("snake", user("alice")).getStatusCode().value()).isEqualTo(404);
+    }
+
+    private static UserDetails user(String name) {
+        return User.withUsername(name).password("x").roles("USER").build();
+    }
+}
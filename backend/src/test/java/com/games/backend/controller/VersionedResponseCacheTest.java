@@ -0,0 +1,97 @@
+package com.games.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.backend.service.LeaderboardVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VersionedResponseCacheTest {
+
+    private final LeaderboardVersions versions = mock(LeaderboardVersions.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<Object> loader = () -> Map.of("load", loads.incrementAndGet());
+    private VersionedResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VersionedResponseCache(versions, new ObjectMapper());
+        when(versions.current("snake:global")).thenReturn(7L);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedWithoutLoading() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "W/\"7\"");
+
+        ResponseEntity<byte[]> res = cache.respond(request, "snake:global", "10", loader);
+
+        assertThat(res.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(res.getHeaders().getETag()).isEqualTo("W/\"7\"");
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void bodyIsBuiltOncePerVersion() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "W/\"6\"");
+
+        ResponseEntity<byte[]> first = cache.respond(request, "snake:global", "10", loader);
+        ResponseEntity<byte[]> second = cache.respond(new MockHttpServletRequest(), "snake:global", "10", loader);
+        when(versions.current("snake:global")).thenReturn(8L);
+        ResponseEntity<byte[]> third = cache.respond(new MockHttpServletRequest(), "snake:global", "10", loader);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isEqualTo("W/\"7\"");
+        assertThat(new String(second.getBody())).isEqualTo("{\"load\":1}");
+        assertThat(new String(third.getBody())).isEqualTo("{\"load\":2}");
+        assertThat(third.getHeaders().getETag()).isEqualTo("W/\"8\"");
+    }
+
+    @Test
+    void gzipIsServedToClientsThatAcceptIt() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+
+        ResponseEntity<byte[]> res = cache.respond(request, "snake:global", "10", loader);
+
+        assertThat(res.getHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+        assertThat(res.getHeaders().getVary()).contains("Accept-Encoding");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(res.getBody()))) {
+            assertThat(new String(in.readAllBytes())).isEqualTo("{\"load\":1}");
+        }
+    }
+
+    @Test
+    void unknownVersionIsServedWithoutETag() {
+        when(versions.current("snake:global")).thenReturn(-1L);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "*");
+
+        ResponseEntity<byte[]> res = cache.respond(request, "snake:global", "10", loader);
+
+        assertThat(res.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(res.getHeaders().getETag()).isNull();
+    }
+
+    @Test
+    void ifNoneMatchComparesWeaklyAcrossAList() {
+        assertThat(VersionedResponseCache.matches("\"3\", W/\"7\"", "W/\"7\"")).isTrue();
+        assertThat(VersionedResponseCache.matches("\"7\"", "W/\"7\"")).isTrue();
+        assertThat(VersionedResponseCache.matches("W/\"71\"", "W/\"7\"")).isFalse();
+        assertThat(VersionedResponseCache.matches(null, "W/\"7\"")).isFalse();
+    }
+}
@@ -0,0 +1,148 @@
+package com.games.backend.db;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One primary and two streaming replicas cloned from it with pg_basebackup, so routing, lag
+ * checks and fallback run against real hot standbys.
+ */
+@SpringBootTest
+@Testcontainers
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingIT {
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test")
+            // The image only lets remote clients into databases; replicas also need replication connections
+            .withCopyToContainer(Transferable.of(
+                    "#!/bin/sh\necho 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\"\n", 0755),
+                    "/docker-entrypoint-initdb.d/replication.sh");
+
+    @Container
+    static final GenericContainer<?> replica1 = replica();
+
+    @Container
+    static final GenericContainer<?> replica2 = replica();
+
+    private static GenericContainer<?> replica() {
+        String script = "until PGPASSWORD=test pg_basebackup -h primary -U test -D \"$PGDATA\" -X stream -R; "
+                + "do rm -rf \"$PGDATA\"/*; sleep 1; done; chmod 700 \"$PGDATA\"; exec postgres";
+        return new GenericContainer<>("postgres:15-alpine")
+                .withNetwork(network)
+                .dependsOn(primary)
+                .withExposedPorts(5432)
+                .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres").withEntrypoint("sh", "-c"))
+                .withCommand(new String[] {script})
+                .waitingFor(Wait.forLogMessage(".*ready to accept read.only connections.*\\n", 1)
+                        .withStartupTimeout(Duration.ofMinutes(2)));
+    }
+
+    private static String replicaUrl(GenericContainer<?> replica) {
+        return "jdbc:postgresql://" + replica.getHost() + ":" + replica.getMappedPort(5432) + "/testdb";
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("features.db.replicas_enabled", () -> "true");
+        registry.add("datasource.replicas.urls", () -> replicaUrl(replica1) + "," + replicaUrl(replica2));
+        registry.add("datasource.replicas.max-lag", () -> "5s");
+        registry.add("app.jwtSecret", () -> "test-secret");
+        registry.add("app.jwtExpirationInMs", () -> 86400000);
+    }
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ReplicaRoutingDataSource routing;
+
+    private <T> T inTransaction(boolean readOnly, Supplier<T> work) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> work.get());
+    }
+
+    private boolean onStandby() {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsUseReplicas_andWritesThePrimary() {
+        assertThat(inTransaction(true, this::onStandby)).isTrue();
+        assertThat(inTransaction(false, this::onStandby)).isFalse();
+        // Outside a transaction there is nothing to route on
+        assertThat(onStandby()).isFalse();
+    }
+
+    @Test
+    @Order(2)
+    void primaryWritesBecomeVisibleToReplicaReads() throws InterruptedException {
+        inTransaction(false, () -> {
+            jdbc.execute("CREATE TABLE replication_probe (id int PRIMARY KEY)");
+            return jdbc.update("INSERT INTO replication_probe VALUES (1)");
+        });
+
+        // Replicas are taken in turn, so two reads in a row that see the row cover both of them
+        int consecutive = 0;
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (consecutive < 2 && System.nanoTime() < deadline) {
+            consecutive = probeRows() == 1 ? consecutive + 1 : 0;
+            if (consecutive < 2) Thread.sleep(50);
+        }
+        assertThat(consecutive).isEqualTo(2);
+    }
+
+    // The table and its row commit together, so a replica that has the table has the row
+    private int probeRows() {
+        return inTransaction(true, () -> jdbc.queryForObject(
+                "SELECT count(*) FROM pg_class WHERE relname = 'replication_probe'", Integer.class));
+    }
+
+    @Test
+    @Order(3)
+    void readsFallBackToThePrimaryWhenNoReplicaIsUsable() {
+        replica1.stop();
+        assertThat(inTransaction(true, this::onStandby)).isTrue();
+
+        replica2.stop();
+        routing.checkReplicas();
+        assertThat(inTransaction(true, this::onStandby)).isFalse();
+    }
+}
@@ -0,0 +1,71 @@
+package com.games.backend.features;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlagSnapshotTest {
+
+    private final FlagSnapshot base = FlagSnapshot.of(flags("chat", true, "anti_cheat_enabled", false));
+
+    @Test
+    void of_startsAtVersionOne_andKeepsOrder() {
+        assertThat(base.version()).isEqualTo(1);
+        assertThat(base.asMap()).containsExactly(Map.entry("chat", true), Map.entry("anti_cheat_enabled", false));
+        assertThat(base.isEnabled("chat")).isTrue();
+        assertThat(base.isEnabled("anti_cheat_enabled")).isFalse();
+    }
+
+    @Test
+    void unknownFlags_areOff() {
+        assertThat(base.isKnown("missing")).isFalse();
+        assertThat(base.isEnabled("missing")).isFalse();
+    }
+
+    @Test
+    void with_change_bumpsVersion_andLeavesOriginalUntouched() {
+        FlagSnapshot next = base.with("anti_cheat_enabled", true);
+
+        assertThat(next.version()).isEqualTo(2);
+        assertThat(next.isEnabled("anti_cheat_enabled")).isTrue();
+        assertThat(next.isEnabled("chat")).isTrue();
+        assertThat(base.isEnabled("anti_cheat_enabled")).isFalse();
+        assertThat(base.version()).isEqualTo(1);
+    }
+
+    @Test
+    void with_sameValue_returnsSameSnapshot() {
+        assertThat(base.with("chat", true)).isSameAs(base);
+    }
+
+    @Test
+    void with_unknownFlag_isRejected() {
+        assertThatThrownBy(() -> base.with("missing", true)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void withAll_appliesKnownFlagsInOneVersion_andIgnoresUnknown() {
+        FlagSnapshot next = base.withAll(flags("chat", false, "anti_cheat_enabled", true, "missing", true));
+
+        assertThat(next.version()).isEqualTo(2);
+        assertThat(next.asMap()).containsExactly(Map.entry("chat", false), Map.entry("anti_cheat_enabled", true));
+        assertThat(next.isKnown("missing")).isFalse();
+    }
+
+    @Test
+    void withAll_noChange_returnsSameSnapshot() {
+        assertThat(base.withAll(flags("chat", true, "missing", true))).isSameAs(base);
+    }
+
+    private static Map<String, Boolean> flags(Object... pairs) {
+        Map<String, Boolean> flags = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            flags.put((String) pairs[i], (Boolean) pairs[i + 1]);
+        }
+        return flags;
+    }
+}
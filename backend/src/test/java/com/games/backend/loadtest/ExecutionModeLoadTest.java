@@ -0,0 +1,268 @@
+package com.games.backend.loadtest;
+
+import com.games.backend.GamesBackendApplication;
+import com.games.backend.model.User;
+import com.games.backend.repository.UserRepository;
+import com.games.backend.security.JwtTokenProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTTP throughput of the backend in platform-thread mode (Tomcat's 200 worker threads) versus the
+ * {@code vthreads} profile ({@code application-vthreads.yml}). Each mode starts the real
+ * application in-process and drives its REST endpoints with JWT-authenticated clients:
+ * <ul>
+ *   <li>{@code leaderboard}: {@code GET /api/games/snake/leaderboard}, which blocks on the
+ *   leaderboard store</li>
+ *   <li>{@code scores}: {@code GET /api/scores/leaderboard}, the JPA aggregate behind the two-level cache</li>
+ *   <li>{@code submit}: {@code POST /api/scores}, a JPA write plus outbox row</li>
+ * </ul>
+ * Every request also loads its user through the JWT filter. Redis is replaced by
+ * {@link InMemoryRedisStandIns} with a simulated round-trip ({@code -Dloadtest.redisLatencyMs},
+ * default 5) and Postgres by H2 unless {@code -Dloadtest.jdbcUrl} (with
+ * {@code -Dloadtest.jdbcUser}/{@code -Dloadtest.jdbcPassword}) points at a real database; against
+ * in-process H2 the JPA calls never wait on a network, so the gap between modes is narrower.
+ * <p>
+ * Excluded from the default build. Run with:
+ * {@code mvn -pl backend test -Ploadtest -Dtest=ExecutionModeLoadTest} (tune with
+ * {@code -Dloadtest.clients}, {@code -Dloadtest.seconds}, {@code -Dloadtest.users} and
+ * {@code -Dloadtest.httpMix=leaderboard:60,scores:20,submit:20}).
+ */
+@Tag("loadtest")
+class ExecutionModeLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 500);
+    private static final long SECONDS = Long.getLong("loadtest.seconds", 10);
+    private static final int USERS = Integer.getInteger("loadtest.users", 100);
+    private static final long REDIS_LATENCY_MS = Long.getLong("loadtest.redisLatencyMs", 5);
+    private static final String MIX = System.getProperty("loadtest.httpMix", "leaderboard:60,scores:20,submit:20");
+    private static final int PLATFORM_MAX_THREADS = 200;
+
+    @Test
+    void comparesPlatformAndVirtualThreadModesOnRealEndpoints() throws Exception {
+        Map<String, Integer> mix = parseMix(MIX);
+        Result platform = measure(false, mix);
+        Result virtual = measure(true, mix);
+
+        System.out.printf("[loadtest] clients=%d redisLatency=%dms mix=%s db=%s%n",
+                CLIENTS, REDIS_LATENCY_MS, mix, System.getProperty("loadtest.jdbcUrl", "h2"));
+        System.out.printf("[loadtest] platform=%.0f req/s errors=%s vthreads=%.0f req/s errors=%s (x%.2f)%n",
+                platform.throughput, platform.errors, virtual.throughput, virtual.errors,
+                virtual.throughput / platform.throughput);
+
+        assertThat(platform.throughput).isPositive();
+        assertThat(virtual.throughput).isPositive();
+    }
+
+    private record Result(double throughput, Map<String, Long> errors) {
+    }
+
+    // The /api/* limiter (100 requests a minute across all callers) would cap both modes at the same rate
+    private static final BeanPostProcessor RATE_LIMIT_OFF = new BeanPostProcessor() {
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if ("rateLimitFilter".equals(beanName) && bean instanceof FilterRegistrationBean<?> filter) {
+                filter.setEnabled(false);
+            }
+            return bean;
+        }
+    };
+
+    private Result measure(boolean virtualThreads, Map<String, Integer> mix) throws Exception {
+        // Stand-ins first: FirebaseConfig's FirebaseAuth is conditional on a FirebaseApp already being defined
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(
+                FirebaseStandIns.class, InMemoryRedisStandIns.class, GamesBackendApplication.class)
+                .initializers(ctx -> {
+                    ctx.getBeanFactory()
+                            .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter());
+                    ctx.getBeanFactory().addBeanPostProcessor(RATE_LIMIT_OFF);
+                });
+        if (virtualThreads) builder.profiles("vthreads");
+
+        // Passed as command-line arguments so they override application.yml, as @SpringBootTest properties do
+        String[] args = properties(virtualThreads).entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        try (ConfigurableApplicationContext app = builder.run(args)) {
+            int port = ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+            List<String> tokens = seedUsers(app);
+            return drive("http://localhost:" + port, tokens, mix);
+        }
+    }
+
+    private static Map<String, Object> properties(boolean virtualThreads) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("server.port", 0);
+        props.put("spring.datasource.url", System.getProperty("loadtest.jdbcUrl",
+                "jdbc:h2:mem:modes-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        props.put("spring.datasource.username", System.getProperty("loadtest.jdbcUser", "sa"));
+        props.put("spring.datasource.password", System.getProperty("loadtest.jdbcPassword", ""));
+        if (!System.getProperties().containsKey("loadtest.jdbcUrl")) {
+            props.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            props.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        }
+        props.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        props.put("app.jwtSecret", "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8gISIjJCUmJygpKissLS4vMDEyMzQ1Njc4OTo7PD0+Pw==");
+        props.put("app.jwtExpirationInMs", 3600000);
+        props.put("anticheat.run.mode", "hmac");
+        props.put("chat.history.redis-enabled", false);
+        props.put("features.store.redis-enabled", false);
+        props.put("management.health.redis.enabled", false);
+        props.put("loadtest.redis-latency-ms", REDIS_LATENCY_MS);
+        props.put("logging.level.root", "WARN");
+        if (!virtualThreads) {
+            // Platform mode: the stock worker pool is the concurrency cap
+            props.put("server.tomcat.threads.max", PLATFORM_MAX_THREADS);
+            props.put("server.tomcat.max-connections", 20000);
+        }
+        return props;
+    }
+
+    private static List<String> seedUsers(ConfigurableApplicationContext app) {
+        UserRepository users = app.getBean(UserRepository.class);
+        JwtTokenProvider tokenProvider = app.getBean(JwtTokenProvider.class);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("load-" + i);
+            user.setEmail("load-" + i + "@local.test");
+            user.setPassword("!");
+            user.getRoles().add("ROLE_USER");
+            users.save(user);
+            UserDetails principal = org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                    .password("N/A").authorities("ROLE_USER").build();
+            tokens.add(tokenProvider.generateToken(
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())));
+        }
+        return tokens;
+    }
+
+    private Result drive(String base, List<String> tokens, Map<String, Integer> mix) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        // The HTTP client gets its own executor: the client pool is shut down while requests are in flight
+        try (ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(io).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(SECONDS);
+            for (int i = 0; i < CLIENTS; i++) {
+                String token = tokens.get(i % tokens.size());
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        String kind = pick(mix, ThreadLocalRandom.current().nextInt(totalWeight));
+                        try {
+                            HttpResponse<Void> res = http.send(request(base, kind, token),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (res.statusCode() < 400) completed.increment();
+                            else errors.computeIfAbsent(kind + ":" + res.statusCode(), k -> new LongAdder()).increment();
+                        } catch (IOException e) {
+                            // connection churn under load; keep driving
+                            errors.computeIfAbsent(kind + ":io", k -> new LongAdder()).increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(SECONDS + 30, TimeUnit.SECONDS);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((k, v) -> errorCounts.put(k, v.sum()));
+            return new Result(completed.sum() / elapsed, errorCounts);
+        }
+    }
+
+    private static HttpRequest request(String base, String kind, String token) {
+        HttpRequest.Builder req = switch (kind) {
+            case "leaderboard" -> HttpRequest.newBuilder(URI.create(base + "/api/games/snake/leaderboard")).GET();
+            case "scores" -> HttpRequest.newBuilder(URI.create(base + "/api/scores/leaderboard")).GET();
+            case "submit" -> HttpRequest.newBuilder(URI.create(base + "/api/scores"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"gameType\":\"snake\",\"score\":"
+                            + ThreadLocalRandom.current().nextInt(10_000) + "}"));
+            default -> throw new IllegalArgumentException("unknown request kind: " + kind);
+        };
+        return req.header("Authorization", "Bearer " + token).build();
+    }
+
+    // "leaderboard:60,scores:20,..." -> weights
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            String kind = kv[0].trim();
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (!List.of("leaderboard", "scores", "submit").contains(kind)) {
+                throw new IllegalArgumentException("unknown request kind in loadtest.httpMix: " + kind);
+            }
+            if (weight > 0) mix.put(kind, weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("loadtest.httpMix selects no requests");
+        return mix;
+    }
+
+    private static String pick(Map<String, Integer> mix, int roll) {
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) return e.getKey();
+        }
+        throw new IllegalStateException("roll outside mix weights");
+    }
+
+    /**
+     * {@code @SpringBootTest} keeps {@code @TestConfiguration} classes out of component scanning;
+     * a plain {@link SpringApplicationBuilder} run needs the same filter so that, e.g., the
+     * Testcontainers {@code TestConfig} is not picked up.
+     */
+    private static final class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader reader, MetadataReaderFactory factory) {
+            return reader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj != null && obj.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+}
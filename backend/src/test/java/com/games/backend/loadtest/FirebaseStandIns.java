@@ -0,0 +1,30 @@
+package com.games.backend.loadtest;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.UUID;
+
+/**
+ * An offline Firebase app for load tests started without Firebase credentials. Component scanning
+ * also picks up the test-only {@code FirebaseAuthController}, which needs a {@link FirebaseApp}
+ * (and the {@code FirebaseAuth} that {@code FirebaseConfig} derives from it); the load mixes
+ * never call Firebase.
+ */
+@TestConfiguration
+public class FirebaseStandIns {
+
+    @Bean(destroyMethod = "delete")
+    public FirebaseApp firebaseApp() {
+        FirebaseOptions options = FirebaseOptions.builder()
+                .setProjectId("loadtest")
+                .setCredentials(GoogleCredentials.create(new AccessToken("loadtest", null)))
+                .build();
+        // Apps are registered by name JVM-wide; each context gets its own
+        return FirebaseApp.initializeApp(options, "loadtest-" + UUID.randomUUID());
+    }
+}
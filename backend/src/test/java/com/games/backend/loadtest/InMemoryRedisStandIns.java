@@ -0,0 +1,224 @@
+package com.games.backend.loadtest;
+
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import com.games.backend.service.LeaderboardService;
+import com.games.backend.service.PresenceService;
+import com.games.backend.service.RedisGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-process replacements for the Redis-backed realtime services, so the backend can be driven
+ * on one box without Redis. They keep the same observable semantics (presence versions and TTL
+ * eviction, per-user best scores) with one lock per room; they are not a performance model of
+ * Redis itself.
+ * <p>
+ * The other Redis users are switched off by {@link RealtimeLoadTest}'s properties: run ids use
+ * hmac mode, chat history and feature flag overrides stay in memory. The pub/sub listener is not
+ * started, so leaderboard versions and cache invalidations stay node-local; the remaining Redis
+ * reads fail fast through {@link RedisGuard} as they would during an outage.
+ * <p>
+ * {@code loadtest.redis-latency-ms} (default 0) makes every presence update and leaderboard call
+ * block for that long first, to model the Redis round-trip the real services wait on.
+ */
+@TestConfiguration
+public class InMemoryRedisStandIns {
+
+    @Bean
+    @Primary
+    public PresenceService presenceService(@Value("${loadtest.redis-latency-ms:0}") long latencyMs) {
+        return new InMemoryPresenceService(45_000, Duration.ofMillis(latencyMs));
+    }
+
+    @Bean
+    @Primary
+    public LeaderboardService leaderboardService(@Value("${loadtest.redis-latency-ms:0}") long latencyMs) {
+        return new InMemoryLeaderboardService(Duration.ofMillis(latencyMs));
+    }
+
+    @Bean
+    public static BeanPostProcessor redisListenerOff() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (!(bean instanceof RedisMessageListenerContainer container)) return bean;
+                RedisMessageListenerContainer idle = new RedisMessageListenerContainer() {
+                    @Override
+                    public boolean isAutoStartup() {
+                        return false;
+                    }
+                };
+                idle.setConnectionFactory(container.getConnectionFactory());
+                return idle;
+            }
+        };
+    }
+
+    // The stand-ins override every Redis-backed method, so their breaker never sees a call
+    private static RedisGuard unusedGuard() {
+        return new RedisGuard(new SimpleMeterRegistry(), 50, 500, 20, 5000);
+    }
+
+    private static void roundTrip(Duration latency) {
+        if (latency.isZero()) return;
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static final class InMemoryPresenceService extends PresenceService {
+
+        private final long ttlMillis;
+        private final Duration latency;
+        private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+        InMemoryPresenceService(long ttlMillis, Duration latency) {
+            super(null, unusedGuard());
+            this.ttlMillis = ttlMillis;
+            this.latency = latency;
+        }
+
+        private static final class Room {
+            final Map<String, Long> lastSeen = new LinkedHashMap<>();
+            long version;
+        }
+
+        @Override
+        public Update apply(String roomId, String memberId, String op) {
+            roundTrip(latency);
+            Room room = rooms.computeIfAbsent(roomId, k -> new Room());
+            long now = System.currentTimeMillis();
+            synchronized (room) {
+                List<String> left = new ArrayList<>();
+                boolean joined = false;
+                if ("leave".equals(op)) {
+                    if (room.lastSeen.remove(memberId) != null) left.add(memberId);
+                } else {
+                    joined = room.lastSeen.put(memberId, now) == null;
+                }
+                for (Iterator<Map.Entry<String, Long>> it = room.lastSeen.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Long> e = it.next();
+                    if (e.getValue() < now - ttlMillis) {
+                        left.add(e.getKey());
+                        it.remove();
+                    }
+                }
+                if (joined || !left.isEmpty()) room.version++;
+                return new Update(room.version, room.lastSeen.size(), joined, left);
+            }
+        }
+
+        @Override
+        public int count(String roomId) {
+            Room room = rooms.get(roomId);
+            if (room == null) return 0;
+            synchronized (room) {
+                return room.lastSeen.size();
+            }
+        }
+
+        @Override
+        public List<String> sample(String roomId, int limit) {
+            Room room = rooms.get(roomId);
+            if (room == null) return new ArrayList<>();
+            synchronized (room) {
+                return room.lastSeen.entrySet().stream()
+                        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                        .limit(limit)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toCollection(ArrayList::new));
+            }
+        }
+
+        @Override
+        public Snapshot snapshot(String roomId, int limit) {
+            Room room = rooms.get(roomId);
+            if (room == null) return new Snapshot(0L, 0, List.of());
+            synchronized (room) {
+                return new Snapshot(room.version, room.lastSeen.size(), sample(roomId, limit));
+            }
+        }
+    }
+
+    static final class InMemoryLeaderboardService extends LeaderboardService {
+
+        private static final Comparator<Map.Entry<String, Integer>> BY_SCORE =
+                Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+        private final Map<String, Board> boards = new ConcurrentHashMap<>();
+        private final Duration latency;
+
+        InMemoryLeaderboardService(Duration latency) {
+            super(null, null, unusedGuard());
+            this.latency = latency;
+        }
+
+        private static final class Board {
+            final Map<String, Integer> best = new HashMap<>();
+            final TreeSet<Map.Entry<String, Integer>> ranked = new TreeSet<>(BY_SCORE);
+        }
+
+        @Override
+        public int submit(String gameScope, String nickname, int score) {
+            roundTrip(latency);
+            Board board = boards.computeIfAbsent(gameScope, k -> new Board());
+            synchronized (board) {
+                Integer existing = board.best.get(nickname);
+                if (existing != null && existing >= score) return existing;
+                if (existing != null) board.ranked.remove(Map.entry(nickname, existing));
+                board.best.put(nickname, score);
+                board.ranked.add(Map.entry(nickname, score));
+                return score;
+            }
+        }
+
+        @Override
+        public List<Entry> topN(String gameScope, int n) {
+            roundTrip(latency);
+            Board board = boards.get(gameScope);
+            List<Entry> result = new ArrayList<>();
+            if (board == null) return result;
+            synchronized (board) {
+                for (Map.Entry<String, Integer> ranked : board.ranked) {
+                    if (result.size() == n) break;
+                    Entry e = new Entry();
+                    e.nickname = ranked.getKey();
+                    e.value = ranked.getValue();
+                    result.add(e);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Integer rankOf(String gameScope, String nickname) {
+            roundTrip(latency);
+            Board board = boards.get(gameScope);
+            if (board == null) return null;
+            synchronized (board) {
+                Integer score = board.best.get(nickname);
+                if (score == null) return null;
+                return board.ranked.headSet(Map.entry(nickname, score)).size() + 1;
+            }
+        }
+    }
+}
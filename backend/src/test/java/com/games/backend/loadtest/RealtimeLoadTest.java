@@ -0,0 +1,362 @@
+package com.games.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.games.backend.realtime.dto.RealtimeDtos.ChatIn;
+import com.games.backend.realtime.dto.RealtimeDtos.Envelope;
+import com.games.backend.realtime.dto.RealtimeDtos.MoveIn;
+import com.games.backend.realtime.dto.RealtimeDtos.PresenceIn;
+import com.games.backend.realtime.dto.RealtimeDtos.Room;
+import com.games.backend.realtime.dto.RealtimeDtos.ScoreIn;
+import com.games.backend.realtime.dto.RealtimeDtos.User;
+import com.games.backend.security.JwtTokenProvider;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * STOMP throughput of the whole realtime stack: thousands of WebSocket clients, each on its own
+ * virtual thread, join rooms and drive a weighted mix of presence heartbeats, chat, score and
+ * move messages against a backend started in-process. Redis is replaced by
+ * {@link InMemoryRedisStandIns} and Postgres by H2, so the run needs no network or containers
+ * and gives repeatable numbers on one Linux box.
+ * <p>
+ * Chat texts and move notations carry the sender's {@link System#nanoTime()}; every subscriber
+ * that receives one records the delivery latency. Reports sent and delivered messages per second
+ * (per type) and p50/p99 delivery latency.
+ * <p>
+ * Excluded from the default build. Run with:
+ * {@code mvn -pl backend test -Ploadtest -Dtest=RealtimeLoadTest} (tune with
+ * {@code -Dloadtest.clients}, {@code -Dloadtest.seconds}, {@code -Dloadtest.rooms},
+ * {@code -Dloadtest.rate} (messages per client per second), {@code -Dloadtest.game} and
+ * {@code -Dloadtest.mix=presence:40,chat:30,score:10,move:20}). Raise the open file limit
+ * ({@code ulimit -n}) above twice the client count first.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.jwtSecret=AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8gISIjJCUmJygpKissLS4vMDEyMzQ1Njc4OTo7PD0+Pw==",
+        "app.jwtExpirationInMs=3600000",
+        "anticheat.run.mode=hmac",
+        "chat.history.redis-enabled=false",
+        "features.store.redis-enabled=false",
+        "management.health.redis.enabled=false",
+        "server.tomcat.max-connections=20000",
+        "logging.level.root=WARN"
+})
+@Import({InMemoryRedisStandIns.class, FirebaseStandIns.class})
+class RealtimeLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 1000);
+    private static final long SECONDS = Long.getLong("loadtest.seconds", 30);
+    private static final int ROOMS = Integer.getInteger("loadtest.rooms", 50);
+    private static final double RATE = Double.parseDouble(System.getProperty("loadtest.rate", "1"));
+    private static final String GAME = System.getProperty("loadtest.game", "chess");
+    private static final String MIX = System.getProperty("loadtest.mix", "presence:40,chat:30,score:10,move:20");
+    private static final int MAX_PENDING_HANDSHAKES = 200;
+    private static final String STAMP = "lt:";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private final Timer latency = Timer.builder("loadtest.delivery.latency")
+            .publishPercentiles(0.5, 0.99)
+            .distributionStatisticExpiry(Duration.ofHours(1))
+            .distributionStatisticBufferLength(1)
+            .register(new SimpleMeterRegistry());
+    private final Map<String, LongAdder> sent = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> delivered = new ConcurrentHashMap<>();
+    private final LongAdder transportErrors = new LongAdder();
+    private volatile boolean measuring;
+
+    @Test
+    void drivesMixedStompTrafficAndReportsDeliveryLatency() throws Exception {
+        Map<String, Integer> mix = parseMix(MIX);
+        WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        stomp.setDefaultHeartbeat(new long[] {0, 0});
+
+        List<Client> clients = connect(stomp);
+        assertThat(clients).as("connected clients").isNotEmpty();
+
+        long start;
+        long elapsedNanos;
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            measuring = true;
+            start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(SECONDS);
+            for (Client client : clients) {
+                senders.submit(() -> client.drive(mix, deadline));
+            }
+            senders.shutdown();
+            senders.awaitTermination(SECONDS + 30, TimeUnit.SECONDS);
+            elapsedNanos = System.nanoTime() - start;
+            measuring = false;
+        } finally {
+            for (Client client : clients) {
+                if (client.session.isConnected()) client.session.disconnect();
+            }
+            stomp.stop();
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        long sentTotal = total(sent);
+        long deliveredTotal = total(delivered);
+        System.out.printf("[loadtest] game=%s clients=%d/%d rooms=%d rate=%.1f/s mix=%s%n",
+                GAME, clients.size(), CLIENTS, ROOMS, RATE, mix);
+        System.out.printf("[loadtest] sent=%.0f msg/s %s delivered=%.0f msg/s %s transportErrors=%d%n",
+                sentTotal / seconds, perSecond(sent, seconds), deliveredTotal / seconds,
+                perSecond(delivered, seconds), transportErrors.sum());
+        System.out.printf("[loadtest] delivery latency p50=%.2fms p99=%.2fms max=%.2fms samples=%d%n",
+                percentileMillis(0.5), percentileMillis(0.99), latency.max(TimeUnit.MILLISECONDS), latency.count());
+
+        assertThat(sentTotal).isPositive();
+        assertThat(deliveredTotal).isPositive();
+    }
+
+    private List<Client> connect(WebSocketStompClient stomp) throws InterruptedException {
+        String url = "ws://localhost:" + port + "/ws-native";
+        List<Client> clients = new ArrayList<>();
+        Semaphore pending = new Semaphore(MAX_PENDING_HANDSHAKES);
+        try (ExecutorService connectors = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Client>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                String nickname = "load-" + i;
+                String roomId = GAME + ":load-" + (i % ROOMS);
+                futures.add(connectors.submit(() -> {
+                    pending.acquire();
+                    try {
+                        return connect(stomp, url, nickname, roomId);
+                    } finally {
+                        pending.release();
+                    }
+                }));
+            }
+            for (Future<Client> future : futures) {
+                try {
+                    clients.add(future.get());
+                } catch (ExecutionException e) {
+                    transportErrors.increment();
+                }
+            }
+        }
+        return clients;
+    }
+
+    private Client connect(WebSocketStompClient stomp, String url, String nickname, String roomId) throws Exception {
+        UserDetails user = org.springframework.security.core.userdetails.User.withUsername(nickname)
+                .password("N/A").authorities("ROLE_USER").build();
+        String token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        WebSocketHttpHeaders handshake = new WebSocketHttpHeaders();
+        handshake.add("Authorization", "Bearer " + token);
+        StompHeaders connect = new StompHeaders();
+        connect.add("Authorization", "Bearer " + token);
+
+        StompSession session = stomp.connectAsync(url, handshake, connect, new StompSessionHandlerAdapter() {
+            @Override
+            public void handleTransportError(StompSession s, Throwable exception) {
+                transportErrors.increment();
+            }
+        }).get(30, TimeUnit.SECONDS);
+        for (String kind : List.of("presence", "chat", "leaderboard", "match")) {
+            session.subscribe("/topic/" + GAME + "/" + kind + "/" + roomId, receiver);
+        }
+        Client client = new Client(session, nickname, roomId);
+        client.send("presence", presence("join"));
+        return client;
+    }
+
+    private final StompFrameHandler receiver = new StompFrameHandler() {
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            if (!measuring || !(payload instanceof JsonNode env)) return;
+            long now = System.nanoTime();
+            String type = env.path("type").asText("unknown");
+            delivered.computeIfAbsent(type, k -> new LongAdder()).increment();
+            String stamp = switch (type) {
+                case "chat" -> env.path("payload").path("text").asText("");
+                case "move" -> STAMP + env.path("payload").path("notation").asText("");
+                default -> "";
+            };
+            if (stamp.startsWith(STAMP)) {
+                try {
+                    latency.record(now - Long.parseLong(stamp.substring(STAMP.length())), TimeUnit.NANOSECONDS);
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+    };
+
+    private final class Client {
+        final StompSession session;
+        final String nickname;
+        final String roomId;
+
+        Client(StompSession session, String nickname, String roomId) {
+            this.session = session;
+            this.nickname = nickname;
+            this.roomId = roomId;
+        }
+
+        // One sender per session: STOMP sessions are not safe for concurrent sends
+        void drive(Map<String, Integer> mix, long deadline) {
+            int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / RATE);
+            long next = System.nanoTime() + ThreadLocalRandom.current().nextLong(interval);
+            while (next < deadline && session.isConnected()) {
+                LockSupport.parkNanos(next - System.nanoTime());
+                if (Thread.currentThread().isInterrupted()) return;
+                String kind = pick(mix, ThreadLocalRandom.current().nextInt(totalWeight));
+                try {
+                    send(kind, payload(kind));
+                } catch (RuntimeException e) {
+                    transportErrors.increment();
+                }
+                next += interval;
+            }
+        }
+
+        void send(String kind, Object payload) {
+            Envelope<Object> env = new Envelope<>();
+            env.type = kind;
+            env.room = new Room();
+            env.room.id = roomId;
+            env.room.game = GAME;
+            env.user = new User();
+            env.user.id = nickname;
+            env.user.nickname = nickname;
+            env.user.role = "user";
+            env.payload = payload;
+            session.send(destination(kind), env);
+            if (measuring) sent.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+    }
+
+    private static Object payload(String kind) {
+        return switch (kind) {
+            case "presence" -> presence("heartbeat");
+            case "chat" -> {
+                ChatIn chat = new ChatIn();
+                chat.text = STAMP + System.nanoTime();
+                yield chat;
+            }
+            case "score" -> {
+                ScoreIn score = new ScoreIn();
+                score.value = ThreadLocalRandom.current().nextInt(10_000);
+                yield score;
+            }
+            case "move" -> {
+                MoveIn move = new MoveIn();
+                move.from = "e2";
+                move.to = "e4";
+                move.notation = Long.toString(System.nanoTime());
+                yield move;
+            }
+            default -> throw new IllegalArgumentException("unknown message kind: " + kind);
+        };
+    }
+
+    private static PresenceIn presence(String status) {
+        PresenceIn presence = new PresenceIn();
+        presence.status = status;
+        return presence;
+    }
+
+    private static String destination(String kind) {
+        return switch (kind) {
+            case "score" -> "snake".equals(GAME) ? "/app/snake/score" : "/app/" + GAME + "/leaderboard";
+            default -> "/app/" + GAME + "/" + kind;
+        };
+    }
+
+    // "presence:40,chat:30,..." -> weights; snake has no move handler
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            String kind = kv[0].trim();
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (!List.of("presence", "chat", "score", "move").contains(kind)) {
+                throw new IllegalArgumentException("unknown message kind in loadtest.mix: " + kind);
+            }
+            if (weight > 0 && !("snake".equals(GAME) && "move".equals(kind))) mix.put(kind, weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("loadtest.mix selects no messages: " + spec);
+        return mix;
+    }
+
+    private static String pick(Map<String, Integer> mix, int roll) {
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) return e.getKey();
+        }
+        throw new IllegalStateException("roll outside mix weights");
+    }
+
+    private double percentileMillis(double percentile) {
+        for (ValueAtPercentile v : latency.takeSnapshot().percentileValues()) {
+            if (v.percentile() == percentile) return v.value(TimeUnit.MILLISECONDS);
+        }
+        return Double.NaN;
+    }
+
+    private static long total(Map<String, LongAdder> counts) {
+        return counts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static Map<String, String> perSecond(Map<String, LongAdder> counts, double seconds) {
+        Map<String, String> res = new TreeMap<>();
+        counts.forEach((type, count) -> res.put(type, String.format("%.0f", count.sum() / seconds)));
+        return res;
+    }
+}
@@ -1,24 +1,33 @@
 package com.games.backend.realtime;
 
+import com.games.backend.controller.GameRunController;
 import com.games.backend.features.FeatureFlagsService;
+import com.games.backend.features.FlagSnapshot;
 import com.games.backend.realtime.dto.RealtimeDtos.*;
+import com.games.backend.service.ChatHistoryService;
 import com.games.backend.service.LeaderboardService;
 import com.games.backend.service.PresenceService;
 import com.games.backend.service.ProfanityFilter;
 import com.games.backend.service.RunIdService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
 
+import java.security.Principal;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,6 +49,14 @@ class ChessRealtimeControllerTest {
   private RunIdService runIdService;
   @Mock
   private FeatureFlagsService flags;
+  private final Map<String, Boolean> flagValues = new HashMap<>();
+  @Mock
+  private ChatHistoryService chatHistory;
+
+  @Mock
+  private RealtimeMetrics metrics;
+  @Spy
+  private RoomRegistry rooms = new RoomRegistry(new SimpleMeterRegistry());
 
   @InjectMocks
   private ChessRealtimeController controller;
@@ -63,31 +80,90 @@ class ChessRealtimeControllerTest {
   @BeforeEach
   void setup() {
     lenient().when(profanity.filter(anyString())).thenAnswer(inv -> inv.getArgument(0));
-    lenient().when(flags.isEnabled("realtime_enabled")).thenReturn(true);
-    lenient().when(flags.isEnabled("chess_enabled")).thenReturn(true);
-    lenient().when(flags.isEnabled("anti_cheat_enabled")).thenReturn(false);
+    lenient().when(flags.snapshot()).thenAnswer(inv -> FlagSnapshot.of(flagValues));
+    flagValues.put("realtime_enabled", true);
+    flagValues.put("chat_enabled", true);
+    flagValues.put("chess_enabled", true);
+    flagValues.put("anti_cheat_enabled", false);
   }
 
   @Test
-  void presence_join_broadcastsCount() {
+  void presence_join_broadcastsDelta() {
     // Given
-    when(presenceService.count(anyString())).thenReturn(1);
-    when(presenceService.sample(anyString(), anyInt())).thenReturn(Collections.singletonList("Bo|test-id"));
+    when(presenceService.join(anyString(), anyString()))
+        .thenReturn(new PresenceService.Update(7L, 2, true, List.of("Bo|stale-id")));
 
     // When
-    controller.presence(presenceEnv("Ari", "join"), null);
+    controller.presence(presenceEnv("Ari", "join"), null, "session-1");
 
     // Then
     ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
-    verify(broker).convertAndSend(eq("/topic/chess/presence"), captor.capture());
+    verify(broker).convertAndSend(eq("/topic/chess/presence/chess:global"), captor.capture());
 
     Envelope<?> sent = captor.getValue();
-    assertThat(sent.type).isEqualTo("presence");
-    PresenceOut out = (PresenceOut) sent.payload;
-    assertThat(out.count).isGreaterThanOrEqualTo(1);
-    assertThat(out.users).isNotNull();
-    assertThat(out.users).hasSize(2);
-    assertThat(out.users.get(0).nickname).isIn("Ari", "Bo");
+    assertThat(sent.type).isEqualTo("presence_delta");
+    PresenceDelta delta = (PresenceDelta) sent.payload;
+    assertThat(delta.version).isEqualTo(7L);
+    assertThat(delta.count).isEqualTo(2);
+    assertThat(delta.joined).hasSize(1);
+    assertThat(delta.joined.get(0).nickname).isEqualTo("Ari");
+    assertThat(delta.joined.get(0).id).isEqualTo("Ari|session-1");
+    assertThat(delta.left).containsExactly("Bo|stale-id");
+  }
+
+  @Test
+  void presence_heartbeatWithoutChange_isNotBroadcast() {
+    // Given
+    when(presenceService.heartbeat(anyString(), anyString()))
+        .thenReturn(new PresenceService.Update(7L, 2, false, List.of()));
+
+    // When
+    controller.presence(presenceEnv("Ari", "heartbeat"), null, "session-1");
+
+    // Then
+    verifyNoInteractions(broker);
+  }
+
+  @Test
+  void presenceSnapshot_returnsMembersWithVersion() {
+    // Given
+    when(presenceService.snapshot(anyString(), anyInt()))
+        .thenReturn(new PresenceService.Snapshot(7L, 2, List.of("Ari|a", "Bo|b")));
+
+    // When
+    Envelope<PresenceOut> res = controller.presenceSnapshot(presenceEnv("Ari", "heartbeat"), null);
+
+    // Then
+    assertThat(res.type).isEqualTo("presence");
+    assertThat(res.payload.version).isEqualTo(7L);
+    assertThat(res.payload.count).isEqualTo(2);
+    assertThat(res.payload.users).extracting(u -> u.nickname).containsExactly("Ari", "Bo");
+  }
+
+  @Test
+  void leaderboard_acceptsARunStartedThroughTheChessEndpoint() {
+    flagValues.put("anti_cheat_enabled", true);
+    RunIdService runs = new RunIdService(null, null, "hmac", 600, "test-secret", "jwt-secret", 1000);
+    ChessRealtimeController chess = new ChessRealtimeController(broker, profanity, presenceService,
+        leaderboardService, runs, flags, chatHistory, metrics, rooms);
+    UserDetails alice = org.springframework.security.core.userdetails.User.withUsername("alice").password("x").roles("USER").build();
+    Principal principal = () -> "alice";
+
+    Envelope<ScoreIn> env = new Envelope<>();
+    env.type = "leaderboard";
+    env.room = new Room();
+    env.room.id = "chess:global";
+    env.user = new User();
+    env.user.nickname = "Bo";
+    env.payload = new ScoreIn();
+    env.payload.value = 42;
+    env.payload.runId = (String) new GameRunController(runs).startRun("chess", alice).getBody().get("runId");
+
+    chess.leaderboard(env, principal);
+    chess.leaderboard(env, principal);
+
+    verify(leaderboardService).submit("chess:global", "alice", 42);
+    verify(metrics).rejected("chess", "leaderboard", "anti_cheat");
   }
 
   @Test
@@ -113,15 +189,66 @@ class ChessRealtimeControllerTest {
     env.payload.runId = "dummy";
 
     // When
-    controller.leaderboard(env);
+    controller.leaderboard(env, null);
 
     // Then
     ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
-    verify(broker).convertAndSend(eq("/topic/chess/leaderboard"), captor.capture());
+    verify(broker).convertAndSend(eq("/topic/chess/leaderboard/chess:global"), captor.capture());
     Envelope<?> sent = captor.getValue();
     assertThat(sent.type).isEqualTo("leaderboard");
     LeaderboardOut out = (LeaderboardOut) sent.payload;
     assertThat(out.top).extracting(e -> e.nickname).contains("Bo");
     assertThat(out.yourRank).isEqualTo(1);
   }
+
+  @Test
+  void move_isBroadcastToItsRoomOnly() {
+    // Given
+    Envelope<MoveIn> env = new Envelope<>();
+    env.type = "move";
+    env.room = new Room();
+    env.room.id = "chess:table-7";
+    env.user = new User();
+    env.user.nickname = "Bo";
+    env.payload = new MoveIn();
+    env.payload.from = "e2";
+    env.payload.to = "e4";
+
+    // When
+    controller.move(env, null);
+    env.room.id = "checkers:table-7";
+    controller.move(env, null);
+
+    // Then: a foreign room id falls back to the game's global room
+    verify(broker).convertAndSend(eq("/topic/chess/match/chess:table-7"), any(Object.class));
+    verify(broker).convertAndSend(eq("/topic/chess/match/chess:global"), any(Object.class));
+  }
+
+  @Test
+  void privateRoom_dropsMessagesFromNonMembers() {
+    // Given
+    rooms.restrict("chess:match-9", "alice");
+    Envelope<MoveIn> env = new Envelope<>();
+    env.room = new Room();
+    env.room.id = "chess:match-9";
+    env.user = new User();
+    env.user.nickname = "Eve";
+    env.payload = new MoveIn();
+    env.payload.from = "e2";
+    env.payload.to = "e4";
+    Envelope<PresenceIn> snapshotEnv = presenceEnv("Eve", "heartbeat");
+    snapshotEnv.room.id = "chess:match-9";
+
+    // When
+    controller.move(env, () -> "eve");
+    controller.move(env, null);
+    Envelope<PresenceOut> snapshot = controller.presenceSnapshot(snapshotEnv, () -> "eve");
+    controller.move(env, () -> "alice");
+
+    // Then: only the member's move reaches the room
+    assertThat(snapshot).isNull();
+    verifyNoInteractions(presenceService);
+    verify(broker, times(1)).convertAndSend(eq("/topic/chess/match/chess:match-9"), any(Object.class));
+    verify(metrics, times(2)).rejected("chess", "move", "not_member");
+  }
 }
@@ -0,0 +1,115 @@
+package com.games.backend.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import com.games.backend.service.LeaderboardService;
+import com.games.backend.service.LeaderboardVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaderboardStreamTest {
+
+    private static final String SCOPE = "snake:global";
+
+    /** Records the raw text of every event instead of writing to a response. */
+    static class CapturingEmitter extends SseEmitter {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            for (var part : builder.build()) text.append(part.getData());
+            events.add(text.toString());
+        }
+    }
+
+    private final LeaderboardService leaderboardService = mock(LeaderboardService.class);
+    private final LeaderboardVersions versions = mock(LeaderboardVersions.class);
+    private final List<CapturingEmitter> emitters = new ArrayList<>();
+    private LeaderboardStream stream;
+
+    @BeforeEach
+    void setUp() {
+        // Sends run on the calling thread so the test is deterministic
+        stream = new LeaderboardStream(leaderboardService, versions, new ObjectMapper(),
+                new SimpleMeterRegistry(), Runnable::run) {
+            @Override
+            SseEmitter newEmitter(long timeout) {
+                CapturingEmitter emitter = new CapturingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        when(versions.current(SCOPE)).thenReturn(3L);
+        Entry alice = new Entry();
+        alice.nickname = "alice";
+        alice.value = 120;
+        when(leaderboardService.topN(SCOPE, 10)).thenReturn(List.of(alice));
+    }
+
+    @Test
+    void subscriberGetsTheCurrentSnapshotTaggedWithItsVersion() {
+        stream.subscribe(SCOPE, null);
+
+        String event = emitters.get(0).events.get(0);
+        assertThat(event).contains("id:3").contains("event:leaderboard").contains("\"alice\"");
+    }
+
+    @Test
+    void lastEventIdOfTheCurrentVersionSkipsTheInitialSnapshot() {
+        stream.subscribe(SCOPE, "3");
+
+        assertThat(emitters.get(0).events).hasSize(1);
+        assertThat(emitters.get(0).events.get(0)).startsWith(":keep-alive");
+    }
+
+    @Test
+    void snapshotIsLoadedOncePerVersionForAllViewers() {
+        stream.subscribe(SCOPE, null);
+        stream.subscribe(SCOPE, null);
+        stream.publish();
+
+        when(versions.current(SCOPE)).thenReturn(5L);
+        stream.publish();
+        stream.publish();
+
+        verify(leaderboardService, times(2)).topN(SCOPE, 10);
+        for (CapturingEmitter e : emitters) {
+            assertThat(e.events).hasSize(2);
+            assertThat(e.events.get(1)).contains("id:5");
+        }
+    }
+
+    @Test
+    void viewersBeyondTheLimitAreRefused() {
+        ReflectionTestUtils.setField(stream, "maxViewers", 1);
+
+        assertThat(stream.subscribe(SCOPE, null)).isNotNull();
+        assertThat(stream.subscribe(SCOPE, null)).isNull();
+    }
+
+    @Test
+    void failedLoadKeepsServingTheLastSnapshot() {
+        stream.subscribe(SCOPE, null);
+        when(versions.current(SCOPE)).thenReturn(4L);
+        when(leaderboardService.topN(SCOPE, 10)).thenThrow(new IllegalStateException("redis down"));
+
+        stream.publish();
+
+        assertThat(emitters.get(0).events).hasSize(1);
+        verify(leaderboardService, times(2)).topN(SCOPE, 10);
+    }
+}
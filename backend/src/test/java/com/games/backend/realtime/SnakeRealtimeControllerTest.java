@@ -1,25 +1,37 @@
 package com.games.backend.realtime;
 
 import com.games.backend.features.FeatureFlagsService;
+import com.games.backend.features.FlagSnapshot;
+import com.games.backend.features.FlagStore;
 import com.games.backend.realtime.dto.RealtimeDtos.*;
+import com.games.backend.service.ChatHistoryService;
 import com.games.backend.service.LeaderboardService;
 import com.games.backend.service.PresenceService;
 import com.games.backend.service.ProfanityFilter;
 import com.games.backend.service.RunIdService;
+import com.games.backend.service.SnakeReplayVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.security.Principal;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -47,6 +59,20 @@ class SnakeRealtimeControllerTest {
 
   @Mock
   private FeatureFlagsService flags;
+  private final Map<String, Boolean> flagValues = new HashMap<>();
+
+  @Mock
+  private ChatHistoryService chatHistory;
+
+  @Mock
+  private RealtimeMetrics metrics;
+  @Spy
+  private RoomRegistry rooms = new RoomRegistry(new SimpleMeterRegistry());
+
+  @Mock
+  private SnakeReplayVerifier replayVerifier;
+  @Spy
+  private Executor scorePublisher = new CallerRunsExecutor();
 
   @InjectMocks
   private SnakeRealtimeController controller;
@@ -62,8 +88,10 @@ class SnakeRealtimeControllerTest {
 
       // Default mock behaviors
       lenient().when(profanity.filter(anyString())).thenAnswer(inv -> inv.getArgument(0));
-      lenient().when(flags.isEnabled("realtime_enabled")).thenReturn(true);
-      lenient().when(flags.isEnabled("anti_cheat_enabled")).thenReturn(false);
+      lenient().when(flags.snapshot()).thenAnswer(inv -> FlagSnapshot.of(flagValues));
+      flagValues.put("realtime_enabled", true);
+      flagValues.put("chat_enabled", true);
+      flagValues.put("anti_cheat_enabled", false);
 
         /*// Mock leaderboard service to return a test entry
         Entry testEntry = new Entry();
@@ -79,29 +107,60 @@ class SnakeRealtimeControllerTest {
     }
 
   @Test
-  void presence_join_broadcastsCount() {
+  void presence_join_broadcastsDelta() {
     // Given
-    when(presenceService.count(anyString())).thenReturn(1);
-    when(presenceService.sample(anyString(), anyInt())).thenReturn(Collections.singletonList("Bo|test-id"));
+    when(presenceService.join(anyString(), anyString()))
+        .thenReturn(new PresenceService.Update(7L, 2, true, List.of("Bo|stale-id")));
 
     // When
-    controller.presence(presenceEnv("Ari", "join"), null);
+    controller.presence(presenceEnv("Ari", "join"), null, "session-1");
 
     // Then
     ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
-    verify(broker).convertAndSend(eq("/topic/snake/presence"), captor.capture());
+    verify(broker).convertAndSend(eq("/topic/snake/presence/snake:global"), captor.capture());
 
     Envelope<?> sent = captor.getValue();
-    assertThat(sent.type).isEqualTo("presence");
-    PresenceOut out = (PresenceOut) sent.payload;
-    assertThat(out.count).isGreaterThanOrEqualTo(1);
-    assertThat(out.users).isNotNull();
-    assertThat(out.users).hasSize(2);
-    assertThat(out.users.get(0).nickname).isIn("Ari", "Bo"); // Either the test user or the mocked one
+    assertThat(sent.type).isEqualTo("presence_delta");
+    PresenceDelta delta = (PresenceDelta) sent.payload;
+    assertThat(delta.version).isEqualTo(7L);
+    assertThat(delta.count).isEqualTo(2);
+    assertThat(delta.joined).hasSize(1);
+    assertThat(delta.joined.get(0).nickname).isEqualTo("Ari");
+    assertThat(delta.joined.get(0).id).isEqualTo("Ari|session-1");
+    assertThat(delta.left).containsExactly("Bo|stale-id");
+  }
+
+  @Test
+  void presence_heartbeatWithoutChange_isNotBroadcast() {
+    // Given
+    when(presenceService.heartbeat(anyString(), anyString()))
+        .thenReturn(new PresenceService.Update(7L, 2, false, List.of()));
+
+    // When
+    controller.presence(presenceEnv("Ari", "heartbeat"), null, "session-1");
+
+    // Then
+    verifyNoInteractions(broker);
+  }
+
+  @Test
+  void presenceSnapshot_returnsMembersWithVersion() {
+    // Given
+    when(presenceService.snapshot(anyString(), anyInt()))
+        .thenReturn(new PresenceService.Snapshot(7L, 2, List.of("Ari|a", "Bo|b")));
+
+    // When
+    Envelope<PresenceOut> res = controller.presenceSnapshot(presenceEnv("Ari", "heartbeat"), null);
+
+    // Then
+    assertThat(res.type).isEqualTo("presence");
+    assertThat(res.payload.version).isEqualTo(7L);
+    assertThat(res.payload.count).isEqualTo(2);
+    assertThat(res.payload.users).extracting(u -> u.nickname).containsExactly("Ari", "Bo");
   }
 
     private void setRealtimeEnabled(boolean v) {
-        when(flags.isEnabled("realtime_enabled")).thenReturn(v);
+        flagValues.put("realtime_enabled", v);
     }
 
     private static Envelope<PresenceIn> presenceEnv(String nickname, String status) {
@@ -145,50 +204,140 @@ class SnakeRealtimeControllerTest {
 
     @Test
     void score_oversized_isIgnored() {
-        controller.score(scoreEnv("Bo", 1_000_001));
-      verify(broker, never()).convertAndSend(eq("/topic/snake/leaderboard"), (Object) any());
+        controller.score(scoreEnv("Bo", 1_000_001), null);
+      verify(broker, never()).convertAndSend(eq("/topic/snake/leaderboard/snake:global"), (Object) any());
     }
 
     @Test
     void score_valid_broadcastsLeaderboard() {
       // Given
       Entry testEntry = new Entry();
-      testEntry.nickname = "Bo";
+      testEntry.nickname = "guest:Bo";
       testEntry.value = 123;
       when(leaderboardService.topN(anyString(), anyInt())).thenReturn(List.of(testEntry));
 
       // When
-        controller.score(scoreEnv("Bo", 123));
+        controller.score(scoreEnv("Bo", 123), null);
 
       // Then
         ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
-        verify(broker).convertAndSend(eq("/topic/snake/leaderboard"), captor.capture());
+        verify(broker).convertAndSend(eq("/topic/snake/leaderboard/snake:global"), captor.capture());
 
         Envelope<?> sent = captor.getValue();
         assertThat(sent.type).isEqualTo("leaderboard");
         LeaderboardOut out = (LeaderboardOut) sent.payload;
-      assertThat(out.top).isNotEmpty();
+      // Guests are filed under a prefixed nickname so they cannot take over an account's entry,
+      // and shown without the prefix
+      verify(leaderboardService).submit("snake:global", "guest:Bo", 123);
+      assertThat(out.top).hasSize(1);
       assertThat(out.top.get(0).nickname).isEqualTo("Bo");
-      assertThat(out.top).extracting(e -> e.nickname).contains("Bo");
+      assertThat(out.top.get(0).guest).isTrue();
+    }
+
+    @Test
+    void score_antiCheat_consumesRunIdForSubmittingUser() {
+        flagValues.put("anti_cheat_enabled", true);
+        when(runIdService.validateAndConsume("run-1", "alice", "snake")).thenReturn(false);
+        Envelope<ScoreIn> env = scoreEnv("Bo", 123);
+        env.payload.runId = "run-1";
+
+        controller.score(env, new TestPrincipal("alice"));
+
+        verify(runIdService).validateAndConsume("run-1", "alice", "snake");
+        verifyNoInteractions(leaderboardService, broker);
+        verify(metrics).rejected("snake", "score", "anti_cheat");
+    }
+
+    @Test
+    void score_replayVerification_rejectsScoreTheProofDoesNotReproduce() {
+        flagValues.put("anti_cheat_enabled", true);
+        flagValues.put("snake_replay_verification", true);
+        when(runIdService.validateAndConsume("run-1", "alice", "snake")).thenReturn(true);
+        when(replayVerifier.verify("run-1", "a.BC", 123)).thenReturn(CompletableFuture.completedFuture(false));
+        Envelope<ScoreIn> env = scoreEnv("Bo", 123);
+        env.payload.runId = "run-1";
+        env.payload.proof = "a.BC";
+
+        controller.score(env, new TestPrincipal("alice"));
+
+        verifyNoInteractions(leaderboardService, broker);
+    }
+
+    @Test
+    void score_replayVerification_publishesVerifiedScore() {
+        flagValues.put("anti_cheat_enabled", true);
+        flagValues.put("snake_replay_verification", true);
+        when(runIdService.validateAndConsume("run-1", "alice", "snake")).thenReturn(true);
+        when(replayVerifier.verify("run-1", "a.BC", 123)).thenReturn(CompletableFuture.completedFuture(true));
+        Envelope<ScoreIn> env = scoreEnv("Bo", 123);
+        env.payload.runId = "run-1";
+        env.payload.proof = "a.BC";
+
+        controller.score(env, new TestPrincipal("alice"));
+
+        verify(leaderboardService).submit("snake:global", "alice", 123);
+        verify(scorePublisher).execute(any());
+    }
+
+    @Test
+    void score_replayVerification_publishFailure_isCountedNotThrown() {
+        flagValues.put("anti_cheat_enabled", true);
+        flagValues.put("snake_replay_verification", true);
+        when(runIdService.validateAndConsume("run-1", "alice", "snake")).thenReturn(true);
+        when(replayVerifier.verify("run-1", "a.BC", 123)).thenReturn(CompletableFuture.completedFuture(true));
+        when(leaderboardService.submit("snake:global", "alice", 123)).thenThrow(new IllegalStateException("redis down"));
+        Envelope<ScoreIn> env = scoreEnv("Bo", 123);
+        env.payload.runId = "run-1";
+        env.payload.proof = "a.BC";
+
+        controller.score(env, new TestPrincipal("alice"));
+
+        verify(metrics).rejected("snake", "score", "publish_failed");
+        verify(broker, never()).convertAndSend(anyString(), any(Object.class));
     }
 
     @Test
     void chat_blank_isIgnored() {
-        controller.chat(chatEnv("Chen", "   "));
-      verify(broker, never()).convertAndSend(eq("/topic/snake/chat"), (Object) any());
+        controller.chat(chatEnv("Chen", "   "), null);
+      verify(broker, never()).convertAndSend(eq("/topic/snake/chat/snake:global"), (Object) any());
     }
 
     @Test
     void chat_filtersProfanity_andBroadcasts() {
         when(profanity.filter("badword here")).thenReturn("******* here");
-        controller.chat(chatEnv("Chen", "badword here"));
+        controller.chat(chatEnv("Chen", "badword here"), null);
         ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
-      verify(broker).convertAndSend(eq("/topic/snake/chat"), captor.capture());
+      verify(broker).convertAndSend(eq("/topic/snake/chat/snake:global"), captor.capture());
         Envelope<?> sent = captor.getValue();
         ChatOut out = (ChatOut) sent.payload;
         assertThat(out.text).contains("*");
     }
 
+    @Test
+    void chat_isRecordedInRoomHistory() {
+        controller.chat(chatEnv("Chen", "hi"), null);
+        ArgumentCaptor<ChatOut> captor = ArgumentCaptor.forClass(ChatOut.class);
+        verify(chatHistory).append(eq("snake:global"), captor.capture());
+        assertThat(captor.getValue().text).isEqualTo("hi");
+    }
+
+    @Test
+    void presence_join_sendsChatHistoryToJoiningSessionOnly() {
+        ChatOut earlier = new ChatOut();
+        earlier.nickname = "Bo";
+        earlier.text = "gg";
+        when(chatHistory.recent("snake:global")).thenReturn(List.of(earlier));
+
+        controller.presence(presenceEnv("Ari", "join"), null, "session-1");
+
+        ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(broker).convertAndSendToUser(eq("session-1"), eq("/queue/snake/chat"), captor.capture(), headers.capture());
+        assertThat(captor.getValue().type).isEqualTo("chat_history");
+        assertThat(((ChatHistoryOut) captor.getValue().payload).messages).containsExactly(earlier);
+        assertThat(SimpMessageHeaderAccessor.getSessionId(headers.getValue())).isEqualTo("session-1");
+    }
+
   private record TestPrincipal(String name) implements Principal {
 
     @Override
@@ -197,12 +346,49 @@ class SnakeRealtimeControllerTest {
     }
   }
 
+    @Test
+    void chatFlag_turnedOffInStore_stopsChatAndHistoryReplay() {
+        FlagStore store = new FlagStore(null, null, false);
+        store.put("realtime_enabled", "true");
+        store.put("chat_enabled", "true");
+        FeatureFlagsService storeFlags = new FeatureFlagsService(store);
+        ReflectionTestUtils.invokeMethod(storeFlags, "init");
+        SnakeRealtimeController live = new SnakeRealtimeController(broker, profanity, presenceService,
+                leaderboardService, runIdService, storeFlags, chatHistory, replayVerifier, metrics, rooms);
+        ChatOut earlier = new ChatOut();
+        earlier.text = "gg";
+        when(chatHistory.recent("snake:global")).thenReturn(List.of(earlier));
+
+        storeFlags.toggle("chat_enabled", false);
+        live.chat(chatEnv("Chen", "hi"), null);
+        live.presence(presenceEnv("Ari", "join"), null, "session-1");
+
+        verify(broker, never()).convertAndSend(eq("/topic/snake/chat/snake:global"), (Object) any());
+        verify(broker, never()).convertAndSendToUser(anyString(), eq("/queue/snake/chat"), any(), anyMap());
+        verify(chatHistory, never()).append(anyString(), any());
+        verify(metrics).rejected("snake", "chat", "flag_off");
+
+        store.put("chat_enabled", "true");
+        live.chat(chatEnv("Chen", "hi"), null);
+        verify(broker).convertAndSend(eq("/topic/snake/chat/snake:global"), (Object) any());
+    }
+
     @Test
     void featureFlag_off_preventsBroadcasts() {
         setRealtimeEnabled(false);
-        controller.presence(presenceEnv("Ari", "join"), null);
-        controller.score(scoreEnv("Bo", 123));
-        controller.chat(chatEnv("Chen", "hi"));
+        controller.presence(presenceEnv("Ari", "join"), null, null);
+        controller.score(scoreEnv("Bo", 123), null);
+        controller.chat(chatEnv("Chen", "hi"), null);
         verifyNoInteractions(broker);
+        verify(metrics).rejected("snake", "presence", "flag_off");
+        verify(metrics).rejected("snake", "score", "flag_off");
+        verify(metrics).rejected("snake", "chat", "flag_off");
+    }
+
+    static class CallerRunsExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
     }
 }
@@ -0,0 +1,77 @@
+package com.games.backend.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTest {
+
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.shutdown();
+    }
+
+    @Test
+    void encode_producesMatchingHash() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        service = new PasswordHashingService(encoder, 2, 16, 1000);
+
+        String hash = service.encode("secret").get(5, TimeUnit.SECONDS);
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(service.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void submit_timesOutWhenAllPermitsBusy() throws Exception {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 1, 16, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = service.submit(() -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> queued = service.submit(() -> "late");
+
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(PasswordHashingUnavailableException.class);
+        release.countDown();
+        assertThat(blocker.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void submit_rejectsImmediatelyWhenTooManyPending() throws Exception {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 1, 1, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = service.submit(() -> {
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+
+        CompletableFuture<String> rejected = service.submit(() -> "never");
+
+        assertThat(rejected).isCompletedExceptionally();
+        release.countDown();
+        assertThat(blocker.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,50 @@
+package com.games.backend.security;
+
+import com.games.backend.BaseIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class SecurityConfigIT extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void leaderboardStream_isOpenToAnonymousEventSource() throws Exception {
+        int status = mockMvc.perform(get("/api/games/snake/leaderboard/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getStatus();
+
+        // 200 with the stream started, or 503 when this node is at its subscriber cap
+        assertThat(status).isIn(200, 503);
+    }
+
+    @Test
+    void otherSnakeEndpoints_stillRequireAuthentication() throws Exception {
+        mockMvc.perform(get("/api/games/snake/leaderboard")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/games/snake/leaderboard/stream")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void leaderboardRebuild_isForAdminsOnly() throws Exception {
+        mockMvc.perform(post("/api/admin/leaderboards/snake:global/rebuild")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/leaderboards/rebuild")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void leaderboardRebuild_rejectsRoomScopes() throws Exception {
+        mockMvc.perform(post("/api/admin/leaderboards/snake:room-1/rebuild")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/leaderboards/rebuild")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,30 @@
+package com.games.backend.service;
+
+import com.games.backend.realtime.dto.RealtimeDtos.ChatOut;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatHistoryServiceTest {
+
+    private final ChatHistoryService history = new ChatHistoryService(null, 3, 100, 60, false);
+
+    @Test
+    void recent_keepsLastNPerRoomOldestFirst() {
+        for (int i = 1; i <= 5; i++) {
+            history.append("chess:table-1", message("m" + i));
+        }
+        history.append("chess:table-2", message("other"));
+
+        assertThat(history.recent("chess:table-1")).extracting(m -> m.text).containsExactly("m3", "m4", "m5");
+        assertThat(history.recent("chess:table-2")).extracting(m -> m.text).containsExactly("other");
+        assertThat(history.recent("chess:empty")).isEmpty();
+    }
+
+    private static ChatOut message(String text) {
+        ChatOut out = new ChatOut();
+        out.nickname = "Bo";
+        out.text = text;
+        return out;
+    }
+}
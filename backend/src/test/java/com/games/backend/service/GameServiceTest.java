@@ -1,18 +1,31 @@
 package com.games.backend.service;
 
 import com.games.backend.model.GameScore;
+import com.games.backend.model.ScoreOutbox;
 import com.games.backend.model.User;
+import com.games.backend.repository.GameScoreDailyRepository;
 import com.games.backend.repository.GameScoreRepository;
+import com.games.backend.repository.ScoreOutboxRepository;
+import com.games.backend.repository.ScoreView;
 import com.games.backend.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -22,9 +35,18 @@ class GameServiceTest {
     @Mock
     private GameScoreRepository gameScoreRepository;
 
+    @Mock
+    private GameScoreDailyRepository dailyRepository;
+
+    @Mock
+    private ScoreOutboxRepository outboxRepository;
+
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private LeaderboardVersions leaderboardVersions;
+
     @InjectMocks
     private GameService gameService;
 
@@ -57,5 +79,56 @@ class GameServiceTest {
         assertEquals(user, result.getUser());
 
         verify(gameScoreRepository).save(any(GameScore.class));
+        verify(outboxRepository).save(argThat((ScoreOutbox e) -> "snake:global".equals(e.getScope())
+                && username.equals(e.getNickname()) && e.getScore() == score));
+        verify(leaderboardVersions).bump(LeaderboardVersions.SCORES_SCOPE);
+    }
+
+    @Test
+    void getLeaderboard_ReturnsProjectionsWithoutUserDetails() {
+        ScoreView top = new ScoreView(7L, "testuser", "snake", 250, LocalDateTime.now());
+        when(gameScoreRepository.findTopScoresByGameType(eq("snake"), eq(PageRequest.of(0, 10))))
+                .thenReturn(List.of(top));
+
+        List<ScoreView> result = gameService.getLeaderboard("snake");
+
+        assertEquals(List.of(top), result);
+        assertEquals("testuser", result.get(0).user().username());
+    }
+
+    @Test
+    void getLeaderboard_MergesRolledUpDaysWithRecentScores() {
+        LocalDateTime now = LocalDateTime.now();
+        ScoreView recent = new ScoreView(9L, "bob", "snake", 120, now);
+        ScoreView oldBest = new ScoreView(3L, "alice", "snake", 300, now.minusYears(2));
+        when(gameScoreRepository.findTopScoresByGameType(eq("snake"), eq(PageRequest.of(0, 10))))
+                .thenReturn(List.of(recent));
+        when(dailyRepository.findTopScoresByGameType(eq("snake"), eq(PageRequest.of(0, 10))))
+                .thenReturn(List.of(oldBest));
+
+        assertEquals(List.of(oldBest, recent), gameService.getLeaderboard("snake"));
+    }
+
+    @Test
+    void topScores_WithoutLimit_MergesEveryRolledUpDay() {
+        LocalDateTime now = LocalDateTime.now();
+        ScoreView recent = new ScoreView(9L, "bob", "snake", 120, now);
+        ScoreView oldBest = new ScoreView(3L, "alice", "snake", 300, now.minusYears(2));
+        ScoreView oldLow = new ScoreView(2L, "carol", "snake", 50, now.minusYears(2));
+        when(gameScoreRepository.findTopScoresByGameType(eq("snake"), eq(Pageable.unpaged())))
+                .thenReturn(List.of(recent));
+        when(dailyRepository.findTopScoresByGameType(eq("snake"), eq(Pageable.unpaged())))
+                .thenReturn(List.of(oldBest, oldLow));
+
+        assertEquals(List.of(oldBest, recent, oldLow), gameService.topScores("snake", null));
+    }
+
+    @Test
+    void versionKeyedLeaderboard_isReadFromThePrimary() throws Exception {
+        // ReplicaRoutingDataSource sends only read-only transactions to replicas, which may lag the bump
+        Transactional tx = GameService.class.getMethod("getLeaderboard").getAnnotation(Transactional.class);
+
+        assertNotNull(tx);
+        assertFalse(tx.readOnly());
     }
 }
@@ -0,0 +1,51 @@
+package com.games.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeaderboardRebuilderTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final List<Runnable> queued = new ArrayList<>();
+    private LeaderboardRebuilder rebuilder;
+
+    @BeforeEach
+    void setUp() {
+        rebuilder = new LeaderboardRebuilder(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), redis,
+                mock(LeaderboardVersions.class), new SimpleMeterRegistry(), queued::add);
+    }
+
+    @Test
+    void onlyOneRebuildPerScopeRunsAtATime() {
+        assertThat(rebuilder.start("snake:global")).isTrue();
+        assertThat(rebuilder.start("snake:global")).isFalse();
+        assertThat(rebuilder.start("snake:room-1")).isTrue();
+
+        assertThat(queued).hasSize(2);
+        assertThat(rebuilder.status().get("snake:global").state()).isEqualTo(LeaderboardRebuilder.State.RUNNING);
+    }
+
+    @Test
+    void warmStartRebuildsOnlyMissingLeaderboards() {
+        ReflectionTestUtils.setField(rebuilder, "scopes", List.of("snake:global", "snake:room-1"));
+        when(redis.hasKey("lb:snake:global")).thenReturn(true);
+        when(redis.hasKey("lb:snake:room-1")).thenReturn(false);
+
+        rebuilder.warmStart();
+
+        assertThat(queued).hasSize(1);
+        assertThat(rebuilder.status()).containsOnlyKeys("snake:room-1");
+    }
+}
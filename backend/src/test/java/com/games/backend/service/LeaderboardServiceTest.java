@@ -0,0 +1,120 @@
+package com.games.backend.service;
+
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LeaderboardServiceTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final LeaderboardVersions versions = mock(LeaderboardVersions.class);
+    private final RedisGuard guard = new RedisGuard(new SimpleMeterRegistry(), 50, 500, 20, 60_000, Runnable::run);
+    private final LeaderboardService leaderboards = new LeaderboardService(redis, versions, guard);
+
+    @BeforeEach
+    void redisIsDown() {
+        guard.breaker().transitionToOpenState();
+    }
+
+    @Test
+    void openBreakerServesPerUserBestsFromMemory() {
+        assertThat(leaderboards.submit("snake:global", "ari", 10)).isEqualTo(10);
+        assertThat(leaderboards.submit("snake:global", "bo", 30)).isEqualTo(30);
+        assertThat(leaderboards.submit("snake:global", "ari", 5)).isEqualTo(10);
+        assertThat(leaderboards.submit("snake:global", "cy", 30)).isEqualTo(30);
+
+        // Ties in Redis' reverse order: higher member first
+        assertThat(leaderboards.topN("snake:global", 2)).extracting(e -> e.nickname).containsExactly("cy", "bo");
+        assertThat(leaderboards.topN("snake:global", 10)).extracting(e -> e.value).containsExactly(30, 30, 10);
+        assertThat(leaderboards.rankOf("snake:global", "ari")).isEqualTo(3);
+        assertThat(leaderboards.rankOf("snake:global", "nobody")).isNull();
+        assertThat(leaderboards.topN("chess:global", 10)).isEmpty();
+        verifyNoInteractions(redis);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recoveryWritesBufferedBestsBackWithZaddGt() {
+        leaderboards.submit("snake:global", "ari", 10);
+        leaderboards.submit("snake:global", "ari", 40);
+        verify(redis, never()).executePipelined(any(RedisCallback.class));
+
+        guard.breaker().transitionToHalfOpenState();
+        guard.breaker().transitionToClosedState();
+
+        ArgumentCaptor<RedisCallback<Object>> pipeline = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redis).executePipelined(pipeline.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisZSetCommands zset = mock(RedisZSetCommands.class);
+        when(connection.zSetCommands()).thenReturn(zset);
+        pipeline.getValue().doInRedis(connection);
+        ArgumentCaptor<ZAddArgs> args = ArgumentCaptor.forClass(ZAddArgs.class);
+        verify(zset).zAdd(eq(bytes("lb:snake:global")),
+                eq(Set.<Tuple>of(new DefaultTuple(bytes("ari"), 40.0))), args.capture());
+        assertThat(args.getValue().contains(ZAddArgs.Flag.GT)).isTrue();
+        verify(versions).bump("snake:global");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitBumpsTheVersionOnlyWhenZaddGtChangedTheBest() {
+        guard.breaker().transitionToClosedState();
+        when(redis.execute(any(RedisScript.class), eq(List.of("lb:snake:global")), eq("40"), eq("ari")))
+                .thenReturn(List.of(1L, "40"));
+        when(redis.execute(any(RedisScript.class), eq(List.of("lb:snake:global")), eq("10"), eq("ari")))
+                .thenReturn(List.of(0L, "40"));
+
+        assertThat(leaderboards.submit("snake:global", "ari", 40)).isEqualTo(40);
+        assertThat(leaderboards.submit("snake:global", "ari", 10)).isEqualTo(40);
+
+        verify(versions).bump("snake:global");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fallbackWhileClosedIsWrittenBackOnTheNextSuccessfulCall() {
+        guard.breaker().transitionToClosedState();
+        when(redis.execute(any(RedisScript.class), eq(List.of("lb:snake:global")), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("blip"))
+                .thenReturn(List.of(1L, "40"));
+
+        assertThat(leaderboards.submit("snake:global", "ari", 10)).isEqualTo(10);
+        verify(redis, never()).executePipelined(any(RedisCallback.class));
+        assertThat(leaderboards.submit("snake:global", "bo", 40)).isEqualTo(40);
+
+        assertThat(guard.breaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        verify(redis).executePipelined(any(RedisCallback.class));
+        // The local board was handed to Redis, so a later outage starts from a clean slate
+        guard.breaker().transitionToOpenState();
+        assertThat(leaderboards.rankOf("snake:global", "ari")).isNull();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package com.games.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfanityMatcherTest {
+
+    private final ProfanityMatcher matcher = ProfanityMatcher.compile(List.of("badword", "curse", "=ass", "*fuck"));
+    private final ProfanityMatcher shipped = ProfanityMatcher.compile(
+            List.of("cunt", "prick", "pussy", "curse", "shit", "ass", "tit", "*fuck"));
+
+    @Test
+    void mask_cleanText_returnsSameInstance() {
+        String msg = "a classic opening, well played";
+        assertThat(matcher.mask(msg)).isSameAs(msg);
+    }
+
+    @Test
+    void mask_normalizesCaseDiacriticsAndSubstitutions() {
+        assertThat(matcher.mask("BadWord")).isEqualTo("B*****d");
+        assertThat(matcher.mask("cürse you")).isEqualTo("c***e you");
+        assertThat(matcher.mask("b4dw0rd!")).isEqualTo("b*****d!");
+        assertThat(matcher.mask("c.u.r.s.e")).isEqualTo("c.*.*.*.e");
+    }
+
+    @Test
+    void mask_matchesWholeWordsUnlessTermIsAStem() {
+        assertThat(matcher.mask("what an ass")).isEqualTo("what an a*s");
+        assertThat(matcher.mask("a classic pass")).isEqualTo("a classic pass");
+        assertThat(matcher.mask("supercursed")).isEqualTo("supercursed");
+        assertThat(matcher.mask("fucking")).isEqualTo("f**king");
+    }
+
+    @Test
+    void mask_leavesInnocentWordsAlone() {
+        for (String msg : List.of("Scunthorpe", "a prickly cactus", "pussycat", "I'm cursed", "recurse",
+                "push-it", "wash.it", "cocktail", "titan", "grass")) {
+            assertThat(shipped.mask(msg)).as(msg).isSameAs(msg);
+        }
+    }
+
+    @Test
+    void mask_foldsLeetspeakOnlyInTokensWithLetters() {
+        assertThat(shipped.mask("455")).isEqualTo("455");
+        assertThat(shipped.mask("717 points")).isEqualTo("717 points");
+        assertThat(shipped.mask("$100")).isEqualTo("$100");
+        assertThat(shipped.mask("a55")).isEqualTo("a*5");
+        assertThat(shipped.mask("5h1t")).isEqualTo("5**t");
+    }
+
+    @Test
+    void mask_whitespaceBreaksMatches() {
+        assertThat(matcher.mask("bad word")).isEqualTo("bad word");
+    }
+
+    @Test
+    void filter_reloadsDictionaryWhenModified(@TempDir Path dir) throws Exception {
+        Path words = dir.resolve("words.txt");
+        Files.writeString(words, "# test list\nbadword\n");
+        ProfanityFilter filter = new ProfanityFilter(new DefaultResourceLoader(), words.toUri().toString());
+        assertThat(filter.filter("zonk")).isEqualTo("zonk");
+
+        Files.writeString(words, "badword\nzonk\n");
+        Files.setLastModifiedTime(words, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        filter.reloadIfModified();
+
+        assertThat(filter.dictionarySize()).isEqualTo(2);
+        assertThat(filter.filter("zonk")).isEqualTo("z**k");
+    }
+}
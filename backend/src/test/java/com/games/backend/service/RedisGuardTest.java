@@ -0,0 +1,75 @@
+package com.games.backend.service;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedisGuardTest {
+
+    private final RedisGuard guard = new RedisGuard(new SimpleMeterRegistry(), 50, 500, 4, 60_000, Runnable::run);
+
+    @Test
+    void failuresOpenTheBreakerAndLaterCallsSkipRedis() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(guard.call(() -> {
+                throw new RedisConnectionFailureException("down");
+            }, () -> "local")).isEqualTo("local");
+        }
+        assertThat(guard.breaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        AtomicInteger redisCalls = new AtomicInteger();
+        assertThat(guard.call(() -> {
+            redisCalls.incrementAndGet();
+            return "redis";
+        }, () -> "local")).isEqualTo("local");
+        assertThat(redisCalls).hasValue(0);
+    }
+
+    @Test
+    void otherErrorsPropagateWithoutOpeningTheBreaker() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new IllegalStateException("bug");
+            }, () -> "local")).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(guard.breaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void recoveryHooksRunOnceRedisIsBack() {
+        AtomicInteger recovered = new AtomicInteger();
+        guard.onRecovery(recovered::incrementAndGet);
+
+        guard.breaker().transitionToOpenState();
+        guard.call(() -> "redis", () -> "local");
+        guard.breaker().transitionToHalfOpenState();
+        assertThat(recovered).hasValue(0);
+        guard.breaker().transitionToClosedState();
+
+        assertThat(recovered).hasValue(1);
+    }
+
+    @Test
+    void recoveryHooksRunAfterAFallbackEvenIfTheBreakerNeverOpened() {
+        AtomicInteger recovered = new AtomicInteger();
+        guard.onRecovery(recovered::incrementAndGet);
+
+        assertThat(guard.call(() -> "redis", () -> "local")).isEqualTo("redis");
+        assertThat(recovered).hasValue(0);
+        assertThat(guard.call(() -> {
+            throw new RedisConnectionFailureException("blip");
+        }, () -> "local")).isEqualTo("local");
+        assertThat(guard.breaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        guard.call(() -> "redis", () -> "local");
+        guard.call(() -> "redis", () -> "local");
+
+        assertThat(recovered).hasValue(1);
+    }
+}
@@ -1,18 +1,30 @@
 package com.games.backend.service;
 
+import com.games.backend.cache.TwoLevelCacheManager;
+import com.games.backend.features.FeatureFlagsService;
+import com.games.backend.realtime.dto.RealtimeDtos.ChatOut;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -46,9 +58,21 @@ class RedisServicesIT {
     @Autowired
     LeaderboardService leaderboardService;
 
+    @Autowired
+    LeaderboardVersions leaderboardVersions;
+
     @Autowired
     RunIdService runIdService;
 
+    @Autowired
+    FeatureFlagsService featureFlags;
+
+    @Autowired
+    StringRedisTemplate redisTemplate;
+
+    @Autowired
+    RedisMessageListenerContainer listenerContainer;
+
     @Test
     void presence_heartbeat_and_ttl_expire() throws Exception {
         String room = "snake:global";
@@ -63,6 +87,39 @@ class RedisServicesIT {
         assertThat(presenceService.count(room)).isEqualTo(0);
     }
 
+    @Test
+    void presenceSnapshot_versionMatchesMembers() {
+        String room = "snake:snapshot-it";
+        presenceService.join(room, "Ari|a");
+        PresenceService.Update last = presenceService.join(room, "Bo|b");
+
+        PresenceService.Snapshot snapshot = presenceService.snapshot(room, 10);
+
+        assertThat(snapshot.version()).isEqualTo(last.version());
+        assertThat(snapshot.count()).isEqualTo(2);
+        assertThat(snapshot.members()).containsExactly("Bo|b", "Ari|a");
+        assertThat(presenceService.snapshot(room, 1).members()).containsExactly("Bo|b");
+    }
+
+    @Test
+    void chatHistory_isSharedAcrossNodesAndCapped() {
+        ChatHistoryService nodeA = new ChatHistoryService(redisTemplate, 3, 100, 60, true);
+        ChatHistoryService nodeB = new ChatHistoryService(redisTemplate, 3, 100, 60, true);
+        String room = "chess:chat-it";
+        for (int i = 1; i <= 5; i++) {
+            ChatOut out = new ChatOut();
+            out.nickname = "Bo";
+            out.text = "m" + i;
+            out.ts = i;
+            nodeA.append(room, out);
+        }
+
+        assertThat(nodeB.recent(room)).extracting(m -> m.text).containsExactly("m3", "m4", "m5");
+        assertThat(nodeB.recent(room).get(2).ts).isEqualTo(5L);
+        // MAXLEN ~ trims lazily, whole nodes at a time, but never below the requested length
+        assertThat(redisTemplate.opsForStream().size("chat:" + room)).isGreaterThanOrEqualTo(3L);
+    }
+
     @Test
     void leaderboard_perUserBest_and_topN() {
         String scope = "snake:global";
@@ -84,16 +141,88 @@ class RedisServicesIT {
         assertThat(rankBo).isEqualTo(2);
     }
 
+    @Test
+    void leaderboardVersion_bumpsOnlyWhenTheBoardChanges() {
+        String scope = "snake:versioned";
+        long before = leaderboardVersions.current(scope);
+        leaderboardService.submit(scope, "Ari", 100);
+        long afterBest = leaderboardVersions.current(scope);
+        // not a new best: same board, same version (and ETag)
+        leaderboardService.submit(scope, "Ari", 50);
+
+        assertThat(afterBest).isGreaterThan(before);
+        assertThat(leaderboardVersions.current(scope)).isEqualTo(afterBest);
+        assertThat(redisTemplate.opsForValue().get("lbver:" + scope)).isEqualTo(Long.toString(afterBest));
+    }
+
     @Test
     void runId_lifecycle_singleUse_and_expire() throws Exception {
-        String id = runIdService.start("guest");
+        String id = runIdService.start("guest", "snake");
         assertThat(id).isNotBlank();
-        Optional<String> peekBefore = runIdService.peek(id);
+        Optional<String> peekBefore = runIdService.peek(id, "snake");
         assertThat(peekBefore).isPresent();
 
-        boolean first = runIdService.validateAndConsume(id);
-        boolean second = runIdService.validateAndConsume(id);
+        boolean otherUser = runIdService.validateAndConsume(id, "mallory", "snake");
+        boolean first = runIdService.validateAndConsume(id, null, "snake");
+        boolean second = runIdService.validateAndConsume(id, null, "snake");
+        assertThat(otherUser).isFalse();
         assertThat(first).isTrue();
         assertThat(second).isFalse();
     }
+
+    @Test
+    void featureFlags_toggle_persists_and_remoteChange_propagates() throws Exception {
+        featureFlags.toggle("chat_enabled", false);
+        assertThat(featureFlags.isEnabled("chat_enabled")).isFalse();
+        assertThat(redisTemplate.opsForHash().get("features:overrides", "chat_enabled")).isEqualTo("false");
+
+        // Another replica flips it back: hash write + notification, as FlagStore.put does
+        redisTemplate.opsForHash().put("features:overrides", "chat_enabled", "true");
+        redisTemplate.convertAndSend("features:changed", "chat_enabled");
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!featureFlags.isEnabled("chat_enabled") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(featureFlags.isEnabled("chat_enabled")).isTrue();
+    }
+
+    @Test
+    void twoLevelCache_sharesEntries_and_invalidatesOtherReplicas() throws Exception {
+        Cache nodeA = replicaCacheManager().getCache("leaderboard");
+        Cache nodeB = replicaCacheManager().getCache("leaderboard");
+        List<String> top = new ArrayList<>(List.of("Bo", "Ari"));
+
+        nodeA.put("snake", top);
+        // B has never seen the key: served from the shared tier, then from its own L1
+        assertThat(nodeB.get("snake").get()).isEqualTo(top);
+        assertThat(localCache(nodeB).asMap()).containsKey("snake");
+
+        nodeA.evict("snake");
+        awaitUntil(() -> !localCache(nodeB).asMap().containsKey("snake"));
+        assertThat(nodeB.get("snake")).isNull();
+
+        nodeA.put("snake", top);
+        assertThat(nodeB.get("snake")).isNotNull();
+        nodeA.clear();
+        awaitUntil(() -> localCache(nodeB).estimatedSize() == 0);
+        assertThat(nodeB.get("snake")).isNull();
+    }
+
+    private TwoLevelCacheManager replicaCacheManager() {
+        return new TwoLevelCacheManager(name -> Caffeine.newBuilder().maximumSize(100).recordStats(),
+                new SimpleMeterRegistry(), Set.of("leaderboard"),
+                redisTemplate, listenerContainer, Duration.ofSeconds(30));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static com.github.benmanes.caffeine.cache.Cache<Object, ?> localCache(Cache cache) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, ?>) cache.getNativeCache();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
 }
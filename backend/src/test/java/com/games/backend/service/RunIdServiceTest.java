@@ -0,0 +1,114 @@
+package com.games.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RunIdServiceTest {
+
+    private final RunIdService hmac = new RunIdService(null, null, "hmac", 600, "test-secret", "jwt-secret", 1000);
+
+    @Test
+    void hmacToken_isSingleUse() {
+        String runId = hmac.start("alice", "snake");
+
+        assertThat(runId).hasSizeLessThanOrEqualTo(128);
+        assertThat(hmac.validateAndConsume(runId, "alice", "snake")).isTrue();
+        assertThat(hmac.validateAndConsume(runId, "alice", "snake")).isFalse();
+    }
+
+    @Test
+    void hmacToken_isBoundToUserAndGame() {
+        String runId = hmac.start("alice", "snake");
+
+        assertThat(hmac.validateAndConsume(runId, "mallory", "snake")).isFalse();
+        assertThat(hmac.validateAndConsume(runId, null, "snake")).isFalse();
+        assertThat(hmac.validateAndConsume(runId, "alice", "chess")).isFalse();
+        // Failed attempts do not spend the token
+        assertThat(hmac.validateAndConsume(runId, "alice", "snake")).isTrue();
+    }
+
+    @Test
+    void hmacToken_rejectsTamperingAndExpiry() {
+        String runId = hmac.start(null, "snake");
+        String tampered = runId.substring(0, runId.length() - 2) + (runId.endsWith("AA") ? "BB" : "AA");
+        long now = System.currentTimeMillis();
+
+        assertThat(hmac.validateAndConsume(tampered, null, "snake")).isFalse();
+        assertThat(hmac.validateAndConsume("not-a-token", null, "snake")).isFalse();
+        assertThat(hmac.consumeToken(runId, "guest", "snake", now + 601_000)).isFalse();
+        assertThat(hmac.consumeToken(runId, "guest", "snake", now)).isTrue();
+    }
+
+    @Test
+    void runKey_isDerivedFromJwtSecretButNeverEqualToIt() {
+        RunIdService derived = new RunIdService(null, null, "hmac", 600, "", "jwt-secret", 1000);
+        RunIdService otherNode = new RunIdService(null, null, "hmac", 600, "", "jwt-secret", 1000);
+        RunIdService jwtKeyed = new RunIdService(null, null, "hmac", 600, "jwt-secret", "unused", 1000);
+
+        assertThat(otherNode.validateAndConsume(derived.start("alice", "snake"), "alice", "snake")).isTrue();
+        assertThat(jwtKeyed.validateAndConsume(derived.start("alice", "snake"), "alice", "snake")).isFalse();
+        assertThat(RunIdService.deriveRunKey("jwt-secret")).hasSize(32);
+    }
+
+    @Test
+    void spentFilter_forgetsTokensOnlyAfterTwoGenerations() {
+        SpentTokenFilter filter = new SpentTokenFilter(100, 1e-6, 1_000, 0);
+        byte[] mac = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+        assertThat(filter.markSpent(mac, 10)).isTrue();
+        assertThat(filter.markSpent(mac, 1_500)).isFalse();
+        assertThat(filter.markSpent(mac, 3_500)).isTrue();
+    }
+
+    @Test
+    void redisMode_issuesSignedTokensWhileRedisIsDown() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        RedisGuard guard = new RedisGuard(new SimpleMeterRegistry(), 50, 500, 20, 60_000, Runnable::run);
+        guard.breaker().transitionToOpenState();
+        RunIdService stored = new RunIdService(redis, guard, "redis", 600, "test-secret", "jwt-secret", 1000);
+
+        String runId = stored.start("alice", "snake");
+
+        assertThat(runId).startsWith("snake.");
+        assertThat(stored.validateAndConsume(runId, "alice", "snake")).isTrue();
+        assertThat(stored.validateAndConsume(runId, "alice", "snake")).isFalse();
+        // Stored run ids cannot be checked until Redis is back
+        assertThat(stored.validateAndConsume(UUID.randomUUID().toString(), "alice", "snake")).isFalse();
+        verifyNoInteractions(redis);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisMode_spendsSignedTokensInRedisWhileItIsUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(startsWith("runid:used:"), eq("1"), any(Duration.class))).thenReturn(true, false);
+        RedisGuard guard = new RedisGuard(new SimpleMeterRegistry(), 50, 500, 20, 60_000, Runnable::run);
+        RunIdService node = new RunIdService(redis, guard, "redis", 600, "test-secret", "jwt-secret", 1000);
+        RunIdService otherNode = new RunIdService(redis, guard, "redis", 600, "test-secret", "jwt-secret", 1000);
+        guard.breaker().transitionToOpenState();
+        String runId = node.start("alice", "snake");
+        guard.breaker().transitionToClosedState();
+
+        assertThat(node.validateAndConsume(runId, "alice", "snake")).isTrue();
+        // The other node's Bloom filter never saw it; Redis still refuses the replay
+        assertThat(otherNode.validateAndConsume(runId, "alice", "snake")).isFalse();
+        verify(values, times(2)).setIfAbsent(startsWith("runid:used:"), eq("1"), any(Duration.class));
+    }
+}
@@ -0,0 +1,79 @@
+package com.games.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScoreOutboxRelayTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final LeaderboardVersions versions = mock(LeaderboardVersions.class);
+    private final ScoreOutboxRelay relay = new ScoreOutboxRelay(jdbc, mock(PlatformTransactionManager.class),
+            redis, versions, new SimpleMeterRegistry());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchIsMergedPerScopeAndOnlyChangedBoardsAreBumped() {
+        when(jdbc.query(anyString(), any(RowMapper.class), eq(500))).thenReturn(List.of(
+                new ScoreOutboxRelay.Event(1, "snake:global", "alice", 120),
+                new ScoreOutboxRelay.Event(2, "snake:global", "alice", 300),
+                new ScoreOutboxRelay.Event(3, "tetris:global", "bob", 50)));
+        // snake:global raised a member, tetris:global already had a better score
+        when(redis.executePipelined(any(RedisCallback.class))).thenReturn(List.of(1L, 0L));
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        ArgumentCaptor<RedisCallback<Object>> pipeline = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redis).executePipelined(pipeline.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisZSetCommands zset = mock(RedisZSetCommands.class);
+        when(connection.zSetCommands()).thenReturn(zset);
+        pipeline.getValue().doInRedis(connection);
+        verify(zset).zAdd(eq(bytes("lb:snake:global")),
+                eq(Set.<Tuple>of(new DefaultTuple(bytes("alice"), 300.0))), any(ZAddArgs.class));
+
+        verify(jdbc).batchUpdate(anyString(), anyList());
+        verify(versions).bump("snake:global");
+        verify(versions, never()).bump("tetris:global");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void emptyOutboxTouchesNothing() {
+        when(jdbc.query(anyString(), any(RowMapper.class), eq(500))).thenReturn(List.of());
+
+        assertThat(relay.relayBatch()).isZero();
+
+        verify(redis, never()).executePipelined(any(RedisCallback.class));
+        verify(jdbc, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+package com.games.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScorePartitionManagerTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final LeaderboardVersions versions = mock(LeaderboardVersions.class);
+    private ScorePartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = spy(new ScorePartitionManager(jdbc, mock(PlatformTransactionManager.class), versions));
+        when(jdbc.queryForObject(ScorePartitionManager.TRY_LOCK, Boolean.class)).thenReturn(true);
+    }
+
+    @Test
+    void upperBoundIsReadFromThePartitionExpression() {
+        assertThat(ScorePartitionManager.upperBound(
+                "FOR VALUES FROM ('2025-03-01 00:00:00') TO ('2025-04-01 00:00:00')")).isEqualTo(LocalDate.of(2025, 4, 1));
+        assertThat(ScorePartitionManager.upperBound(
+                "FOR VALUES FROM (MINVALUE) TO ('2025-07-01 00:00:00')")).isEqualTo(LocalDate.of(2025, 7, 1));
+        assertThat(ScorePartitionManager.upperBound("FOR VALUES FROM ('2025-03-01 00:00:00') TO (MAXVALUE)")).isNull();
+    }
+
+    @Test
+    void createsOnlyTheMonthsPastExistingPartitions() {
+        // The legacy partition covers everything up to July; August onward is missing
+        doReturn(List.of(new ScorePartitionManager.Partition("game_scores_legacy", LocalDate.of(2025, 7, 1)),
+                new ScorePartitionManager.Partition("game_scores_p202507", LocalDate.of(2025, 8, 1))))
+                .when(manager).partitions();
+
+        manager.createUpcoming(LocalDate.of(2025, 7, 14));
+
+        verify(jdbc, never()).execute(contains("game_scores_p202507"));
+        verify(jdbc).execute("CREATE TABLE IF NOT EXISTS \"game_scores_p202508\" PARTITION OF game_scores "
+                + "FOR VALUES FROM ('2025-08-01') TO ('2025-09-01')");
+        verify(jdbc).execute(contains("TO ('2025-11-01')"));
+    }
+
+    @Test
+    void partiallyCoveredMonthStartsWhereCoverageEnds() {
+        doReturn(List.of(new ScorePartitionManager.Partition("game_scores_legacy", LocalDate.of(2025, 7, 15))))
+                .when(manager).partitions();
+
+        manager.createUpcoming(LocalDate.of(2025, 7, 3));
+
+        verify(jdbc).execute("CREATE TABLE IF NOT EXISTS \"game_scores_p202507\" PARTITION OF game_scores "
+                + "FOR VALUES FROM ('2025-07-15') TO ('2025-08-01')");
+    }
+
+    @Test
+    void maxValuePartitionNeedsNoNewPartitions() {
+        doReturn(List.of(new ScorePartitionManager.Partition("game_scores_all", null))).when(manager).partitions();
+
+        manager.createUpcoming(LocalDate.of(2025, 7, 3));
+
+        verify(jdbc, never()).execute(anyString());
+    }
+
+    @Test
+    void nothingToRollUpLeavesLeaderboardsAlone() {
+        doReturn(List.of(new ScorePartitionManager.Partition("game_scores_p202507", LocalDate.of(2025, 8, 1))))
+                .when(manager).partitions();
+
+        manager.rollUpBefore(LocalDate.of(2024, 7, 1));
+
+        verify(jdbc, never()).update(anyString());
+        verify(versions, never()).bump(anyString());
+    }
+
+    @Test
+    void anotherNodeHoldingTheLockSkipsTheRun() {
+        when(jdbc.queryForObject(ScorePartitionManager.TRY_LOCK, Boolean.class)).thenReturn(false);
+        doReturn(List.of(new ScorePartitionManager.Partition("game_scores_p202301", LocalDate.of(2023, 2, 1))))
+                .when(manager).partitions();
+
+        manager.createUpcoming(LocalDate.of(2025, 7, 3));
+        manager.rollUpBefore(LocalDate.of(2024, 7, 1));
+
+        verify(jdbc, never()).execute(anyString());
+        verify(jdbc, never()).update(anyString());
+        verify(versions, never()).bump(anyString());
+    }
+
+    @Test
+    void partitionDroppedByAnotherNodeIsSkipped() {
+        doReturn(List.of(new ScorePartitionManager.Partition("game_scores_p202301", LocalDate.of(2023, 2, 1))))
+                .when(manager).partitions();
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), eq("\"game_scores_p202301\""))).thenReturn(false);
+
+        manager.rollUpBefore(LocalDate.of(2024, 7, 1));
+
+        verify(jdbc, never()).update(anyString());
+        verify(versions, never()).bump(anyString());
+    }
+}
@@ -0,0 +1,61 @@
+package com.games.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnakeReplayTest {
+
+    private static final int SEED = SnakeReplay.seedOf("run-1");
+
+    @Test
+    void replay_reproducesScoreOfRecordedRun() {
+        SnakeReplay game = new SnakeReplay();
+        game.reset(SEED);
+        int[] ticks = new int[SnakeReplay.MAX_INPUTS];
+        int[] dirs = new int[SnakeReplay.MAX_INPUTS];
+        int count = 0;
+        int tick = 0;
+        // Greedy bot: head straight for the food, recording each direction change
+        while (tick < 2_000 && count < SnakeReplay.MAX_INPUTS) {
+            int turn = towardFood(game);
+            if (turn != game.direction()) {
+                ticks[count] = tick;
+                dirs[count++] = turn;
+            }
+            tick++;
+            if (!game.step(turn)) break;
+        }
+        assertThat(game.score()).isPositive();
+
+        String proof = SnakeReplay.encodeProof(tick, ticks, dirs, count);
+
+        assertThat(new SnakeReplay().replay(SEED, proof)).isEqualTo(game.score());
+        assertThat(new SnakeReplay().replay(SnakeReplay.seedOf("run-2"), proof)).isNotEqualTo(game.score());
+    }
+
+    @Test
+    void replay_withoutInputsRunsIntoTheWall() {
+        // Heading right from x=5, the sixteenth move leaves the 20-wide grid
+        assertThat(new SnakeReplay().replay(SEED, "1000.")).isLessThanOrEqualTo(SnakeReplay.POINTS_PER_FOOD);
+    }
+
+    @Test
+    void replay_rejectsMalformedProofs() {
+        SnakeReplay game = new SnakeReplay();
+        assertThat(game.replay(SEED, null)).isEqualTo(-1);
+        assertThat(game.replay(SEED, "no-dot")).isEqualTo(-1);
+        assertThat(game.replay(SEED, "zzzzzzz.AA")).isEqualTo(-1);
+        assertThat(game.replay(SEED, "10.A*")).isEqualTo(-1);
+        assertThat(game.replay(SEED, "10.gA")).isEqualTo(-1); // truncated varint
+    }
+
+    private static int towardFood(SnakeReplay game) {
+        int head = game.headCell();
+        int food = game.foodCell();
+        int dx = food % SnakeReplay.GRID - head % SnakeReplay.GRID;
+        int dy = food / SnakeReplay.GRID - head / SnakeReplay.GRID;
+        int want = dx > 0 ? 1 : dx < 0 ? 3 : dy > 0 ? 2 : 0;
+        return want == ((game.direction() + 2) & 3) ? (want + 1) & 3 : want;
+    }
+}
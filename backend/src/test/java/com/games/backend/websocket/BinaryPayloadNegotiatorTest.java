@@ -0,0 +1,122 @@
+package com.games.backend.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryPayloadNegotiatorTest {
+
+    private static final String LEADERBOARD = "/topic/snake/leaderboard/snake:global";
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BinaryPayloadNegotiator negotiator =
+            new BinaryPayloadNegotiator(json, registry, List.of("/topic/*/leaderboard/**", "/topic/*/presence/**"));
+    private final ChannelInterceptor inbound = negotiator.inbound();
+    private final ChannelInterceptor outbound = negotiator.outbound();
+
+    @Test
+    void connectWithCborHeader_onNativeTransport_getsCborFrames() throws Exception {
+        inbound.preSend(connect("s1", "cbor", true), null);
+        byte[] payload = "{\"type\":\"leaderboard\",\"payload\":{\"top\":[]}}".getBytes(StandardCharsets.UTF_8);
+
+        Message<?> out = outbound.preSend(message("s1", LEADERBOARD, payload), null);
+
+        assertThat(out.getPayload()).isInstanceOf(byte[].class).isNotSameAs(payload);
+        assertThat(new CBORMapper().readTree((byte[]) out.getPayload())).isEqualTo(json.readTree(payload));
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(out);
+        assertThat(headers.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(headers.getFirstNativeHeader(BinaryPayloadNegotiator.FORMAT_HEADER)).isEqualTo("cbor");
+        assertThat(registry.counter("realtime.outbound.binary").count()).isEqualTo(1);
+    }
+
+    @Test
+    void sockJsOrJsonSessions_keepJson() {
+        inbound.preSend(connect("sockjs", "cbor", false), null);
+        inbound.preSend(connect("plain", null, true), null);
+        byte[] payload = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(outbound.preSend(message("sockjs", LEADERBOARD, payload), null).getPayload()).isSameAs(payload);
+        assertThat(outbound.preSend(message("plain", LEADERBOARD, payload), null).getPayload()).isSameAs(payload);
+    }
+
+    @Test
+    void destinationsOutsideTheAllowList_keepJson() {
+        inbound.preSend(connect("s1", "cbor", true), null);
+        byte[] payload = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(outbound.preSend(message("s1", "/topic/snake/chat/snake:global", payload), null).getPayload())
+                .isSameAs(payload);
+        assertThat(outbound.preSend(message("s1", "/topic/session/abc", payload), null).getPayload())
+                .isSameAs(payload);
+        assertThat(registry.counter("realtime.outbound.binary").count()).isZero();
+    }
+
+    @Test
+    void sharedPayload_isConvertedOnce_forAllCborSubscribers() {
+        inbound.preSend(connect("s1", "cbor", true), null);
+        inbound.preSend(connect("s2", "cbor", true), null);
+        byte[] shared = "{\"v\":7}".getBytes(StandardCharsets.UTF_8);
+
+        Object first = outbound.preSend(message("s1", LEADERBOARD, shared), null).getPayload();
+        Object second = outbound.preSend(message("s2", LEADERBOARD, shared), null).getPayload();
+        // Equal bytes in a different array are a different broadcast: keyed by identity, not content
+        Object other = outbound.preSend(message("s1", LEADERBOARD, shared.clone()), null).getPayload();
+
+        assertThat(second).isSameAs(first);
+        assertThat(other).isNotSameAs(first).isEqualTo(first);
+    }
+
+    @Test
+    void disconnect_forgetsTheSession() {
+        inbound.preSend(connect("s1", "cbor", true), null);
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("s1");
+        inbound.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), null);
+        byte[] payload = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(outbound.preSend(message("s1", LEADERBOARD, payload), null).getPayload()).isSameAs(payload);
+    }
+
+    @Test
+    void nonJsonPayload_isLeftAsIs() {
+        inbound.preSend(connect("s1", "cbor", true), null);
+        byte[] payload = "not json {".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(outbound.preSend(message("s1", LEADERBOARD, payload), null).getPayload()).isSameAs(payload);
+    }
+
+    private static Message<byte[]> connect(String sessionId, String format, boolean nativeTransport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (format != null) accessor.setNativeHeader(BinaryPayloadNegotiator.FORMAT_HEADER, format);
+        Map<String, Object> attrs = new HashMap<>();
+        if (nativeTransport) attrs.put(BinaryPayloadNegotiator.NATIVE_TRANSPORT_ATTR, Boolean.TRUE);
+        accessor.setSessionAttributes(attrs);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String sessionId, String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,40 @@
+package com.games.backend.websocket;
+
+import com.games.backend.realtime.RoomRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BroadcastMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RoomRegistry rooms = new RoomRegistry(registry);
+    private final BroadcastMetrics metrics = new BroadcastMetrics(rooms, registry);
+
+    @Test
+    void roomBroadcast_recordsTopicSubscribersByGameAndKind() {
+        rooms.subscribed("s1", "sub-0", "/topic/chess/chat/chess:table-1");
+        rooms.subscribed("s2", "sub-0", "/topic/chess/chat/chess:table-1");
+        rooms.subscribed("s2", "sub-1", "/topic/chess/match/chess:table-1");
+
+        metrics.preSend(message("/topic/chess/chat/chess:table-1"), null);
+        metrics.preSend(message("/user/alice/queue/chess/chat"), null);
+
+        DistributionSummary fanOut = registry.get("realtime.broadcast.fanout")
+                .tags("game", "chess", "kind", "chat").summary();
+        assertThat(fanOut.count()).isEqualTo(1);
+        assertThat(fanOut.totalAmount()).isEqualTo(2);
+        assertThat(registry.find("realtime.broadcast.fanout").summaries()).hasSize(1);
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
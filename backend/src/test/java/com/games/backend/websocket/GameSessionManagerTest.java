@@ -0,0 +1,66 @@
+package com.games.backend.websocket;
+
+import com.games.backend.realtime.RoomRegistry;
+import com.games.backend.service.GameService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class GameSessionManagerTest {
+
+    private final RoomRegistry rooms = new RoomRegistry(new SimpleMeterRegistry());
+    private final GameSessionManager sessions =
+            new GameSessionManager(mock(SimpMessagingTemplate.class), mock(GameService.class), rooms);
+
+    @Test
+    void lastPlayerLeaving_closesPrivateRoom() {
+        GameSessionManager.GameSession session = sessions.createSession("chess", "alice");
+        String roomId = "chess:" + session.getId();
+        sessions.joinSession(session.getId(), "bob");
+        assertThat(rooms.canSubscribe(roomId, () -> "eve")).isFalse();
+
+        sessions.leaveSession(session.getId(), "alice");
+        assertThat(sessions.getSession(session.getId())).isNotNull();
+        assertThat(rooms.canSubscribe(roomId, () -> "bob")).isTrue();
+        assertThat(rooms.canSubscribe(roomId, () -> "alice")).isFalse();
+
+        sessions.leaveSession(session.getId(), "bob");
+        assertThat(sessions.getSession(session.getId())).isNull();
+        // Closed rooms stay denied instead of becoming public
+        assertThat(rooms.canSubscribe(roomId, () -> "eve")).isFalse();
+        assertThat(rooms.canSubscribe(roomId, () -> "bob")).isFalse();
+    }
+
+    @Test
+    void leaveSession_byNonPlayer_isIgnored() {
+        GameSessionManager.GameSession session = sessions.createSession("chess", "alice");
+
+        sessions.leaveSession(session.getId(), "eve");
+
+        assertThat(session.getPlayers()).containsExactly("alice");
+        assertThat(rooms.canSubscribe("chess:" + session.getId(), () -> "alice")).isTrue();
+    }
+
+    @Test
+    void joinSession_fullSession_isRefused() {
+        GameSessionManager.GameSession session = sessions.createSession("chess", "alice");
+
+        assertThat(sessions.joinSession(session.getId(), "bob")).isTrue();
+        assertThat(sessions.joinSession(session.getId(), "eve")).isFalse();
+        assertThat(rooms.canSubscribe("chess:" + session.getId(), () -> "eve")).isFalse();
+    }
+
+    @Test
+    void endSession_closesRoomOnce() {
+        GameSessionManager.GameSession session = sessions.createSession("checkers", "alice");
+
+        sessions.endSession(session.getId());
+        sessions.endSession(session.getId());
+
+        assertThat(sessions.getSession(session.getId())).isNull();
+        assertThat(rooms.canSubscribe("checkers:" + session.getId(), () -> "alice")).isFalse();
+    }
+}
@@ -0,0 +1,85 @@
+package com.games.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class HandlerMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HandlerMetrics metrics = new HandlerMetrics(registry);
+    private SimpAnnotationMethodMessageHandler annotated;
+
+    @Controller
+    static class ChessHandlers {
+        @MessageMapping("/chess/chat")
+        public void chat() {
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.registerSingleton("chessHandlers", ChessHandlers.class);
+        context.refresh();
+        annotated = new SimpAnnotationMethodMessageHandler(mock(SubscribableChannel.class),
+                mock(MessageChannel.class), mock(SimpMessageSendingOperations.class));
+        annotated.setDestinationPrefixes(List.of("/app/"));
+        annotated.setApplicationContext(context);
+        annotated.afterPropertiesSet();
+    }
+
+    @Test
+    void mappedDestination_isTaggedWithoutPrefix() {
+        handle(annotated, "/app/chess/chat", null);
+        handle(annotated, "/app/chess/chat", new IllegalStateException("boom"));
+
+        assertThat(registry.get("realtime.handler").tags("handler", "/chess/chat", "outcome", "ok").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("realtime.handler").tags("handler", "/chess/chat", "outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void unknownDestinations_shareTheUnmappedTag() {
+        handle(annotated, "/app/chess/nope-1", null);
+        handle(annotated, "/app/chess/nope-2", null);
+        handle(annotated, "/elsewhere/chess/chat", null);
+
+        assertThat(registry.get("realtime.handler").tags("handler", "unmapped", "outcome", "ok").timer().count())
+                .isEqualTo(3);
+        assertThat(registry.find("realtime.handler").timers()).hasSize(1);
+    }
+
+    @Test
+    void otherHandlersAndFramesWithoutDestination_areNotTimed() {
+        handle(mock(MessageHandler.class), "/app/chess/chat", null);
+        handle(annotated, null, null);
+
+        assertThat(registry.find("realtime.handler").timers()).isEmpty();
+    }
+
+    private void handle(MessageHandler handler, String destination, Exception ex) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        if (destination != null) headers.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+        metrics.beforeHandle(message, null, handler);
+        metrics.afterMessageHandled(message, null, handler, ex);
+    }
+}
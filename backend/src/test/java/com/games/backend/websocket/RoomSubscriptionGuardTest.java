@@ -0,0 +1,75 @@
+package com.games.backend.websocket;
+
+import com.games.backend.realtime.RoomRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.security.Principal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomSubscriptionGuardTest {
+
+    private final RoomRegistry rooms = new RoomRegistry(new SimpleMeterRegistry());
+    private final RoomSubscriptionGuard guard = new RoomSubscriptionGuard(rooms);
+
+    @Test
+    void subscribe_publicRoom_isCountedUntilDisconnect() {
+        guard.preSend(subscribe("s1", "sub-0", "/topic/chess/match/chess:table-1", null), null);
+        guard.preSend(subscribe("s2", "sub-0", "/topic/chess/match/chess:table-1", null), null);
+        assertThat(rooms.subscriberCount("chess:table-1")).isEqualTo(2);
+        assertThat(rooms.topicSubscriberCount("/topic/chess/match/chess:table-1")).isEqualTo(2);
+        assertThat(rooms.topicSubscriberCount("/topic/chess/chat/chess:table-1")).isZero();
+
+        guard.preSend(frame(StompCommand.UNSUBSCRIBE, "s1", "sub-0"), null);
+        guard.preSend(frame(StompCommand.DISCONNECT, "s2", null), null);
+
+        assertThat(rooms.subscriberCount("chess:table-1")).isZero();
+        assertThat(rooms.activeRooms()).isZero();
+    }
+
+    @Test
+    void subscribe_wildcardOrForeignRoom_isRejected() {
+        assertThatThrownBy(() -> guard.preSend(subscribe("s1", "sub-0", "/topic/chess/match/**", null), null))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> guard.preSend(subscribe("s1", "sub-1", "/topic/chess/match/snake:global", null), null))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(rooms.activeRooms()).isZero();
+    }
+
+    @Test
+    void subscribe_privateRoom_requiresMembership() {
+        rooms.restrict("chess:match-9", "alice");
+        rooms.grant("chess:match-9", "bob");
+
+        guard.preSend(subscribe("s1", "sub-0", "/topic/chess/match/chess:match-9", () -> "bob"), null);
+        assertThatThrownBy(() -> guard.preSend(subscribe("s2", "sub-0", "/topic/chess/match/chess:match-9", () -> "eve"), null))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> guard.preSend(subscribe("s3", "sub-0", "/topic/chess/match/chess:match-9", null), null))
+                .isInstanceOf(AccessDeniedException.class);
+
+        assertThat(rooms.subscriberCount("chess:match-9")).isEqualTo(1);
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (subscriptionId != null) accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
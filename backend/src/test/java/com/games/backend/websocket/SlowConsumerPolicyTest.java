@@ -0,0 +1,104 @@
+package com.games.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerPolicyTest {
+
+    private static final String PRESENCE = "/topic/chess/presence/chess:global";
+    private static final String MATCH = "/topic/chess/match/chess:global";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SlowConsumerPolicy policy = new SlowConsumerPolicy(registry, 20, List.of("/topic/*/presence/**"));
+    private final WebSocketHandler delegate = mock(WebSocketHandler.class);
+    private final WebSocketHandler handler = policy.decorate(delegate);
+
+    @Test
+    void stalledWrite_pastThreshold_marksSessionSlow_andShedsOnlySheddableFrames() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        WebSocketSession raw = session("s1");
+        doAnswer(inv -> {
+            writing.countDown();
+            unblock.await();
+            return null;
+        }).when(raw).sendMessage(any());
+        WebSocketSession tracked = connect(raw);
+
+        assertThat(policy.preSend(message("s1", PRESENCE), null)).isNotNull();
+
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+            try {
+                tracked.sendMessage(new TextMessage("frame"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+
+        assertThat(registry.get("realtime.sessions.slow").gauge().value()).isEqualTo(1);
+        assertThat(policy.preSend(message("s1", PRESENCE), null)).isNull();
+        assertThat(policy.preSend(message("s1", MATCH), null)).isNotNull();
+        assertThat(policy.preSend(message("s2", PRESENCE), null)).isNotNull();
+        assertThat(registry.get("realtime.outbound.shed").counter().count()).isEqualTo(1);
+
+        unblock.countDown();
+        write.get(5, TimeUnit.SECONDS);
+        assertThat(registry.get("realtime.sessions.slow").gauge().value()).isZero();
+        assertThat(policy.preSend(message("s1", PRESENCE), null)).isNotNull();
+    }
+
+    @Test
+    void closedSession_isForgotten() throws Exception {
+        WebSocketSession raw = session("s1");
+        connect(raw);
+        assertThat(registry.get("realtime.sessions.open").gauge().value()).isEqualTo(1);
+
+        handler.afterConnectionClosed(raw, CloseStatus.NORMAL);
+
+        assertThat(registry.get("realtime.sessions.open").gauge().value()).isZero();
+        verify(delegate).afterConnectionClosed(raw, CloseStatus.NORMAL);
+    }
+
+    private WebSocketSession connect(WebSocketSession raw) throws Exception {
+        handler.afterConnectionEstablished(raw);
+        ArgumentCaptor<WebSocketSession> tracked = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(delegate).afterConnectionEstablished(tracked.capture());
+        return tracked.getValue();
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    private static Message<byte[]> message(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
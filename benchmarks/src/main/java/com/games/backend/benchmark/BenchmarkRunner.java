@@ -0,0 +1,26 @@
+package com.games.backend.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the standard JMH command line, always with the GC
+ * profiler attached so every result also reports allocation per operation
+ * ({@code gc.alloc.rate.norm}).
+ * <p>
+ * {@code java -jar benchmarks/target/benchmarks.jar [regex] [jmh options]}
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
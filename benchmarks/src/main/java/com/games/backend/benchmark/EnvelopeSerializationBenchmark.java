@@ -0,0 +1,143 @@
+package com.games.backend.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.backend.realtime.dto.RealtimeDtos.ChatHistoryOut;
+import com.games.backend.realtime.dto.RealtimeDtos.ChatOut;
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import com.games.backend.realtime.dto.RealtimeDtos.Envelope;
+import com.games.backend.realtime.dto.RealtimeDtos.LeaderboardOut;
+import com.games.backend.realtime.dto.RealtimeDtos.MoveOut;
+import com.games.backend.realtime.dto.RealtimeDtos.PresenceDelta;
+import com.games.backend.realtime.dto.RealtimeDtos.PresenceOut;
+import com.games.backend.realtime.dto.RealtimeDtos.PublicUser;
+import com.games.backend.realtime.dto.RealtimeDtos.Room;
+import com.games.backend.realtime.dto.RealtimeDtos.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of each outbound realtime envelope, as the STOMP message converter does
+ * for every broadcast. Payload sizes match a busy room: 10 leaderboard entries, 50 chat lines of
+ * history, a 200-member presence snapshot.
+ * <p>
+ * Run with: {@code java -jar benchmarks/target/benchmarks.jar EnvelopeSerializationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeSerializationBenchmark {
+
+    @Param({"presence_delta", "presence", "chat", "chat_history", "leaderboard", "move"})
+    public String type;
+
+    private ObjectMapper mapper;
+    private Envelope<?> envelope;
+
+    @Setup
+    public void setup() {
+        // Same defaults as the Spring Boot auto-configured mapper used by the message converter
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        envelope = envelope(type, switch (type) {
+            case "presence_delta" -> presenceDelta();
+            case "presence" -> presence(200);
+            case "chat" -> chat("gg, rematch?");
+            case "chat_history" -> chatHistory(50);
+            case "leaderboard" -> leaderboard(10);
+            case "move" -> move();
+            default -> throw new IllegalArgumentException(type);
+        });
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(envelope);
+    }
+
+    private static <T> Envelope<T> envelope(String type, T payload) {
+        Envelope<T> env = new Envelope<>();
+        env.type = type;
+        env.room = new Room();
+        env.room.id = "chess:table-1";
+        env.room.game = "chess";
+        env.user = new User();
+        env.user.id = "u-42";
+        env.user.nickname = "Ari";
+        env.payload = payload;
+        return env;
+    }
+
+    private static PresenceDelta presenceDelta() {
+        PresenceDelta delta = new PresenceDelta();
+        delta.version = 1234;
+        delta.count = 57;
+        delta.joined = List.of(PublicUser.fromMemberId("Ari|alice@example.com"));
+        delta.left = List.of();
+        return delta;
+    }
+
+    private static PresenceOut presence(int members) {
+        PresenceOut out = new PresenceOut();
+        out.version = 1234;
+        out.count = members;
+        out.users = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            out.users.add(PublicUser.fromMemberId("player" + i + "|session-" + i));
+        }
+        return out;
+    }
+
+    private static ChatOut chat(String text) {
+        ChatOut out = new ChatOut();
+        out.nickname = "Bo";
+        out.text = text;
+        out.ts = 1_700_000_000_000L;
+        return out;
+    }
+
+    private static ChatHistoryOut chatHistory(int lines) {
+        ChatHistoryOut out = new ChatHistoryOut();
+        out.messages = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            out.messages.add(chat("message number " + i + " in this room"));
+        }
+        return out;
+    }
+
+    private static LeaderboardOut leaderboard(int size) {
+        List<Entry> top = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Entry e = new Entry();
+            e.nickname = "player" + i;
+            e.value = 10_000 - i * 100;
+            top.add(e);
+        }
+        return LeaderboardOut.of(top, "player3", 9_700, 4);
+    }
+
+    private static MoveOut move() {
+        MoveOut out = new MoveOut();
+        out.from = "e2";
+        out.to = "e4";
+        out.notation = "e4";
+        out.side = "WHITE";
+        return out;
+    }
+}
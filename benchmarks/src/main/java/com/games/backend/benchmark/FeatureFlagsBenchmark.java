@@ -0,0 +1,105 @@
+package com.games.backend.benchmark;
+
+import com.games.backend.feature.FeatureService;
+import com.games.backend.features.FeatureFlagsService;
+import com.games.backend.features.FlagSnapshot;
+import com.games.backend.features.FlagStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one feature-flag check as done per realtime message: snapshot reads vs the previous
+ * override-map/switch lookup and the synchronized overlay with an {@code Environment} fallback.
+ * <p>
+ * Run with: {@code java -jar benchmarks/target/benchmarks.jar FeatureFlagsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureFlagsBenchmark {
+
+    private FeatureFlagsService flagsService;
+    private FeatureService featureService;
+    private StandardEnvironment env;
+    private final ConcurrentHashMap<String, Boolean> legacyOverrides = new ConcurrentHashMap<>();
+    private final Map<String, Object> legacyOverlay = Collections.synchronizedMap(new HashMap<>());
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("bench", Map.of(
+                "features.realtime_enabled", "true",
+                "features.chess_enabled", "true")));
+        FlagStore localStore = new FlagStore(null, null, false);
+        featureService = new FeatureService(env, localStore);
+        flagsService = new FeatureFlagsService(localStore);
+        // Field defaults are false without Spring; turn on what a live chess room has enabled
+        localStore.put("realtime_enabled", "true");
+        localStore.put("chess_enabled", "true");
+        Method init = FeatureFlagsService.class.getDeclaredMethod("init"); // @PostConstruct
+        init.setAccessible(true);
+        init.invoke(flagsService);
+    }
+
+    /** The call every realtime handler makes. */
+    @Benchmark
+    public boolean flagsServiceIsEnabled() {
+        return flagsService.isEnabled("realtime_enabled");
+    }
+
+    /** What ChessRealtimeController does per message: one service snapshot read, every check against it. */
+    @Benchmark
+    public boolean chessMessage() {
+        FlagSnapshot s = flagsService.snapshot();
+        return s.isEnabled("realtime_enabled") && s.isEnabled("chess_enabled") && !s.isEnabled("anti_cheat_enabled");
+    }
+
+    @Benchmark
+    public boolean legacyChessMessage() {
+        return legacyIsEnabled("realtime_enabled") && legacyIsEnabled("chess_enabled") && !legacyIsEnabled("anti_cheat_enabled");
+    }
+
+    @Benchmark
+    public boolean featureServiceSnapshot() {
+        return featureService.isEnabled("chess_enabled", false);
+    }
+
+    @Benchmark
+    public boolean featureServiceLegacy() {
+        Object v;
+        synchronized (legacyOverlay) {
+            v = legacyOverlay.get("chess_enabled");
+        }
+        if (v instanceof Boolean b) return b;
+        return env.getProperty("features.chess_enabled", Boolean.class, false);
+    }
+
+    private boolean legacyIsEnabled(String flag) {
+        Boolean o = legacyOverrides.get(flag);
+        if (o != null) return o;
+        return switch (flag) {
+            case "realtime_enabled", "chat_enabled", "chess_enabled" -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.games.backend.benchmark;
+
+import com.games.backend.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Field;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT checks done on every authenticated request and STOMP CONNECT: signature validation,
+ * subject extraction, and rejection of a tampered token.
+ * <p>
+ * Run with: {@code java -jar benchmarks/target/benchmarks.jar JwtTokenProviderBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private String token;
+    private String tampered;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+        tokenProvider = new JwtTokenProvider();
+        set("jwtSecret", Base64.getEncoder().encodeToString(secret));
+        set("jwtExpirationInMs", 3_600_000);
+
+        UserDetails user = User.withUsername("player@example.com").password("n/a").authorities(List.of()).build();
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        // Flip a character inside the signature (the last one may only carry padding bits)
+        int i = token.lastIndexOf('.') + 10;
+        tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromJWT() {
+        return tokenProvider.getUsernameFromJWT(token);
+    }
+
+    @Benchmark
+    public boolean validateTamperedToken() {
+        return tokenProvider.validateToken(tampered);
+    }
+
+    // Fields are @Value-injected in the application
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = JwtTokenProvider.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(tokenProvider, value);
+    }
+}
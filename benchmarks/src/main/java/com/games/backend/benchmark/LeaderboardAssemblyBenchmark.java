@@ -0,0 +1,72 @@
+package com.games.backend.benchmark;
+
+import com.games.backend.realtime.dto.RealtimeDtos.Entry;
+import com.games.backend.realtime.dto.RealtimeDtos.Envelope;
+import com.games.backend.realtime.dto.RealtimeDtos.LeaderboardOut;
+import com.games.backend.realtime.dto.RealtimeDtos.Room;
+import com.games.backend.realtime.dto.RealtimeDtos.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaderboard response the realtime controllers build after every score submission, from the
+ * stored top 10 to the envelope handed to the broker (Redis calls excluded).
+ * <p>
+ * Run with: {@code java -jar benchmarks/target/benchmarks.jar LeaderboardAssemblyBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardAssemblyBenchmark {
+
+    /** Whether the submitter is already in the stored top list (otherwise they are prepended). */
+    @Param({"true", "false"})
+    public boolean submitterListed;
+
+    private List<Entry> top;
+    private Room room;
+    private User user;
+
+    @Setup
+    public void setup() {
+        top = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Entry e = new Entry();
+            e.nickname = "player" + i;
+            e.value = 10_000 - i * 100;
+            top.add(e);
+        }
+        room = new Room();
+        room.id = "snake:global";
+        room.game = "snake";
+        user = new User();
+        user.nickname = submitterListed ? "player9" : "newcomer";
+    }
+
+    @Benchmark
+    public Envelope<LeaderboardOut> assemble() {
+        LeaderboardOut out = LeaderboardOut.of(top, user.nickname, 9_100, 10);
+        Envelope<LeaderboardOut> res = new Envelope<>();
+        res.type = "leaderboard";
+        res.room = room;
+        res.user = user;
+        res.payload = out;
+        return res;
+    }
+}
@@ -0,0 +1,84 @@
+package com.games.backend.benchmark;
+
+import com.games.backend.service.ProfanityFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat messages filtered per second, dictionary matcher vs the previous split/regex implementation.
+ * <p>
+ * Run with: {@code java -jar benchmarks/target/benchmarks.jar ProfanityFilterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfanityFilterBenchmark {
+
+    private static final Set<String> LEGACY_BAD = new HashSet<>(Arrays.asList("badword", "curse"));
+
+    @Param({"clean", "dirty"})
+    public String kind;
+
+    private ProfanityFilter filter;
+    private String[] messages;
+    private int next;
+
+    @Setup
+    public void setup() {
+        filter = new ProfanityFilter(new DefaultResourceLoader(), "classpath:profanity/words.txt");
+        messages = "clean".equals(kind)
+                ? new String[] {
+                        "gg that was a close one, rematch?",
+                        "nice opening, didn't see the knight fork coming",
+                        "brb getting coffee",
+                        "anyone up for checkers after this round",
+                }
+                : new String[] {
+                        "what the fuck was that move",
+                        "you absolute b1tch, sh1t luck",
+                        "this game is bullshit, d.a.m.n",
+                        "cürse you and your badword strategy",
+                };
+    }
+
+    private String nextMessage() {
+        String m = messages[next];
+        next = (next + 1) % messages.length;
+        return m;
+    }
+
+    @Benchmark
+    public String matcher() {
+        return filter.filter(nextMessage());
+    }
+
+    @Benchmark
+    public String legacySplitRegex() {
+        String[] parts = nextMessage().split("\\s+");
+        for (int i = 0; i < parts.length; i++) {
+            String lower = parts[i].toLowerCase();
+            if (LEGACY_BAD.contains(lower.replaceAll("[^a-z]", ""))) {
+                parts[i] = "**";
+            }
+        }
+        return String.join(" ", parts);
+    }
+}
@@ -1,33 +1,54 @@
--- Create game_scores table
+-- Create game_scores table, range-partitioned by month on created_at.
+-- ScorePartitionManager creates upcoming monthly partitions at startup and daily, and rolls partitions
+-- past the retention window up into game_score_daily. To convert an existing heap table, use
+-- partition_game_scores.sql instead.
 CREATE TABLE IF NOT EXISTS game_scores
 (
-  id
-  BIGSERIAL
-  PRIMARY
-  KEY,
-  user_id
-  BIGINT
-  NOT
-  NULL,
-  game_type
-  VARCHAR
-(
-  50
-) NOT NULL,
-  score INTEGER NOT NULL,
+  id         BIGSERIAL,
+  user_id    BIGINT                      NOT NULL,
+  game_type  VARCHAR(50)                 NOT NULL,
+  score      INTEGER                     NOT NULL,
   created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-  CONSTRAINT fk_user
-  FOREIGN KEY
-(
-  user_id
-)
-  REFERENCES users
+  PRIMARY KEY (id, created_at),
+  CONSTRAINT fk_user FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY RANGE (created_at);
+
+-- Partitioned indexes: created on every partition
+CREATE INDEX IF NOT EXISTS idx_game_scores_type_score ON game_scores (game_type, score DESC, created_at);
+CREATE INDEX IF NOT EXISTS idx_game_scores_user_type_score ON game_scores (user_id, game_type, score DESC, created_at);
+
+-- The current month, so scores can be written before the application first starts
+DO $$
+DECLARE
+  month_start date := date_trunc('month', now());
+BEGIN
+  EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF game_scores FOR VALUES FROM (%L) TO (%L)',
+                 'game_scores_p' || to_char(month_start, 'YYYYMM'), month_start, month_start + interval '1 month');
+END $$;
+
+-- Daily per-user, per-game summaries of partitions past retention
+CREATE TABLE IF NOT EXISTS game_score_daily
 (
-  id
-)
-  );
+  user_id       BIGINT                      NOT NULL REFERENCES users (id),
+  game_type     VARCHAR(50)                 NOT NULL,
+  score_date    DATE                        NOT NULL,
+  games         INTEGER                     NOT NULL,
+  total_score   BIGINT                      NOT NULL,
+  best_score    INTEGER                     NOT NULL,
+  best_score_id BIGINT                      NOT NULL,
+  best_at       TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  PRIMARY KEY (user_id, game_type, score_date)
+);
+CREATE INDEX IF NOT EXISTS idx_game_score_daily_type_best ON game_score_daily (game_type, best_score DESC, best_at);
 
--- Create index on frequently queried columns
-CREATE INDEX IF NOT EXISTS idx_game_scores_user_id ON game_scores(user_id);
-CREATE INDEX IF NOT EXISTS idx_game_scores_game_type ON game_scores(game_type);
-CREATE INDEX IF NOT EXISTS idx_game_scores_created_at ON game_scores(created_at);
+-- Saved scores waiting to be relayed to the realtime leaderboards (ScoreOutboxRelay)
+CREATE TABLE IF NOT EXISTS score_outbox
+(
+  id           BIGSERIAL PRIMARY KEY,
+  scope        VARCHAR(128)                NOT NULL,
+  nickname     VARCHAR(255)                NOT NULL,
+  score        INTEGER                     NOT NULL,
+  created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  processed_at TIMESTAMP WITHOUT TIME ZONE
+);
+CREATE INDEX IF NOT EXISTS idx_score_outbox_pending ON score_outbox (processed_at, id);
@@ -6,10 +6,9 @@ import axios from "axios";
 
 interface Score {
   id: number;
+  // Scores only carry the public username, never the email
   user: {
     username: string;
-    // email may not be present in the API payload; keep optional for safety
-    email?: string;
   };
   gameType: string;
   score: number;
@@ -49,21 +48,10 @@ export default function LeaderboardPage() {
     return <div className="text-center py-8 text-red-500">{error}</div>;
   }
 
-  type UserWithName = {
-    name?: string;
-    email?: string;
-  };
-
-  // Safely get user identifier
-  const getCurrentIdentifier = (): string => {
-    if (!user) {
-      return "";
-    }
-    const userWithName = user as UserWithName;
-    return (userWithName.email || userWithName.name || "").toLowerCase();
-  };
-
-  const currentIdentifier = getCurrentIdentifier();
+  // Names the signed-in user may appear under on the leaderboard
+  const currentIdentifiers = user
+    ? [user.displayName, user.email].filter((v): v is string => !!v).map((v) => v.toLowerCase())
+    : [];
 
   return (
     <div className="container mx-auto px-4 py-8">
@@ -104,10 +92,9 @@ export default function LeaderboardPage() {
               </thead>
               <tbody className="bg-white divide-y divide-gray-200">
                 {gameScores.map((score, index) => {
-                  const isCurrent =
-                    currentIdentifier &&
-                    (currentIdentifier === (score.user.email?.toLowerCase() || "") ||
-                      currentIdentifier === (score.user.username?.toLowerCase() || ""));
+                  const isCurrent = currentIdentifiers.includes(
+                    score.user.username?.toLowerCase() || "",
+                  );
                   return (
                     <tr key={score.id} className={isCurrent ? "bg-blue-50" : ""}>
                       <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">
@@ -1,15 +1,17 @@
 "use client";
 
-import { useEffect, useMemo, useState } from "react";
+import { useEffect, useMemo, useRef, useState } from "react";
 import { type StompMessage, useStomp } from "@/lib/realtime/useStomp";
 
 type PresencePayload = {
+  version?: number;
   count?: number;
   status?: "join" | "leave" | "heartbeat";
 };
 
+// Full snapshot ("presence") or incremental change ("presence_delta"); both carry the room count.
 type PresenceMessage = StompMessage & {
-  type: "presence";
+  type: "presence" | "presence_delta";
   payload: PresencePayload;
 };
 
@@ -22,6 +24,7 @@ export function PresenceBadge({ game, nickname }: PresenceBadgeProps) {
   const realtimeEnabled = process.env.NEXT_PUBLIC_FEATURE_REALTIME === "true";
   const { connected, subscribe, publish } = useStomp({ enabled: realtimeEnabled });
   const [count, setCount] = useState<number>(0);
+  const versionRef = useRef<number>(0);
 
   // Memoize envelope base
   const baseEnv = useMemo(
@@ -46,13 +49,32 @@ export function PresenceBadge({ game, nickname }: PresenceBadgeProps) {
       return;
     }
 
-    // Subscribe to presence updates
-    const off = subscribe(`/topic/${game}/presence`, (msg: StompMessage) => {
-      if (msg?.type === "presence") {
-        const presenceMsg = msg as PresenceMessage;
-        setCount(presenceMsg.payload?.count ?? 0);
+    const requestSnapshot = () =>
+      publish(`/app/${game}/presence/snapshot`, {
+        ...baseEnv,
+        type: "presence",
+        payload: { status: "heartbeat" },
+      });
+
+    const apply = (msg: StompMessage) => {
+      if (msg?.type !== "presence" && msg?.type !== "presence_delta") {
+        return;
       }
-    });
+      const presenceMsg = msg as PresenceMessage;
+      const version = presenceMsg.payload?.version ?? 0;
+      if (version && version <= versionRef.current) {
+        return; // stale or duplicate
+      }
+      if (msg.type === "presence_delta" && versionRef.current && version > versionRef.current + 1) {
+        requestSnapshot(); // missed a delta; resync
+      }
+      versionRef.current = version;
+      setCount(presenceMsg.payload?.count ?? 0);
+    };
+
+    // Deltas are broadcast to the room; snapshots come back on the user queue
+    const off = subscribe(`/topic/${game}/presence/${baseEnv.room.id}`, apply);
+    const offSnapshot = subscribe(`/user/queue/${game}/presence`, apply);
 
     // Join on mount
     publish(`/app/${game}/presence`, {
@@ -60,6 +82,7 @@ export function PresenceBadge({ game, nickname }: PresenceBadgeProps) {
       type: "presence",
       payload: { status: "join" },
     });
+    requestSnapshot();
 
     const hb = setInterval(() => {
       publish(`/app/${game}/presence`, {
@@ -79,6 +102,10 @@ export function PresenceBadge({ game, nickname }: PresenceBadgeProps) {
       if (typeof off === "function") {
         off();
       }
+      if (typeof offSnapshot === "function") {
+        offSnapshot();
+      }
+      versionRef.current = 0;
     };
   }, [realtimeEnabled, subscribe, publish, game, baseEnv]);
 
@@ -20,7 +20,7 @@ export function useStomp(opts?: {
   const enabled = opts?.enabled ?? process.env.NEXT_PUBLIC_FEATURE_REALTIME === "true";
   const url =
     opts?.url ??
-    (typeof window !== "undefined" ? `${window.location.origin.replace(/^http/, "ws")}/ws` : "");
+    (typeof window !== "undefined" ? `${window.location.origin.replace(/^http/, "ws")}/ws-native` : "");
   const [connected, setConnected] = useState(false);
   const clientRef = useRef<Client | null>(null);
   const subsRef = useRef<StompSubscription[]>([]);
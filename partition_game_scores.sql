@@ -0,0 +1,75 @@
+-- Converts an existing heap game_scores table into one range-partitioned by month on created_at.
+--
+-- Rows inside the retention window (scores.partitions.retention-months, 12 by default; keep
+-- retention_months below in step) are copied into one partition per month, named like the ones
+-- ScorePartitionManager creates (game_scores_pYYYYMM). Older rows go straight into the
+-- game_score_daily rollup, exactly as the manager would roll them up later. The old heap is then
+-- dropped, so no single oversized partition is left behind for the retention job.
+--
+-- The copy rewrites the retained rows once, under an exclusive lock on the old table: run it in
+-- a maintenance window on a large table.
+
+BEGIN;
+
+ALTER TABLE game_scores RENAME TO game_scores_legacy;
+ALTER TABLE game_scores_legacy ALTER COLUMN created_at SET NOT NULL;
+-- Ids come from a sequence owned by the new parent, continuing where the old serial/identity
+-- column stopped, so ids stay unique and rollups keep pointing at the same best rows
+CREATE SEQUENCE game_scores_part_id_seq;
+SELECT setval('game_scores_part_id_seq', (SELECT coalesce(max(id), 0) + 1 FROM game_scores_legacy), false);
+
+CREATE TABLE game_scores (LIKE game_scores_legacy) PARTITION BY RANGE (created_at);
+ALTER TABLE game_scores ALTER COLUMN id SET DEFAULT nextval('game_scores_part_id_seq');
+ALTER SEQUENCE game_scores_part_id_seq OWNED BY game_scores.id;
+ALTER TABLE game_scores ADD PRIMARY KEY (id, created_at);
+ALTER TABLE game_scores ADD FOREIGN KEY (user_id) REFERENCES users (id);
+
+-- Created on every partition. Leaderboards take the first rows of each partition's index and merge them.
+CREATE INDEX idx_game_scores_type_score ON game_scores (game_type, score DESC, created_at);
+CREATE INDEX idx_game_scores_user_type_score ON game_scores (user_id, game_type, score DESC, created_at);
+
+CREATE TABLE IF NOT EXISTS game_score_daily
+(
+  user_id       BIGINT                      NOT NULL REFERENCES users (id),
+  game_type     VARCHAR(50)                 NOT NULL,
+  score_date    DATE                        NOT NULL,
+  games         INTEGER                     NOT NULL,
+  total_score   BIGINT                      NOT NULL,
+  best_score    INTEGER                     NOT NULL,
+  best_score_id BIGINT                      NOT NULL,
+  best_at       TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  PRIMARY KEY (user_id, game_type, score_date)
+);
+CREATE INDEX IF NOT EXISTS idx_game_score_daily_type_best ON game_score_daily (game_type, best_score DESC, best_at);
+
+DO $$
+DECLARE
+  retention_months int := 12;
+  cutoff timestamp := date_trunc('month', now()) - make_interval(months => retention_months);
+  last_month timestamp;
+  m timestamp;
+BEGIN
+  -- Same aggregation as ScorePartitionManager.ROLLUP
+  INSERT INTO game_score_daily (user_id, game_type, score_date, games, total_score, best_score, best_score_id, best_at)
+  SELECT user_id, game_type, created_at::date, count(*), sum(score), max(score),
+         (array_agg(id ORDER BY score DESC, created_at))[1],
+         (array_agg(created_at ORDER BY score DESC, created_at))[1]
+  FROM game_scores_legacy
+  WHERE created_at < cutoff
+  GROUP BY user_id, game_type, created_at::date;
+
+  SELECT date_trunc('month', greatest(max(created_at), now())) INTO last_month FROM game_scores_legacy;
+  m := cutoff;
+  WHILE m <= last_month LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF game_scores FOR VALUES FROM (%L) TO (%L)',
+                   'game_scores_p' || to_char(m, 'YYYYMM'), m, m + interval '1 month');
+    m := m + interval '1 month';
+  END LOOP;
+
+  INSERT INTO game_scores SELECT * FROM game_scores_legacy WHERE created_at >= cutoff;
+END $$;
+
+DROP TABLE game_scores_legacy;
+ANALYZE game_scores;
+
+COMMIT;